@@ -0,0 +1,129 @@
+package es.ull.esit.top;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de la construcción greedy, la evaluación de candidatos y la
+ * evaluación de la fitness. La semilla es fija para que los resultados sean
+ * comparables entre ejecuciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TOPTWGRASPBenchmark {
+    public static final long SEED = 12345L;
+
+    @Param({"c101.txt", "c102.txt", "c103.txt", "c104.txt", "c105.txt", "c106.txt", "c107.txt", "c108.txt", "c109.txt",
+            "r101.txt", "r102.txt", "r103.txt", "r104.txt", "r105.txt", "r106.txt", "r107.txt", "r108.txt",
+            "r109.txt", "r110.txt", "r111.txt", "r112.txt",
+            "rc101.txt", "rc102.txt", "rc103.txt", "rc104.txt", "rc105.txt", "rc106.txt", "rc107.txt", "rc108.txt",
+            "pr01.txt", "pr02.txt", "pr03.txt", "pr04.txt", "pr05.txt", "pr06.txt", "pr07.txt", "pr08.txt",
+            "pr09.txt", "pr10.txt"})
+    public String instance;
+
+    @Param({"3"})
+    public int maxSizeRCL;
+
+    private TOPTWGRASP grasp;
+    private TOPTWGRASP partialGrasp;
+    private int[] pendingCustomers;
+    private int pendingSize;
+    private TOPTWSolution greedySolution;
+
+    /**
+     * Carga la instancia y prepara una solución completa y otra a medio construir.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        TOPTW problem = TOPTWReader.readProblem(TOPTWReaderBenchmark.INSTANCES_DIR + this.instance);
+        this.grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        this.grasp.setSeed(SEED);
+
+        TOPTWGRASP other = new TOPTWGRASP(new TOPTWSolution(problem));
+        other.setSeed(SEED);
+        other.computeGreedySolution(this.maxSizeRCL);
+        this.greedySolution = other.getSolution();
+
+        this.setupPartialSolution(problem);
+    }
+
+    /**
+     * Inserta la mitad de los clientes, siempre el de menor coste, abriendo rutas
+     * cuando no caben más, y deja una ruta vacía si quedan vehículos libres.
+     * @param problem problema
+     */
+    private void setupPartialSolution(TOPTW problem) {
+        TOPTWSolution solution = new TOPTWSolution(problem);
+        this.partialGrasp = new TOPTWGRASP(solution);
+        solution.initSolution();
+        this.pendingCustomers = new int[problem.getPOIs()];
+        this.pendingSize = problem.getPOIs();
+        for(int j = 1; j <= problem.getPOIs(); j++) { this.pendingCustomers[j-1] = j; }
+        while(this.pendingSize > problem.getPOIs() / 2) {
+            TOPTWCandidates candidates = this.partialGrasp.comprehensiveEvaluation(this.pendingCustomers, this.pendingSize, 1);
+            if(candidates.isEmpty()) {
+                if(solution.getCreatedRoutes() == problem.getVehicles()) { break; }
+                solution.addRoute();
+                continue;
+            }
+            int best = 0;
+            int customer = candidates.getCustomer(best);
+            this.partialGrasp.updateSolution(customer, candidates.getRoute(best), candidates.getPredecessor(best));
+            for(int j = 0; j < this.pendingSize; j++) {
+                if(this.pendingCustomers[j] == customer) {
+                    this.pendingCustomers[j] = this.pendingCustomers[--this.pendingSize];
+                    break;
+                }
+            }
+        }
+        if(solution.getCreatedRoutes() < problem.getVehicles()) {
+            solution.addRoute();
+        }
+    }
+
+    /**
+     * Construcción greedy completa.
+     * @return solución construida
+     */
+    @Benchmark
+    public TOPTWSolution computeGreedySolution() {
+        this.grasp.computeGreedySolution(this.maxSizeRCL);
+        return this.grasp.getSolution();
+    }
+
+    /**
+     * Evaluación de todos los candidatos pendientes y construcción de la RCL sin
+     * reutilizar la caché de inserciones.
+     * @return candidatos
+     */
+    @Benchmark
+    public TOPTWCandidates comprehensiveEvaluation() {
+        this.partialGrasp.invalidateInsertionCache();
+        return this.partialGrasp.comprehensiveEvaluation(this.pendingCustomers, this.pendingSize, this.maxSizeRCL);
+    }
+
+    /**
+     * Evaluación de la fitness de una solución completa.
+     * @return fitness
+     */
+    @Benchmark
+    public double evaluateFitness() {
+        return this.greedySolution.evaluateFitness();
+    }
+}
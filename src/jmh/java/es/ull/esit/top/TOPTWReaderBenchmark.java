@@ -0,0 +1,99 @@
+package es.ull.esit.top;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de lectura de instancias y cálculo de la matriz de distancias.
+ * Se ejecutan con mvn -Pjmh verify desde la raíz del proyecto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TOPTWReaderBenchmark {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+
+    @Param({"c101.txt", "c102.txt", "c103.txt", "c104.txt", "c105.txt", "c106.txt", "c107.txt", "c108.txt", "c109.txt",
+            "r101.txt", "r102.txt", "r103.txt", "r104.txt", "r105.txt", "r106.txt", "r107.txt", "r108.txt",
+            "r109.txt", "r110.txt", "r111.txt", "r112.txt",
+            "rc101.txt", "rc102.txt", "rc103.txt", "rc104.txt", "rc105.txt", "rc106.txt", "rc107.txt", "rc108.txt",
+            "pr01.txt", "pr02.txt", "pr03.txt", "pr04.txt", "pr05.txt", "pr06.txt", "pr07.txt", "pr08.txt",
+            "pr09.txt", "pr10.txt"})
+    public String instance;
+
+    private TOPTW problem;
+    private double[] x;
+    private double[] y;
+    private File binaryFile;
+
+    /**
+     * Carga la instancia una vez por ejecución y la guarda en binario, con matriz.
+     * @throws IOException Si no se puede escribir el fichero binario.
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.problem = TOPTWReader.readProblem(INSTANCES_DIR + this.instance);
+        this.x = new double[this.problem.getPOIs() + 1];
+        this.y = new double[this.problem.getPOIs() + 1];
+        for(int i = 0; i <= this.problem.getPOIs(); i++) {
+            this.x[i] = this.problem.getX(i);
+            this.y[i] = this.problem.getY(i);
+        }
+        this.binaryFile = File.createTempFile("toptw", TOPTWBinaryReader.BINARY_EXTENSION);
+        TOPTWBinaryWriter.writeProblem(this.problem, this.binaryFile.getPath(), true);
+    }
+
+    /**
+     * Borra el fichero binario temporal.
+     */
+    @TearDown
+    public void tearDown() {
+        this.binaryFile.delete();
+    }
+
+    /**
+     * Lectura completa de la instancia, incluida la matriz de distancias.
+     * @return problema leído
+     */
+    @Benchmark
+    public TOPTW readProblem() {
+        return TOPTWReader.readProblem(INSTANCES_DIR + this.instance);
+    }
+
+    /**
+     * Lectura de la instancia en binario, con la matriz proyectada desde el fichero.
+     * @return problema leído
+     */
+    @Benchmark
+    public TOPTW readBinaryProblem() {
+        return TOPTWBinaryReader.readProblem(this.binaryFile.getPath());
+    }
+
+    /**
+     * Cálculo de la matriz de distancias con las coordenadas de un problema ya cargado.
+     * @return distancias
+     */
+    @Benchmark
+    public TOPTWDistances calculateDistanceMatrix() {
+        TOPTWDistances distances = TOPTWDistances.forSize(this.x, this.y);
+        distances.calculate();
+        return distances;
+    }
+}
@@ -1,386 +1,730 @@
-package top;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-
-import es.ull.esit.utilities.ExpositoUtilities;
-
-/**
- * Clase TOPTW. Representa un problema de rutas con ventanas de tiempo.
- */
-public class TOPTW {
-    private int nodes;
-    private double[] x;
-    private double[] y;
-    private double[] score;
-    private double[] readyTime;
-    private double[] dueTime;
-    private double[] serviceTime;
-    private int vehicles;
-    private int depots;
-    private double maxTimePerRoute;
-    private double maxRoutes;
-    private double[][] distanceMatrix;
-
-    /**
-     * Constructor de la clase TOPTW.
-     * @param nodes Número de nodos del problema.
-     * @param routes Número de rutas del problema.
-     */
-    public TOPTW(int nodes, int routes) {
-        this.nodes = nodes;
-        this.depots = 0;
-        this.x = new double[this.nodes + 1];
-        this.y = new double[this.nodes + 1];
-        this.score = new double[this.nodes + 1];
-        this.readyTime = new double[this.nodes + 1];
-        this.dueTime = new double[this.nodes + 1];
-        this.serviceTime = new double[this.nodes + 1];
-        this.distanceMatrix = new double[this.nodes + 1][this.nodes + 1];
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                this.distanceMatrix[i][j] = 0.0;
-            }
-        }
-        this.maxRoutes = routes;
-        this.vehicles = routes;
-    }
-
-    /**
-     * Metodo isDepot. Comprueba si un nodo es un depósito.
-     * @param a
-     * @return el nodo
-     */
-    public boolean isDepot(int a) {
-        if(a > this.nodes) {
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Metodo getDistance. Devuelve la distancia entre dos nodos.
-     * @param route
-     * @return la distancia
-     */
-    public double getDistance(int[] route) {
-        double distance = 0.0;
-        for (int i = 0; i < route.length - 1; i++) {
-            int node1 = route[i];
-            int node2 = route[i + 1];
-            distance += this.getDistance(node1, node2);
-        }
-        return distance;
-    }
-
-    /**
-     * Metodo getDistance. Devuelve la distancia entre dos nodos.
-     * @param route
-     * @return la distancia
-     */
-    public double getDistance(ArrayList<Integer> route) {
-        double distance = 0.0;
-        for (int i = 0; i < route.size() - 1; i++) {
-            int node1 = route.get(i);
-            int node2 = route.get(i + 1);
-            distance += this.getDistance(node1, node2);
-        }
-        return distance;
-    }
-
-    /**
-     * Metodo getDistance. Devuelve la distancia entre dos nodos.
-     * @param routes
-     * @return la distancia
-     */
-    public double getDistance(ArrayList<Integer>[] routes) {
-        double distance = 0.0;
-        for (ArrayList<Integer> route : routes) {
-            distance += this.getDistance(route);
-        }
-        return distance;
-    }
-
-    /**
-     * Metodo getDistanceMatrix. Devuelve la matriz de distancias.
-     * @return la matriz de distancias
-     */
-    public void calculateDistanceMatrix() {
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                if (i != j) {
-                    double diffXs = this.x[i] - this.x[j];
-                    double diffYs = this.y[i] - this.y[j];
-                    this.distanceMatrix[i][j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
-                    this.distanceMatrix[j][i] = this.distanceMatrix[i][j];
-                } else {
-                    this.distanceMatrix[i][j] = 0.0;
-                }
-            }
-        }
-    }
-
-    /**
-     * Método getDistanceMatrix. Devuelve la matriz de distancias.
-     * @return el tiempo de la ruta
-     */
-    public double getMaxTimePerRoute() {
-        return maxTimePerRoute;
-    }
-
-    /**
-     * Método setMaxTimePerRoute. Establece el tiempo máximo por ruta.
-     * @param maxTimePerRoute
-     */
-    public void setMaxTimePerRoute(double maxTimePerRoute) {
-        this.maxTimePerRoute = maxTimePerRoute;
-    }
-
-    /**
-     * Método getMaxRoutes. Devuelve el número máximo de rutas.
-     * @return el número máximo de rutas
-     */
-    public double getMaxRoutes() {
-        return maxRoutes;
-    }
-
-    /**
-     * Método setMaxRoutes. Establece el número máximo de rutas.
-     * @param maxRoutes
-     */
-    public void setMaxRoutes(double maxRoutes) {
-        this.maxRoutes = maxRoutes;
-    }
-
-    /**
-     * Método getPOIs. Devuelve el nodo
-     * @return el nodo
-     */
-    public int getPOIs() {
-        return this.nodes;
-    }
-
-    /**
-     * Método getDistance.
-     * @param i
-     * @param j
-     * @return la distancia entre dos nodos
-     */
-    public double getDistance(int i, int j) {
-        if(this.isDepot(i)) { i=0; }
-        if(this.isDepot(j)) { j=0; }
-        return this.distanceMatrix[i][j];
-    }
-
-    /**
-     * Metodo getTime
-     * @param i
-     * @param j
-     * @return el tiempo entre dos nodos
-     */
-
-    public double getTime(int i, int j) {
-        if(this.isDepot(i)) { i=0; }
-        if(this.isDepot(j)) { j=0; }
-        return this.distanceMatrix[i][j];
-    }
-
-    /**
-     * Método getNodes. Devuelve el número de nodos.
-     * @return el número de nodos
-     */
-    public int getNodes() {
-        return this.nodes;
-    }
-
-    /**
-     * Método setNodes. Establece el número de nodos.
-     * @param nodes
-     */
-    public void setNodes(int nodes) {
-        this.nodes = nodes;
-    }
-
-    /**
-     * Método getX. Devuelve la coordenada x de un nodo.
-     * @param index
-     * @return la coordenada x
-     */
-    public double getX(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.x[index];
-    }
-
-    /**
-     * Método setX. Establece la coordenada x de un nodo.
-     * @param index
-     * @param x
-     */
-    public void setX(int index, double x) {
-        this.x[index] = x;
-    }
-
-    /**
-     * Método getY. Devuelve la coordenada y de un nodo.
-     * @param index
-     * @return la coordenada y
-     */
-    public double getY(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.y[index];
-    }
-
-    /**
-     * Método setY. Establece la coordenada y de un nodo.
-     * @param index
-     * @param y
-     */
-    public void setY(int index, double y) {
-        this.y[index] = y;
-    }
-
-    /**
-     * Método getScore. Devuelve la puntuación de un nodo.
-     * @param index
-     * @return la puntuación
-     */
-    public double getScore(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.score[index];
-    }
-
-
-    /**
-     * Método getScore. Devuelve la puntuación de un nodo.
-     * @return
-     */
-    public double[] getScore() {
-        return this.score;
-    }
-
-    /**
-     * Método setScore. Establece la puntuación de un nodo.
-     * @param index
-     * @param score
-     */
-    public void setScore(int index, double score) {
-        this.score[index] = score;
-    }
-
-    /**
-     * Método getReadyTime. Devuelve el tiempo de inicio de un nodo.
-     * @param index
-     * @return el tiempo de inicio
-     */
-    public double getReadyTime(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.readyTime[index];
-    }
-
-    /**
-     * Método setReadyTime. Establece el tiempo de inicio de un nodo.
-     * @param index
-     * @param readyTime
-     */
-    public void setReadyTime(int index, double readyTime) {
-        this.readyTime[index] = readyTime;
-    }
-
-    /**
-     * Método getDueTime. Devuelve el tiempo de finalización de un nodo.
-     * @param index
-     * @return el tiempo de finalización
-     */
-    public double getDueTime(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.dueTime[index];
-    }
-
-    /**
-     * Método setDueTime. Establece el tiempo de finalización de un nodo.
-     * @param index
-     * @param dueTime
-     */
-    public void setDueTime(int index, double dueTime) {
-        this.dueTime[index] = dueTime;
-    }
-
-    /**
-     * Método getServiceTime. Devuelve el tiempo de servicio de un nodo.
-     * @param index
-     * @return el tiempo de servicio
-     */
-    public double getServiceTime(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.serviceTime[index];
-    }
-
-    /**
-     * Método setServiceTime. Establece el tiempo de servicio de un nodo.
-     * @param index
-     * @param serviceTime
-     */
-    public void setServiceTime(int index, double serviceTime) {
-        this.serviceTime[index] = serviceTime;
-    }
-
-    /**
-     * Método getVehicles. Devuelve el número de vehículos.
-     * @return el número de vehículos
-     */
-    public int getVehicles() {
-        return this.vehicles;
-    }
-
-    /**
-     * Metodo toString de la clase TOPTW.
-     * @return el texto
-     */
-    @Override
-    public String toString() {
-        final int COLUMN_WIDTH = 15;
-        String text = "Nodes: " + this.nodes + "\n";
-        String[] strings = new String[]{"CUST NO.", "XCOORD.", "YCOORD.", "SCORE", "READY TIME", "DUE DATE", "SERVICE TIME"};
-        int[] width = new int[strings.length];
-        Arrays.fill(width, COLUMN_WIDTH);
-        text += ExpositoUtilities.getFormat(strings, width) + "\n";
-        for (int i = 0; i < this.nodes; i++) {
-            strings = new String[strings.length];
-            int index = 0;
-            //strings[index++] = Integer.toString("" + i);
-            strings[index++] = Integer.toString(i);
-            strings[index++] = "" + this.x[i];
-            strings[index++] = "" + this.y[i];
-            strings[index++] = "" + this.score[i];
-            strings[index++] = "" + this.readyTime[i];
-            strings[index++] = "" + this.dueTime[i];
-            strings[index++] = "" + this.serviceTime[i];
-            text += ExpositoUtilities.getFormat(strings, width);
-            text += "\n";
-        }
-        text += "Vehicles: " + this.vehicles + "\n";
-        strings = new String[]{"VEHICLE", "CAPACITY"};
-        width = new int[strings.length];
-        Arrays.fill(width, COLUMN_WIDTH);
-        text += ExpositoUtilities.getFormat(strings, width) + "\n";
-        return text;
-    }
-
-    /**
-     * Método addNode. Añade un nodo.
-     * @return el nodo
-     */
-    public int addNode() {
-        this.nodes++;
-        return this.nodes;
-    }
-
-    /**
-     * Método addNodeDepot. Añade un nodo depósito.
-     * @return el nodo depósito
-     */
-    public int addNodeDepot() {
-        this.depots++;
-        return this.depots;
-    }
+package es.ull.esit.top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+
+/**
+ * Clase TOPTW. Representa un problema de rutas con ventanas de tiempo. Es inmutable:
+ * se crea con TOPTW.Builder, sus arrays son final y lo que se deriva de ellos
+ * (distancias, rejilla y constantes de score) se calcula al construirla, de modo que una misma instancia, con
+ * su matriz de distancias, se comparte entre hilos sin copiarla. Las listas de
+ * vecinos se calculan al pedirlas y se publican con un campo volatile.
+ */
+public class TOPTW {
+    public static final int DEFAULT_NEIGHBORS = 25;
+
+    private final int nodes;
+    private final double[] x;
+    private final double[] y;
+    private final double[] score;
+    private final double[] readyTime;
+    private final double[] dueTime;
+    private final double[] serviceTime;
+    private final int vehicles;
+    private final double maxTimePerRoute;
+    private final double maxRoutes;
+    private final TOPTWDistances distances;
+
+    // Constantes de score, ver scoreConstants
+    private final double maxScore;
+    private final double[] membership;
+    private final TOPTWSpatialIndex spatialIndex;
+
+    // Listas de vecinos granulares, ver buildNeighbors
+    private final int neighborCount;
+    private int[] neighborStart;
+    private int[] reverseNeighborStart;
+    private int[] reverseNeighbors;
+    private volatile int[] neighbors;
+
+    /**
+     * Constructor de la clase TOPTW. Toma los arrays del builder sin copiarlos.
+     * @param builder Builder con los datos de la instancia.
+     */
+    private TOPTW(Builder builder) {
+        this.nodes = builder.nodes;
+        this.x = builder.x;
+        this.y = builder.y;
+        this.score = builder.score;
+        this.readyTime = builder.readyTime;
+        this.dueTime = builder.dueTime;
+        this.serviceTime = builder.serviceTime;
+        this.vehicles = builder.vehicles;
+        this.maxTimePerRoute = builder.maxTimePerRoute;
+        this.maxRoutes = builder.maxRoutes;
+        this.distances = builder.distances;
+        this.neighborCount = builder.neighborCount;
+        double max = -1.0;
+        for (int i = 0; i < this.score.length; i++) {
+            if(this.score[i] > max) {
+                max = this.score[i];
+            }
+        }
+        this.maxScore = max;
+        this.membership = this.scoreConstants(max);
+        this.spatialIndex = new TOPTWSpatialIndex(this.x, this.y, this.dueTime, this.nodes);
+    }
+
+    /**
+     * Constructor de la clase TOPTW que comparte todos los datos de otra instancia y
+     * solo cambia el número de vecinos.
+     * @param problem Instancia original.
+     * @param neighborCount Número de vecinos por cliente.
+     */
+    private TOPTW(TOPTW problem, int neighborCount) {
+        this.nodes = problem.nodes;
+        this.x = problem.x;
+        this.y = problem.y;
+        this.score = problem.score;
+        this.readyTime = problem.readyTime;
+        this.dueTime = problem.dueTime;
+        this.serviceTime = problem.serviceTime;
+        this.vehicles = problem.vehicles;
+        this.maxTimePerRoute = problem.maxTimePerRoute;
+        this.maxRoutes = problem.maxRoutes;
+        this.distances = problem.distances;
+        this.maxScore = problem.maxScore;
+        this.membership = problem.membership;
+        this.spatialIndex = problem.spatialIndex;
+        this.neighborCount = neighborCount;
+    }
+
+    /**
+     * Metodo isDepot. Comprueba si un nodo es un depósito: el nodo 0 o uno de los
+     * índices POIs+1..POIs+vehicles-1 que las soluciones usan como depósito de cada
+     * ruta (ver TOPTWSolution.getDepot). Todos comparten los datos del nodo 0.
+     * @param a
+     * @return el nodo
+     */
+    public boolean isDepot(int a) {
+        return a == 0 || a > this.nodes;
+    }
+
+    /**
+     * Metodo getDistance. Devuelve la distancia entre dos nodos.
+     * @param route
+     * @return la distancia
+     */
+    public double getDistance(int[] route) {
+        double distance = 0.0;
+        for (int i = 0; i < route.length - 1; i++) {
+            int node1 = route[i];
+            int node2 = route[i + 1];
+            distance += this.getDistance(node1, node2);
+        }
+        return distance;
+    }
+
+    /**
+     * Metodo getDistance. Devuelve la distancia entre dos nodos.
+     * @param route
+     * @return la distancia
+     */
+    public double getDistance(ArrayList<Integer> route) {
+        double distance = 0.0;
+        for (int i = 0; i < route.size() - 1; i++) {
+            int node1 = route.get(i);
+            int node2 = route.get(i + 1);
+            distance += this.getDistance(node1, node2);
+        }
+        return distance;
+    }
+
+    /**
+     * Metodo getDistance. Devuelve la distancia entre dos nodos.
+     * @param routes
+     * @return la distancia
+     */
+    public double getDistance(ArrayList<Integer>[] routes) {
+        double distance = 0.0;
+        for (ArrayList<Integer> route : routes) {
+            distance += this.getDistance(route);
+        }
+        return distance;
+    }
+
+    /**
+     * Método getSpatialIndex. Devuelve la rejilla de clientes, construida al crear la instancia.
+     * @return la rejilla
+     */
+    public TOPTWSpatialIndex getSpatialIndex() {
+        return this.spatialIndex;
+    }
+
+    /**
+     * Método buildNeighbors. Calcula para cada cliente sus count clientes más cercanos
+     * en tiempo de viaje que son compatibles por ventanas de tiempo, es decir, que se
+     * puede ir de uno al otro en algún sentido antes de que cierre la ventana del
+     * segundo (dos clientes incompatibles nunca pueden ir seguidos en una ruta). Se
+     * guardan ordenados por distancia en neighbors, los de cada cliente entre
+     * neighborStart[c] y neighborStart[c+1]. También se guardan las listas inversas
+     * (los clientes que tienen a v como vecino), para recorrer desde los nodos de una
+     * ruta los clientes que pueden ir a su lado. El depósito no entra en las listas.
+     * El número de vecinos por cliente es neighborCount; con POIs o más se guardan
+     * todos los compatibles.
+     */
+    private void buildNeighbors() {
+        int count = this.neighborCount;
+        int[] start = new int[this.nodes + 2];
+        int[] list = new int[this.nodes * Math.min(count, this.nodes)];
+        double[] nearest = new double[Math.min(count, this.nodes)];
+        int size = 0;
+        for (int c = 1; c <= this.nodes; c++) {
+            start[c] = size;
+            int found = 0;
+            for (int v = 1; v <= this.nodes; v++) {
+                if(v == c || !this.isCompatible(c, v)) {
+                    continue;
+                }
+                double distance = this.getTime(c, v);
+                if(found == nearest.length && (found == 0 || distance >= nearest[found - 1])) {
+                    continue;
+                }
+                // inserción ordenada; a igual distancia queda antes el de menor índice
+                int position = found < nearest.length ? found++ : found - 1;
+                while(position > 0 && nearest[position - 1] > distance) {
+                    nearest[position] = nearest[position - 1];
+                    list[size + position] = list[size + position - 1];
+                    position--;
+                }
+                nearest[position] = distance;
+                list[size + position] = v;
+            }
+            size += found;
+        }
+        start[0] = 0;
+        start[this.nodes + 1] = size;
+
+        int[] reverseStart = new int[this.nodes + 2];
+        int[] reverse = new int[size];
+        for (int p = 0; p < size; p++) {
+            reverseStart[list[p] + 1]++;
+        }
+        for (int v = 0; v <= this.nodes; v++) {
+            reverseStart[v + 1] += reverseStart[v];
+        }
+        int[] next = Arrays.copyOf(reverseStart, this.nodes + 1);
+        for (int c = 1; c <= this.nodes; c++) { // cada lista inversa queda ordenada por cliente
+            for (int p = start[c]; p < start[c + 1]; p++) {
+                reverse[next[list[p]]++] = c;
+            }
+        }
+        this.neighborStart = start;
+        this.reverseNeighborStart = reverseStart;
+        this.reverseNeighbors = reverse;
+        this.neighbors = list;
+    }
+
+    /**
+     * Método isCompatible. Comprueba si desde un cliente se puede llegar a otro, o al
+     * revés, antes de que cierre la ventana de tiempo del destino.
+     * @param a
+     * @param b
+     * @return true si son compatibles
+     */
+    private boolean isCompatible(int a, int b) {
+        double time = this.getTime(a, b);
+        return this.readyTime[a] + this.serviceTime[a] + time < this.dueTime[b]
+                || this.readyTime[b] + this.serviceTime[b] + time < this.dueTime[a];
+    }
+
+    /**
+     * Método neighborLists. Devuelve las listas de vecinos, que se calculan la primera
+     * vez que se piden. Los arrays auxiliares se escriben antes que neighbors, que es
+     * volatile, así que quien ve neighbors ve también los demás.
+     * @return los vecinos de todos los clientes
+     */
+    private int[] neighborLists() {
+        int[] list = this.neighbors;
+        if(list == null) {
+            synchronized (this) {
+                list = this.neighbors;
+                if(list == null) {
+                    this.buildNeighbors();
+                    list = this.neighbors;
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Método getNeighborCount. Devuelve el número de vecinos por cliente.
+     * @return el número de vecinos
+     */
+    public int getNeighborCount() {
+        return this.neighborCount;
+    }
+
+    /**
+     * Método withNeighborCount. Devuelve una instancia con otro número de vecinos por
+     * cliente que comparte los datos y la matriz de distancias con esta.
+     * @param count
+     * @return la instancia con count vecinos por cliente
+     */
+    public TOPTW withNeighborCount(int count) {
+        if(count < 0) {
+            throw new IllegalArgumentException("El número de vecinos no puede ser negativo: " + count);
+        }
+        return count == this.neighborCount ? this : new TOPTW(this, count);
+    }
+
+    /**
+     * Método getNeighbors. Devuelve las listas de vecinos de todos los clientes, una
+     * detrás de otra; las de cada cliente se delimitan con getNeighborStart.
+     * @return los vecinos
+     */
+    public int[] getNeighbors() {
+        return this.neighborLists();
+    }
+
+    /**
+     * Método getNeighborStart. Devuelve dónde empieza en getNeighbors la lista de cada
+     * cliente; la del cliente c acaba donde empieza la de c + 1.
+     * @return las posiciones iniciales
+     */
+    public int[] getNeighborStart() {
+        this.neighborLists();
+        return this.neighborStart;
+    }
+
+    /**
+     * Método getReverseNeighbors. Devuelve, para cada nodo, los clientes que lo tienen
+     * en su lista de vecinos; se delimitan con getReverseNeighborStart.
+     * @return los vecinos inversos
+     */
+    public int[] getReverseNeighbors() {
+        this.neighborLists();
+        return this.reverseNeighbors;
+    }
+
+    /**
+     * Método getReverseNeighborStart. Devuelve dónde empieza en getReverseNeighbors la
+     * lista de cada nodo; la del nodo v acaba donde empieza la de v + 1.
+     * @return las posiciones iniciales
+     */
+    public int[] getReverseNeighborStart() {
+        this.neighborLists();
+        return this.reverseNeighborStart;
+    }
+
+    /**
+     * Método isNeighbor. Comprueba si un nodo está en la lista de vecinos de un cliente.
+     * @param customer
+     * @param node
+     * @return true si node es vecino de customer
+     */
+    public boolean isNeighbor(int customer, int node) {
+        int[] list = this.neighborLists();
+        for (int p = this.neighborStart[customer]; p < this.neighborStart[customer + 1]; p++) {
+            if(list[p] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método getDistances. Devuelve el almacén de distancias.
+     * @return el almacén de distancias
+     */
+    public TOPTWDistances getDistances() {
+        return this.distances;
+    }
+
+    /**
+     * Método getDistanceMatrix. Devuelve la matriz de distancias.
+     * @return el tiempo de la ruta
+     */
+    public double getMaxTimePerRoute() {
+        return maxTimePerRoute;
+    }
+
+    /**
+     * Método getMaxRoutes. Devuelve el número máximo de rutas.
+     * @return el número máximo de rutas
+     */
+    public double getMaxRoutes() {
+        return maxRoutes;
+    }
+
+    /**
+     * Método getPOIs. Devuelve el nodo
+     * @return el nodo
+     */
+    public int getPOIs() {
+        return this.nodes;
+    }
+
+    /**
+     * Método getDistance.
+     * @param i
+     * @param j
+     * @return la distancia entre dos nodos
+     */
+    public double getDistance(int i, int j) {
+        if(this.isDepot(i)) { i=0; }
+        if(this.isDepot(j)) { j=0; }
+        return this.distances.getDistance(i, j);
+    }
+
+    /**
+     * Metodo getTime
+     * @param i
+     * @param j
+     * @return el tiempo entre dos nodos
+     */
+
+    public double getTime(int i, int j) {
+        if(this.isDepot(i)) { i=0; }
+        if(this.isDepot(j)) { j=0; }
+        return this.distances.getDistance(i, j);
+    }
+
+    /**
+     * Método getNodes. Devuelve el número de nodos.
+     * @return el número de nodos
+     */
+    public int getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Método getX. Devuelve la coordenada x de un nodo.
+     * @param index
+     * @return la coordenada x
+     */
+    public double getX(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.x[index];
+    }
+
+    /**
+     * Método getY. Devuelve la coordenada y de un nodo.
+     * @param index
+     * @return la coordenada y
+     */
+    public double getY(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.y[index];
+    }
+
+    /**
+     * Método getScore. Devuelve la puntuación de un nodo.
+     * @param index
+     * @return la puntuación
+     */
+    public double getScore(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.score[index];
+    }
+
+
+    /**
+     * Método getScore. Devuelve una copia de la puntuación de todos los nodos.
+     * @return
+     */
+    public double[] getScore() {
+        return Arrays.copyOf(this.score, this.score.length);
+    }
+
+    /**
+     * Método scoreConstants. Calcula la pertenencia fuzzy 1 - score/maxScore de cada nodo.
+     * @param max
+     * @return la pertenencia de cada nodo
+     */
+    private double[] scoreConstants(double max) {
+        double[] values = new double[this.score.length];
+        for (int i = 0; i < this.score.length; i++) {
+            values[i] = 1 - (this.score[i] / max);
+        }
+        return values;
+    }
+
+    /**
+     * Método getMaxScore. Devuelve la mayor puntuación de la instancia.
+     * @return la puntuación máxima
+     */
+    public double getMaxScore() {
+        return this.maxScore;
+    }
+
+    /**
+     * Método getMembership. Devuelve la pertenencia fuzzy de un nodo, 1 - score/maxScore.
+     * @param index
+     * @return la pertenencia
+     */
+    public double getMembership(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.membership[index];
+    }
+
+    /**
+     * Método getReadyTime. Devuelve el tiempo de inicio de un nodo.
+     * @param index
+     * @return el tiempo de inicio
+     */
+    public double getReadyTime(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.readyTime[index];
+    }
+
+    /**
+     * Método getDueTime. Devuelve el tiempo de finalización de un nodo.
+     * @param index
+     * @return el tiempo de finalización
+     */
+    public double getDueTime(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.dueTime[index];
+    }
+
+    /**
+     * Método getServiceTime. Devuelve el tiempo de servicio de un nodo.
+     * @param index
+     * @return el tiempo de servicio
+     */
+    public double getServiceTime(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.serviceTime[index];
+    }
+
+    /**
+     * Método getVehicles. Devuelve el número de vehículos.
+     * @return el número de vehículos
+     */
+    public int getVehicles() {
+        return this.vehicles;
+    }
+
+    /**
+     * Metodo toString de la clase TOPTW.
+     * @return el texto
+     */
+    @Override
+    public String toString() {
+        final int COLUMN_WIDTH = 15;
+        String text = "Nodes: " + this.nodes + "\n";
+        String[] strings = new String[]{"CUST NO.", "XCOORD.", "YCOORD.", "SCORE", "READY TIME", "DUE DATE", "SERVICE TIME"};
+        int[] width = new int[strings.length];
+        Arrays.fill(width, COLUMN_WIDTH);
+        text += ExpositoUtilities.getFormat(strings, width) + "\n";
+        for (int i = 0; i < this.nodes; i++) {
+            strings = new String[strings.length];
+            int index = 0;
+            //strings[index++] = Integer.toString("" + i);
+            strings[index++] = Integer.toString(i);
+            strings[index++] = "" + this.x[i];
+            strings[index++] = "" + this.y[i];
+            strings[index++] = "" + this.score[i];
+            strings[index++] = "" + this.readyTime[i];
+            strings[index++] = "" + this.dueTime[i];
+            strings[index++] = "" + this.serviceTime[i];
+            text += ExpositoUtilities.getFormat(strings, width);
+            text += "\n";
+        }
+        text += "Vehicles: " + this.vehicles + "\n";
+        strings = new String[]{"VEHICLE", "CAPACITY"};
+        width = new int[strings.length];
+        Arrays.fill(width, COLUMN_WIDTH);
+        text += ExpositoUtilities.getFormat(strings, width) + "\n";
+        return text;
+    }
+
+    /**
+     * Builder de TOPTW. Los lectores rellenan los datos nodo a nodo y build crea la
+     * instancia inmutable, que se queda con los arrays sin copiarlos; por eso cada
+     * builder solo puede construir una instancia.
+     */
+    public static class Builder {
+        private int nodes;
+        private double[] x;
+        private double[] y;
+        private double[] score;
+        private double[] readyTime;
+        private double[] dueTime;
+        private double[] serviceTime;
+        private int vehicles;
+        private double maxTimePerRoute;
+        private double maxRoutes;
+        private TOPTWDistances distances;
+        private int neighborCount;
+        private boolean built;
+
+        /**
+         * Constructor de la clase Builder.
+         * @param nodes Número de nodos del problema.
+         * @param routes Número de rutas del problema.
+         */
+        public Builder(int nodes, int routes) {
+            this.nodes = nodes;
+            this.x = new double[this.nodes + 1];
+            this.y = new double[this.nodes + 1];
+            this.score = new double[this.nodes + 1];
+            this.readyTime = new double[this.nodes + 1];
+            this.dueTime = new double[this.nodes + 1];
+            this.serviceTime = new double[this.nodes + 1];
+            this.maxRoutes = routes;
+            this.vehicles = routes;
+            this.neighborCount = DEFAULT_NEIGHBORS;
+            this.built = false;
+        }
+
+        /**
+         * Método que comprueba que el builder aún no ha construido su instancia.
+         */
+        private void checkNotBuilt() {
+            if(this.built) {
+                throw new IllegalStateException("La instancia TOPTW ya se ha construido");
+            }
+        }
+
+        /**
+         * Método getPOIs. Devuelve el número de clientes.
+         * @return el número de clientes
+         */
+        public int getPOIs() {
+            return this.nodes;
+        }
+
+        /**
+         * Método setX. Establece la coordenada x de un nodo.
+         * @param index
+         * @param x
+         * @return el builder
+         */
+        public Builder setX(int index, double x) {
+            this.checkNotBuilt();
+            this.x[index] = x;
+            this.distances = null;
+            return this;
+        }
+
+        /**
+         * Método setY. Establece la coordenada y de un nodo.
+         * @param index
+         * @param y
+         * @return el builder
+         */
+        public Builder setY(int index, double y) {
+            this.checkNotBuilt();
+            this.y[index] = y;
+            this.distances = null;
+            return this;
+        }
+
+        /**
+         * Método setScore. Establece la puntuación de un nodo.
+         * @param index
+         * @param score
+         * @return el builder
+         */
+        public Builder setScore(int index, double score) {
+            this.checkNotBuilt();
+            this.score[index] = score;
+            return this;
+        }
+
+        /**
+         * Método setReadyTime. Establece el tiempo de inicio de un nodo.
+         * @param index
+         * @param readyTime
+         * @return el builder
+         */
+        public Builder setReadyTime(int index, double readyTime) {
+            this.checkNotBuilt();
+            this.readyTime[index] = readyTime;
+            return this;
+        }
+
+        /**
+         * Método setDueTime. Establece el tiempo de finalización de un nodo.
+         * @param index
+         * @param dueTime
+         * @return el builder
+         */
+        public Builder setDueTime(int index, double dueTime) {
+            this.checkNotBuilt();
+            this.dueTime[index] = dueTime;
+            return this;
+        }
+
+        /**
+         * Método setServiceTime. Establece el tiempo de servicio de un nodo.
+         * @param index
+         * @param serviceTime
+         * @return el builder
+         */
+        public Builder setServiceTime(int index, double serviceTime) {
+            this.checkNotBuilt();
+            this.serviceTime[index] = serviceTime;
+            return this;
+        }
+
+        /**
+         * Método setMaxTimePerRoute. Establece el tiempo máximo por ruta.
+         * @param maxTimePerRoute
+         * @return el builder
+         */
+        public Builder setMaxTimePerRoute(double maxTimePerRoute) {
+            this.checkNotBuilt();
+            this.maxTimePerRoute = maxTimePerRoute;
+            return this;
+        }
+
+        /**
+         * Método setMaxRoutes. Establece el número máximo de rutas.
+         * @param maxRoutes
+         * @return el builder
+         */
+        public Builder setMaxRoutes(double maxRoutes) {
+            this.checkNotBuilt();
+            this.maxRoutes = maxRoutes;
+            return this;
+        }
+
+        /**
+         * Método setNeighborCount. Establece el número de vecinos por cliente.
+         * @param neighborCount
+         * @return el builder
+         */
+        public Builder setNeighborCount(int neighborCount) {
+            this.checkNotBuilt();
+            if(neighborCount < 0) {
+                throw new IllegalArgumentException("El número de vecinos no puede ser negativo: " + neighborCount);
+            }
+            this.neighborCount = neighborCount;
+            return this;
+        }
+
+        /**
+         * Método setDistances. Usa un almacén de distancias ya creado, como la matriz de
+         * un fichero binario, que se calcula al asignarlo. Si no se asigna, build elige
+         * uno con TOPTWDistances.forSize y lo calcula con las coordenadas.
+         * @param distances
+         * @return el builder
+         */
+        public Builder setDistances(TOPTWDistances distances) {
+            this.checkNotBuilt();
+            this.distances = distances;
+            this.distances.calculate();
+            return this;
+        }
+
+        /**
+         * Método build. Calcula las distancias si hace falta y crea la instancia.
+         * @return la instancia TOPTW
+         */
+        public TOPTW build() {
+            this.checkNotBuilt();
+            if(this.distances == null) {
+                this.distances = TOPTWDistances.forSize(this.x, this.y);
+                this.distances.calculate();
+            }
+            this.built = true;
+            return new TOPTW(this);
+        }
+    }
 }
\ No newline at end of file
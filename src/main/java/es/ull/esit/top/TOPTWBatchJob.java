@@ -0,0 +1,129 @@
+package es.ull.esit.top;
+
+/**
+ * Trabajo del TOPTWBatchRunner: una ejecución del GRASP sobre una instancia con un
+ * tamaño de RCL, o del GRASP reactivo sobre varios, y una semilla, con un tope de
+ * iteraciones y opcionalmente de tiempo. Tras run guarda la fitness media, la mejor
+ * y el tiempo.
+ */
+public class TOPTWBatchJob implements Runnable {
+    private String instance;
+    private TOPTW problem;
+    private int[] rclSizes;
+    private boolean reactive;
+    private long seed;
+    private int iterations;
+    private int solutionTime;
+    private double averageFitness;
+    private double bestFitness;
+    private double elapsedMillis;
+
+    /**
+     * Constructor de la clase TOPTWBatchJob.
+     * @param instance Nombre de la instancia.
+     * @param problem Problema, compartido con otros trabajos de la misma instancia.
+     * @param rclSizes Tamaños de RCL: opciones del GRASP reactivo, o el tamaño máximo
+     *                 de la RCL (el primero) si no es reactivo.
+     * @param reactive true para el GRASP reactivo.
+     * @param seed Semilla del GRASP.
+     * @param iterations Número máximo de iteraciones del GRASP.
+     * @param solutionTime Tiempo máximo del GRASP en milisegundos; 0 sin límite.
+     */
+    public TOPTWBatchJob(String instance, TOPTW problem, int[] rclSizes, boolean reactive, long seed, int iterations, int solutionTime) {
+        this.instance = instance;
+        this.problem = problem;
+        this.rclSizes = rclSizes;
+        this.reactive = reactive;
+        this.seed = seed;
+        this.iterations = iterations;
+        this.solutionTime = solutionTime;
+        this.averageFitness = TOPTWGRASP.NO_EVALUATED;
+        this.bestFitness = TOPTWGRASP.NO_EVALUATED;
+        this.elapsedMillis = 0.0;
+    }
+
+    /**
+     * Método que ejecuta el GRASP sin salida por consola y guarda los resultados.
+     */
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(this.problem));
+        grasp.setSeed(this.seed);
+        grasp.setReporter(new TOPTWReporter(TOPTWReporter.Detail.OFF));
+        grasp.setSolutionTime(this.solutionTime);
+        if(this.isReactive()) {
+            grasp.reactiveGRASP(this.iterations, new TOPTWReactive(this.rclSizes));
+        } else {
+            grasp.GRASP(this.iterations, this.rclSizes[0]);
+        }
+        this.iterations = grasp.getIterations();
+        this.averageFitness = grasp.getAverageFitness();
+        this.bestFitness = grasp.getBestFitness();
+        this.elapsedMillis = (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Método que devuelve el nombre de la instancia.
+     * @return instancia.
+     */
+    public String getInstance() {
+        return this.instance;
+    }
+
+    /**
+     * Método que devuelve los tamaños de RCL.
+     * @return tamaños de la RCL.
+     */
+    public int[] getRCLSizes() {
+        return this.rclSizes;
+    }
+
+    /**
+     * Método que indica si el trabajo usa el GRASP reactivo.
+     * @return true si el trabajo es reactivo.
+     */
+    public boolean isReactive() {
+        return this.reactive;
+    }
+
+    /**
+     * Método que devuelve la semilla.
+     * @return semilla.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Método que devuelve el número de iteraciones; tras run, las hechas.
+     * @return iteraciones.
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Método que devuelve la fitness media.
+     * @return fitness media, o NO_EVALUATED si no se ha ejecutado.
+     */
+    public double getAverageFitness() {
+        return this.averageFitness;
+    }
+
+    /**
+     * Método que devuelve la mejor fitness.
+     * @return mejor fitness, o NO_EVALUATED si no se ha ejecutado.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Método que devuelve el tiempo de ejecución.
+     * @return milisegundos.
+     */
+    public double getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+}
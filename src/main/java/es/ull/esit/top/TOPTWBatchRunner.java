@@ -0,0 +1,245 @@
+package es.ull.esit.top;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ejecución por lotes del GRASP. Cada combinación (instancia, tamaño de RCL, semilla)
+ * es un TOPTWBatchJob; los trabajos se reparten en un pool work-stealing para usar
+ * todos los núcleos y los resultados se escriben en CSV o JSON en el orden de los
+ * trabajos. Cada instancia se lee una sola vez y la comparten sus trabajos.
+ */
+public class TOPTWBatchRunner {
+    private int threads;
+    private int iterations;
+    private int[] rclSizes;
+    private long[] seeds;
+    private int solutionTime;
+    private boolean reactive;
+
+    /**
+     * Constructor de la clase TOPTWBatchRunner.
+     * @param threads Número de hilos.
+     * @param iterations Iteraciones del GRASP por trabajo.
+     * @param rclSizes Tamaños de RCL a probar.
+     * @param seeds Semillas a probar.
+     */
+    public TOPTWBatchRunner(int threads, int iterations, int[] rclSizes, long[] seeds) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo: " + threads);
+        }
+        this.threads = threads;
+        this.iterations = iterations;
+        this.rclSizes = rclSizes;
+        this.seeds = seeds;
+        this.solutionTime = 0;
+        this.reactive = false;
+    }
+
+    /**
+     * Método que indica si los tamaños de RCL se prueban en una sola ejecución reactiva.
+     * @return true si es reactivo.
+     */
+    public boolean isReactive() {
+        return this.reactive;
+    }
+
+    /**
+     * Método que elige entre un trabajo por tamaño de RCL o un único GRASP reactivo
+     * con todos los tamaños por instancia y semilla.
+     * @param reactive true para el GRASP reactivo.
+     */
+    public void setReactive(boolean reactive) {
+        this.reactive = reactive;
+    }
+
+    /**
+     * Método que devuelve el tiempo máximo de cada trabajo.
+     * @return milisegundos; 0 sin límite.
+     */
+    public int getSolutionTime() {
+        return this.solutionTime;
+    }
+
+    /**
+     * Método que fija el tiempo máximo de cada trabajo.
+     * @param solutionTime milisegundos; 0 sin límite.
+     */
+    public void setSolutionTime(int solutionTime) {
+        this.solutionTime = solutionTime;
+    }
+
+    /**
+     * Método que expande una lista de ficheros o patrones glob (solo en el nombre del
+     * fichero, p. ej. Instances/TOPTW/c1*.txt) a rutas de instancias ordenadas.
+     * @param patterns ficheros o patrones
+     * @return rutas de las instancias
+     */
+    public static List<String> expandInstances(List<String> patterns) {
+        List<String> instances = new ArrayList<String>();
+        for(String pattern : patterns) {
+            File file = new File(pattern);
+            if(file.isFile()) {
+                instances.add(pattern);
+                continue;
+            }
+            File directory = file.getParentFile() != null ? file.getParentFile() : new File(".");
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + file.getName());
+            String[] names = directory.list();
+            if(names == null) {
+                throw new IllegalArgumentException("No existe el directorio de instancias: " + directory);
+            }
+            Arrays.sort(names);
+            boolean found = false;
+            for(String name : names) {
+                if(matcher.matches(Paths.get(name)) && new File(directory, name).isFile()) {
+                    instances.add(new File(file.getParentFile(), name).getPath());
+                    found = true;
+                }
+            }
+            if(!found) {
+                throw new IllegalArgumentException("Ninguna instancia coincide con " + pattern);
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * Método que crea y ejecuta todos los trabajos.
+     * @param instances rutas de las instancias
+     * @return trabajos ejecutados, en orden de instancia, RCL y semilla
+     */
+    public List<TOPTWBatchJob> run(List<String> instances) {
+        Map<String, TOPTW> problems = new LinkedHashMap<String, TOPTW>();
+        for(String instance : instances) {
+            if(!problems.containsKey(instance)) {
+                problems.put(instance, TOPTWReader.readProblem(instance));
+            }
+        }
+        List<TOPTWBatchJob> jobs = new ArrayList<TOPTWBatchJob>();
+        for(String instance : instances) {
+            if(this.reactive) {
+                for(long seed : this.seeds) {
+                    jobs.add(new TOPTWBatchJob(instance, problems.get(instance), this.rclSizes, this.reactive, seed, this.iterations, this.solutionTime));
+                }
+                continue;
+            }
+            for(int rclSize : this.rclSizes) {
+                for(long seed : this.seeds) {
+                    jobs.add(new TOPTWBatchJob(instance, problems.get(instance), new int[]{rclSize}, this.reactive, seed, this.iterations, this.solutionTime));
+                }
+            }
+        }
+
+        ExecutorService pool = Executors.newWorkStealingPool(this.threads);
+        try {
+            List< Future<?> > tasks = new ArrayList< Future<?> >();
+            for(TOPTWBatchJob job : jobs) {
+                tasks.add(pool.submit(job));
+            }
+            for(Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return jobs;
+    }
+
+    /**
+     * Método que escribe los resultados en CSV, con una fila de cabecera.
+     * @param jobs trabajos ejecutados
+     * @param out destino
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static void writeCSV(List<TOPTWBatchJob> jobs, Writer out) throws IOException {
+        StringBuilder text = new StringBuilder("instance,reactive,rcl,seed,iterations,average,best,millis,iterationsPerSecond\n");
+        for(TOPTWBatchJob job : jobs) {
+            text.append(job.getInstance()).append(',')
+                .append(job.isReactive()).append(',');
+            for(int k = 0; k < job.getRCLSizes().length; k++) {
+                text.append(k > 0 ? "|" : "").append(job.getRCLSizes()[k]);
+            }
+            text.append(',')
+                .append(job.getSeed()).append(',')
+                .append(job.getIterations()).append(',')
+                .append(job.getAverageFitness()).append(',')
+                .append(job.getBestFitness()).append(',')
+                .append(job.getElapsedMillis()).append(',')
+                .append(TOPTWBatchRunner.iterationsPerSecond(job)).append('\n');
+        }
+        out.append(text);
+        out.flush();
+    }
+
+    /**
+     * Método que escribe los resultados como un array JSON de objetos.
+     * @param jobs trabajos ejecutados
+     * @param out destino
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static void writeJSON(List<TOPTWBatchJob> jobs, Writer out) throws IOException {
+        StringBuilder text = new StringBuilder("[\n");
+        for(int i = 0; i < jobs.size(); i++) {
+            TOPTWBatchJob job = jobs.get(i);
+            text.append("  {\"instance\": \"").append(job.getInstance().replace("\\", "\\\\").replace("\"", "\\\"")).append('"')
+                .append(", \"reactive\": ").append(job.isReactive())
+                .append(", \"rcl\": [");
+            for(int k = 0; k < job.getRCLSizes().length; k++) {
+                text.append(k > 0 ? ", " : "").append(job.getRCLSizes()[k]);
+            }
+            text.append("]")
+                .append(", \"seed\": ").append(job.getSeed())
+                .append(", \"iterations\": ").append(job.getIterations());
+            TOPTWBatchRunner.appendJSONNumber(text.append(", \"average\": "), job.getAverageFitness());
+            TOPTWBatchRunner.appendJSONNumber(text.append(", \"best\": "), job.getBestFitness());
+            TOPTWBatchRunner.appendJSONNumber(text.append(", \"millis\": "), job.getElapsedMillis());
+            TOPTWBatchRunner.appendJSONNumber(text.append(", \"iterationsPerSecond\": "), TOPTWBatchRunner.iterationsPerSecond(job));
+            text.append(i < jobs.size() - 1 ? "},\n" : "}\n");
+        }
+        text.append("]\n");
+        out.append(text);
+        out.flush();
+    }
+
+    /**
+     * Método que añade un número a un texto JSON. JSON no admite NaN ni infinitos (la
+     * media de un trabajo sin iteraciones es NaN), así que se escriben como null.
+     * @param text texto JSON
+     * @param value valor
+     */
+    private static void appendJSONNumber(StringBuilder text, double value) {
+        if(Double.isNaN(value) || Double.isInfinite(value)) {
+            text.append("null");
+        } else {
+            text.append(value);
+        }
+    }
+
+    /**
+     * Método que calcula las iteraciones por segundo de un trabajo.
+     * @param job trabajo ejecutado
+     * @return iteraciones por segundo
+     */
+    private static double iterationsPerSecond(TOPTWBatchJob job) {
+        return job.getElapsedMillis() > 0.0 ? job.getIterations() * 1000.0 / job.getElapsedMillis() : 0.0;
+    }
+}
@@ -0,0 +1,63 @@
+package es.ull.esit.top;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lectura de instancias TOPTW en formato binario (ver TOPTWBinaryWriter). El fichero
+ * se proyecta en memoria con FileChannel.map; los arrays de nodos se copian al
+ * builder del problema y la matriz de distancias, si está, se usa directamente desde el fichero.
+ */
+public class TOPTWBinaryReader {
+    public static final String BINARY_EXTENSION = ".bin";
+
+    /**
+     * Método que lee un problema TOPTW de un fichero binario.
+     * @param filePath Ruta del fichero.
+     * @return Problema TOPTW.
+     */
+    public static TOPTW readProblem(String filePath) {
+        TOPTW problem = null;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != TOPTWBinaryWriter.MAGIC) {
+                throw new IOException("No es una instancia TOPTW binaria: " + filePath);
+            }
+            int version = buffer.getInt();
+            if(version != TOPTWBinaryWriter.VERSION) {
+                throw new IOException("Versión de instancia binaria no soportada: " + version);
+            }
+            int nodes = buffer.getInt();
+            int vehicles = buffer.getInt();
+            double maxTimePerRoute = buffer.getDouble();
+            double maxRoutes = buffer.getDouble();
+            int flags = buffer.getInt();
+            int size = nodes + 1;
+
+            TOPTW.Builder builder = new TOPTW.Builder(nodes, vehicles);
+            DoubleBuffer values = buffer.asDoubleBuffer();
+            for(int i = 0; i < size; i++) { builder.setX(i, values.get()); }
+            for(int i = 0; i < size; i++) { builder.setY(i, values.get()); }
+            for(int i = 0; i < size; i++) { builder.setServiceTime(i, values.get()); }
+            for(int i = 0; i < size; i++) { builder.setScore(i, values.get()); }
+            for(int i = 0; i < size; i++) { builder.setReadyTime(i, values.get()); }
+            for(int i = 0; i < size; i++) { builder.setDueTime(i, values.get()); }
+            if((flags & TOPTWBinaryWriter.HAS_MATRIX) != 0) {
+                ((ByteBuffer) buffer).position(TOPTWBinaryWriter.HEADER_BYTES + TOPTWBinaryWriter.NODE_ARRAYS * size * Double.BYTES);
+                builder.setDistances(new TOPTWMappedDistances(buffer.slice().asDoubleBuffer(), size));
+            }
+            builder.setMaxTimePerRoute(maxTimePerRoute);
+            builder.setMaxRoutes(maxRoutes);
+            problem = builder.build();
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(0);
+        }
+        return problem;
+    }
+}
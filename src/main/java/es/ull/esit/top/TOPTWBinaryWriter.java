@@ -0,0 +1,85 @@
+package es.ull.esit.top;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Escritura de instancias TOPTW en el formato binario que lee TOPTWBinaryReader.
+ * Todos los valores van en big-endian:
+ *   cabecera: MAGIC (int), VERSION (int), POIs (int), vehículos (int),
+ *             tiempo máximo por ruta (double), número máximo de rutas (double),
+ *             flags (int);
+ *   nodos:    x, y, tiempo de servicio, score, ready time y due time, cada uno
+ *             como un array de POIs + 1 doubles;
+ *   matriz:   si flags contiene HAS_MATRIX, (POIs + 1)^2 doubles por filas.
+ * El main convierte ficheros de texto de Instances/TOPTW a este formato.
+ */
+public class TOPTWBinaryWriter {
+    public static final int MAGIC = 0x544F5054; // "TOPT"
+    public static final int VERSION = 2;
+    public static final int HAS_MATRIX = 1;
+    public static final int HEADER_BYTES = 4 * Integer.BYTES + 2 * Double.BYTES + Integer.BYTES;
+    public static final int NODE_ARRAYS = 6;
+
+    /**
+     * Método que escribe un problema en formato binario.
+     * @param problem Problema TOPTW con las distancias calculadas.
+     * @param filePath Ruta del fichero de salida.
+     * @param withMatrix true para guardar también la matriz de distancias.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static void writeProblem(TOPTW problem, String filePath, boolean withMatrix) throws IOException {
+        int size = problem.getPOIs() + 1;
+        long bytes = HEADER_BYTES + (long) NODE_ARRAYS * size * Double.BYTES;
+        if(withMatrix) {
+            bytes += (long) size * size * Double.BYTES;
+        }
+        if(bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("La instancia es demasiado grande para guardar la matriz: " + size + " nodos");
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(problem.getPOIs());
+            out.writeInt(problem.getVehicles());
+            out.writeDouble(problem.getMaxTimePerRoute());
+            out.writeDouble(problem.getMaxRoutes());
+            out.writeInt(withMatrix ? HAS_MATRIX : 0);
+            for(int i = 0; i < size; i++) { out.writeDouble(problem.getX(i)); }
+            for(int i = 0; i < size; i++) { out.writeDouble(problem.getY(i)); }
+            for(int i = 0; i < size; i++) { out.writeDouble(problem.getServiceTime(i)); }
+            for(int i = 0; i < size; i++) { out.writeDouble(problem.getScore(i)); }
+            for(int i = 0; i < size; i++) { out.writeDouble(problem.getReadyTime(i)); }
+            for(int i = 0; i < size; i++) { out.writeDouble(problem.getDueTime(i)); }
+            if(withMatrix) {
+                for(int i = 0; i < size; i++) {
+                    for(int j = 0; j < size; j++) {
+                        out.writeDouble(problem.getDistance(i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Convierte una instancia de texto a binario.
+     * Uso: TOPTWBinaryWriter entrada.txt salida.bin [-nomatrix]
+     * @param args argumentos
+     */
+    public static void main(String[] args) {
+        if(args.length < 2) {
+            System.err.println("Uso: TOPTWBinaryWriter entrada.txt salida" + TOPTWBinaryReader.BINARY_EXTENSION + " [-nomatrix]");
+            System.exit(1);
+        }
+        boolean withMatrix = !(args.length > 2 && args[2].equals("-nomatrix"));
+        TOPTW problem = TOPTWReader.readProblem(args[0]);
+        try {
+            TOPTWBinaryWriter.writeProblem(problem, args[1], withMatrix);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+}
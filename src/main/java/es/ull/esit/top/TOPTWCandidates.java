@@ -0,0 +1,221 @@
+package es.ull.esit.top;
+
+/**
+ * Lista de candidatos de la construcción greedy guardada como arrays primitivos
+ * paralelos (cliente, ruta, predecesor, coste, score). Se reserva una vez con la
+ * capacidad máxima y se reutiliza en cada paso y cada iteración del GRASP.
+ * Mientras se añaden candidatos se mantiene un max-heap acotado con los maxSizeRCL
+ * de menor coste, de modo que la RCL sale sin ordenar la lista completa.
+ */
+public class TOPTWCandidates {
+    private int[] customer;
+    private int[] route;
+    private int[] predecessor;
+    private double[] cost;
+    private double[] score;
+    private int[] heap;
+    private int heapSize;
+    private int maxSizeRCL;
+    private int[] order;
+    private int rclSize;
+    private int size;
+
+    /**
+     * Constructor de la clase TOPTWCandidates.
+     * @param capacity Número máximo de candidatos (uno por cliente).
+     */
+    public TOPTWCandidates(int capacity) {
+        this.customer = new int[capacity];
+        this.route = new int[capacity];
+        this.predecessor = new int[capacity];
+        this.cost = new double[capacity];
+        this.score = new double[capacity];
+        this.heap = new int[capacity];
+        this.order = new int[capacity];
+        this.size = 0;
+        this.heapSize = 0;
+        this.maxSizeRCL = capacity;
+    }
+
+    /**
+     * Método que devuelve la capacidad de la lista.
+     * @return capacidad.
+     */
+    public int getCapacity() {
+        return this.customer.length;
+    }
+
+    /**
+     * Método que vacía la lista y fija el tamaño máximo de la RCL.
+     * @param maxSizeRCL Número de candidatos de menor coste que se conservan.
+     */
+    public void clear(int maxSizeRCL) {
+        this.size = 0;
+        this.heapSize = 0;
+        this.maxSizeRCL = Math.min(maxSizeRCL, this.customer.length);
+    }
+
+    /**
+     * Método que añade un candidato al final de la lista.
+     * @param customer Cliente.
+     * @param route Ruta.
+     * @param predecessor Predecesor tras el que se inserta.
+     * @param cost Coste de la inserción.
+     * @param score Score del cliente.
+     */
+    public void add(int customer, int route, int predecessor, double cost, double score) {
+        this.customer[this.size] = customer;
+        this.route[this.size] = route;
+        this.predecessor[this.size] = predecessor;
+        this.cost[this.size] = cost;
+        this.score[this.size] = score;
+        int index = this.size++;
+        if(this.heapSize < this.maxSizeRCL) {
+            this.heap[this.heapSize] = index;
+            this.siftUp(this.heapSize++);
+        } else if(this.heapSize > 0 && this.isWorse(this.heap[0], index)) {
+            this.heap[0] = index;
+            this.siftDown(0);
+        }
+    }
+
+    /**
+     * Método que pasa el heap a la RCL ordenada por coste creciente. A igual coste se
+     * mantiene el orden en que se añadieron los candidatos.
+     */
+    public void buildRCL() {
+        for(int i = this.heapSize - 1; i >= 0; i--) {
+            this.order[i] = this.heap[0];
+            this.heap[0] = this.heap[i];
+            this.siftDown(0, i);
+        }
+        this.heapSize = 0;
+        this.rclSize = Math.min(this.maxSizeRCL, this.size);
+    }
+
+    /**
+     * Método que devuelve el tamaño de la RCL construida.
+     * @return número de candidatos en la RCL.
+     */
+    public int getRCLSize() {
+        return this.rclSize;
+    }
+
+    /**
+     * Método que compara dos candidatos: peor es el de mayor coste o, a igual coste,
+     * el añadido después.
+     * @param a Índice del primer candidato.
+     * @param b Índice del segundo candidato.
+     * @return true si a es peor que b.
+     */
+    private boolean isWorse(int a, int b) {
+        return this.cost[a] > this.cost[b] || (this.cost[a] == this.cost[b] && a > b);
+    }
+
+    /**
+     * Método que sube una posición del heap hasta su sitio.
+     * @param position Posición en el heap.
+     */
+    private void siftUp(int position) {
+        int element = this.heap[position];
+        while(position > 0) {
+            int parent = (position - 1) / 2;
+            if(!this.isWorse(element, this.heap[parent])) {
+                break;
+            }
+            this.heap[position] = this.heap[parent];
+            position = parent;
+        }
+        this.heap[position] = element;
+    }
+
+    /**
+     * Método que baja una posición del heap hasta su sitio.
+     * @param position Posición en el heap.
+     */
+    private void siftDown(int position) {
+        this.siftDown(position, this.heapSize);
+    }
+
+    /**
+     * Método que baja una posición del heap hasta su sitio en las primeras length posiciones.
+     * @param position Posición en el heap.
+     * @param length Tamaño del heap.
+     */
+    private void siftDown(int position, int length) {
+        int element = this.heap[position];
+        while(2 * position + 1 < length) {
+            int child = 2 * position + 1;
+            if(child + 1 < length && this.isWorse(this.heap[child + 1], this.heap[child])) {
+                child++;
+            }
+            if(!this.isWorse(this.heap[child], element)) {
+                break;
+            }
+            this.heap[position] = this.heap[child];
+            position = child;
+        }
+        this.heap[position] = element;
+    }
+
+    /**
+     * Método que devuelve el número de candidatos.
+     * @return número de candidatos.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Método que comprueba si la lista está vacía.
+     * @return true si no hay candidatos.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Método que devuelve el cliente del candidato en una posición.
+     * @param position Posición en la RCL.
+     * @return cliente.
+     */
+    public int getCustomer(int position) {
+        return this.customer[this.order[position]];
+    }
+
+    /**
+     * Método que devuelve la ruta del candidato en una posición.
+     * @param position Posición en la RCL.
+     * @return ruta.
+     */
+    public int getRoute(int position) {
+        return this.route[this.order[position]];
+    }
+
+    /**
+     * Método que devuelve el predecesor del candidato en una posición.
+     * @param position Posición en la RCL.
+     * @return predecesor.
+     */
+    public int getPredecessor(int position) {
+        return this.predecessor[this.order[position]];
+    }
+
+    /**
+     * Método que devuelve el coste del candidato en una posición.
+     * @param position Posición en la RCL.
+     * @return coste.
+     */
+    public double getCost(int position) {
+        return this.cost[this.order[position]];
+    }
+
+    /**
+     * Método que devuelve el score del candidato en una posición.
+     * @param position Posición en la RCL.
+     * @return score.
+     */
+    public double getScore(int position) {
+        return this.score[this.order[position]];
+    }
+}
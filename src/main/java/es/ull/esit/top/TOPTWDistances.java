@@ -0,0 +1,43 @@
+package es.ull.esit.top;
+
+/**
+ * Almacén de distancias entre nodos de un TOPTW. Hay tres implementaciones:
+ * matriz plana de doubles por filas, triángulo simétrico de floats y cálculo
+ * euclídeo bajo demanda a partir de las coordenadas. forSize elige una según el
+ * número de nodos para que la memoria no crezca de forma cuadrática sin límite.
+ */
+public interface TOPTWDistances {
+    /** Máximo de nodos para la matriz plana de doubles (unos 32 MB). */
+    int FLAT_MAX_NODES = 2000;
+    /** Máximo de nodos para el triángulo de floats (unos 128 MB). */
+    int TRIANGULAR_MAX_NODES = 8000;
+
+    /**
+     * Método que calcula las distancias a partir de las coordenadas.
+     */
+    void calculate();
+
+    /**
+     * Método que devuelve la distancia entre dos nodos (sin depósitos virtuales).
+     * @param i Nodo origen.
+     * @param j Nodo destino.
+     * @return la distancia.
+     */
+    double getDistance(int i, int j);
+
+    /**
+     * Método que elige el almacén de distancias según el tamaño de la instancia.
+     * @param x Coordenadas x, una por nodo.
+     * @param y Coordenadas y, una por nodo.
+     * @return almacén de distancias.
+     */
+    static TOPTWDistances forSize(double[] x, double[] y) {
+        if(x.length <= FLAT_MAX_NODES) {
+            return new TOPTWFlatDistances(x, y);
+        }
+        if(x.length <= TRIANGULAR_MAX_NODES) {
+            return new TOPTWTriangularDistances(x, y);
+        }
+        return new TOPTWEuclideanDistances(x, y);
+    }
+}
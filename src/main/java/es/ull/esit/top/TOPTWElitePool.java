@@ -0,0 +1,168 @@
+package es.ull.esit.top;
+
+/**
+ * Conjunto de soluciones elite del GRASP, con tamaño fijo. Las soluciones se copian
+ * en huecos reservados una sola vez con copyInto. Una solución repetida nunca entra;
+ * se detecta comparando hashes (TOPTWSolution.getHash), sin recorrer las soluciones.
+ * La diversidad se mide con TOPTWSolution.getSuccessorDistance: con el conjunto
+ * lleno, una que no mejora a la mejor solo entra si se diferencia al menos
+ * minDistance clientes de todas. Al entrar sustituye a la más parecida de las que
+ * tienen menor fitness, para no perder diversidad.
+ */
+public class TOPTWElitePool {
+    public static final int DEFAULT_CAPACITY = 10;
+    /** Fracción de los clientes que debe cambiar de sucesor por defecto para entrar. */
+    public static final double DEFAULT_MIN_DISTANCE_RATIO = 0.05;
+
+    private TOPTW problem;
+    private TOPTWSolution[] elite;
+    private double[] fitness;
+    private long[] hashes;
+    private int size;
+    private int minDistance;
+
+    /**
+     * Constructor de la clase TOPTWElitePool con la distancia mínima por defecto:
+     * DEFAULT_MIN_DISTANCE_RATIO de los clientes (ver getMinDistanceFor).
+     * @param problem Problema de las soluciones.
+     * @param capacity Número máximo de soluciones.
+     */
+    public TOPTWElitePool(TOPTW problem, int capacity) {
+        this(problem, capacity, getMinDistanceFor(problem, DEFAULT_MIN_DISTANCE_RATIO));
+    }
+
+    /**
+     * Constructor de la clase TOPTWElitePool.
+     * @param problem Problema de las soluciones.
+     * @param capacity Número máximo de soluciones.
+     * @param minDistance Clientes con distinto sucesor que necesita una solución que no
+     *                    mejora a la mejor para entrar con el conjunto lleno.
+     */
+    public TOPTWElitePool(TOPTW problem, int capacity, int minDistance) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("El tamaño del conjunto elite debe ser positivo: " + capacity);
+        }
+        this.problem = problem;
+        this.elite = new TOPTWSolution[capacity];
+        this.fitness = new double[capacity];
+        this.hashes = new long[capacity];
+        this.size = 0;
+        this.minDistance = minDistance;
+    }
+
+    /**
+     * Método que convierte una fracción de los clientes en la distancia mínima del
+     * constructor. Se redondea hacia arriba a propósito, para que la fracción sea un
+     * mínimo real, y nunca baja de 1, que solo rechazaría repetidas.
+     * @param problem Problema de las soluciones.
+     * @param ratio Fracción de los clientes que debe cambiar de sucesor.
+     * @return distancia mínima en clientes.
+     */
+    public static int getMinDistanceFor(TOPTW problem, double ratio) {
+        return Math.max(1, (int) Math.ceil(problem.getPOIs() * ratio));
+    }
+
+    /**
+     * Método que vacía el conjunto; los huecos reservados se reutilizan.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Método que devuelve el problema de las soluciones.
+     * @return problema.
+     */
+    public TOPTW getProblem() {
+        return this.problem;
+    }
+
+    /**
+     * Método que devuelve el número de soluciones guardadas.
+     * @return número de soluciones.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Método que devuelve el número máximo de soluciones.
+     * @return capacidad.
+     */
+    public int getCapacity() {
+        return this.elite.length;
+    }
+
+    /**
+     * Método que devuelve la distancia mínima para entrar sin mejorar a la mejor.
+     * @return distancia mínima.
+     */
+    public int getMinDistance() {
+        return this.minDistance;
+    }
+
+    /**
+     * Método que devuelve una solución del conjunto. No debe modificarse.
+     * @param index Posición, entre 0 y size() - 1.
+     * @return solución.
+     */
+    public TOPTWSolution get(int index) {
+        return this.elite[index];
+    }
+
+    /**
+     * Método que devuelve la fitness de una solución del conjunto.
+     * @param index Posición, entre 0 y size() - 1.
+     * @return fitness.
+     */
+    public double getFitness(int index) {
+        return this.fitness[index];
+    }
+
+    /**
+     * Método que intenta añadir una copia de una solución.
+     * @param solution Solución del problema del conjunto.
+     * @param fitness Fitness de la solución.
+     * @return true si la solución ha entrado.
+     */
+    public boolean add(TOPTWSolution solution, double fitness) {
+        if(solution.getProblem() != this.problem) {
+            throw new IllegalArgumentException("La solución no es del problema del conjunto elite");
+        }
+        long hash = solution.getHash();
+        for(int i = 0; i < this.size; i++) {
+            if(this.hashes[i] == hash) {
+                return false;
+            }
+        }
+        int nearestDistance = Integer.MAX_VALUE;
+        double bestFitness = -Double.MAX_VALUE;
+        int replaced = -1, replacedDistance = Integer.MAX_VALUE;
+        for(int i = 0; i < this.size; i++) {
+            int distance = this.elite[i].getSuccessorDistance(solution);
+            if(distance == 0) {
+                return false;
+            }
+            nearestDistance = Math.min(nearestDistance, distance);
+            bestFitness = Math.max(bestFitness, this.fitness[i]);
+            // la más parecida de las peores; a igual distancia, la de menor fitness
+            if(this.fitness[i] < fitness && (distance < replacedDistance
+                    || (distance == replacedDistance && this.fitness[i] < this.fitness[replaced]))) {
+                replaced = i;
+                replacedDistance = distance;
+            }
+        }
+        if(this.size < this.elite.length) {
+            replaced = this.size++;
+        } else if(replaced == -1 || (fitness <= bestFitness && nearestDistance < this.minDistance)) {
+            return false;
+        }
+        if(this.elite[replaced] == null) {
+            this.elite[replaced] = new TOPTWSolution(this.problem);
+        }
+        solution.copyInto(this.elite[replaced]);
+        this.fitness[replaced] = fitness;
+        this.hashes[replaced] = hash;
+        return true;
+    }
+}
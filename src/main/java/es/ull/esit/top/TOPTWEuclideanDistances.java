@@ -0,0 +1,34 @@
+package es.ull.esit.top;
+
+/**
+ * Distancias euclídeas calculadas en cada consulta a partir de las coordenadas.
+ * No reserva memoria, para instancias en las que ninguna matriz cabe.
+ */
+public class TOPTWEuclideanDistances implements TOPTWDistances {
+    private double[] x;
+    private double[] y;
+
+    /**
+     * Constructor de la clase TOPTWEuclideanDistances.
+     * @param x Coordenadas x, una por nodo.
+     * @param y Coordenadas y, una por nodo.
+     */
+    public TOPTWEuclideanDistances(double[] x, double[] y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Método vacío: no hay nada que precalcular.
+     */
+    @Override
+    public void calculate() {
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        double diffXs = this.x[i] - this.x[j];
+        double diffYs = this.y[i] - this.y[j];
+        return Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+    }
+}
@@ -1,43 +1,320 @@
-package es.ull.esit.top;
-
-import es.ull.esit.top.TOPTWSolution;
-
-/**
- * Evaluate the solution
- */
-public class TOPTWEvaluator {
-    public static double NO_EVALUATED = -1.0;
-
-    /**
-     * Evaluate the solution
-     * @param solution
-     */
-    public void evaluate(TOPTWSolution solution) {
-        /*CumulativeCVRP problem = solution.getProblem();
-        double objectiveFunctionValue = 0.0;
-        for (int i = 0; i < solution.getIndexDepot().size(); i++) {
-            double cumulative = 0;
-            int depot = solution.getAnIndexDepot(i);
-            int actual = depot;
-            actual = solution.getSuccessor(actual);
-            cumulative += problem.getDistanceMatrix(0, actual);
-            objectiveFunctionValue += problem.getDistanceMatrix(0, actual);
-            System.out.println("Desde " + 0 + " a " + actual + " = " + cumulative);
-            while (actual != depot) {
-                int ant = actual;
-                actual = solution.getSuccessor(actual);
-                if (actual != depot) {
-                    cumulative += problem.getDistanceMatrix(ant, actual);
-                    objectiveFunctionValue += cumulative;
-                    System.out.println("Desde " + ant + " a " + actual + " = " + cumulative);
-                } else {
-                    cumulative += problem.getDistanceMatrix(ant, 0);
-                    objectiveFunctionValue += cumulative;
-                    System.out.println("Desde " + ant + " a " + 0 + " = " + cumulative);
-                }
-            }
-            System.out.println("");
-        }
-        solution.setObjectiveFunctionValue(objectiveFunctionValue);*/
-    }
-}
+package es.ull.esit.top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Evaluador de soluciones TOPTW por lotes. Las soluciones se empaquetan en un único
+ * array de enteros: cada solución es una secuencia de rutas y cada ruta son sus
+ * clientes seguidos de DEPOT (todos los depósitos se escriben como el nodo 0). Un
+ * lote se recorre con un bucle sobre arrays primitivos, sin objetos ni saltos por
+ * los arrays de sucesores, y se comprueban las ventanas de tiempo, el tiempo máximo
+ * por ruta, el número de rutas y que ningún cliente se repita. Con varios hilos el
+ * lote se reparte en bloques consecutivos entre los hilos de un pool que se crea con
+ * el primer lote grande y se reutiliza en los siguientes hasta close.
+ *
+ * El lote empaquetado y las marcas de visitados se reutilizan entre llamadas, así que
+ * un evaluador solo admite un llamador a la vez: cada hilo que evalúe lotes por su
+ * cuenta debe usar su propio evaluador.
+ */
+public class TOPTWEvaluator implements AutoCloseable {
+    public static final double NO_EVALUATED = -1.0;
+    public static final int DEPOT = 0;
+    /** Mínimo de soluciones por hilo para que merezca la pena repartir el lote. */
+    public static final int MIN_SOLUTIONS_PER_THREAD = 64;
+
+    private TOPTW problem;
+    private TOPTWDistances distances;
+    private double[] readyTime;
+    private double[] dueTime;
+    private double[] serviceTime;
+    private double[] score;
+    private double maxTimePerRoute;
+    private int vehicles;
+    private int threads;
+    private ExecutorService pool;
+
+    // Lote empaquetado, ver pack
+    private int[] tour;
+    private int[] tourStart;
+
+    // Marcas de clientes visitados por hilo; cada solución usa un valor distinto
+    private int[][] visited;
+    private int stamp;
+
+    /**
+     * Constructor de la clase TOPTWEvaluator con un solo hilo.
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWEvaluator(TOPTW problem) {
+        this(problem, 1);
+    }
+
+    /**
+     * Constructor de la clase TOPTWEvaluator.
+     * @param problem Problema TOPTW.
+     * @param threads Número de hilos para evaluar lotes.
+     */
+    public TOPTWEvaluator(TOPTW problem, int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo: " + threads);
+        }
+        this.problem = problem;
+        this.distances = problem.getDistances();
+        int size = problem.getPOIs() + 1;
+        this.readyTime = new double[size];
+        this.dueTime = new double[size];
+        this.serviceTime = new double[size];
+        this.score = new double[size];
+        for(int i = 0; i < size; i++) {
+            this.readyTime[i] = problem.getReadyTime(i);
+            this.dueTime[i] = problem.getDueTime(i);
+            this.serviceTime[i] = problem.getServiceTime(i);
+            this.score[i] = problem.getScore(i);
+        }
+        this.maxTimePerRoute = problem.getMaxTimePerRoute();
+        this.vehicles = problem.getVehicles();
+        this.threads = threads;
+        this.tour = new int[0];
+        this.tourStart = new int[1];
+        this.visited = new int[threads][size];
+        this.stamp = 0;
+    }
+
+    /**
+     * Método que devuelve el número de hilos.
+     * @return número de hilos.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Evalúa una solución y guarda su score como valor de la función objetivo.
+     * @param solution Solución a evaluar.
+     * @return true si la solución es factible.
+     */
+    public boolean evaluate(TOPTWSolution solution) {
+        double[] scores = new double[1];
+        boolean[] feasible = new boolean[1];
+        this.evaluate(new TOPTWSolution[]{solution}, 1, scores, feasible);
+        solution.setObjectiveFunctionValue(scores[0]);
+        return feasible[0];
+    }
+
+    /**
+     * Método que evalúa las primeras count soluciones de un array.
+     * @param solutions Soluciones del problema de este evaluador.
+     * @param count Número de soluciones.
+     * @param scores Salida: score de cada solución.
+     * @param feasible Salida: factibilidad de cada solución.
+     */
+    public void evaluate(TOPTWSolution[] solutions, int count, double[] scores, boolean[] feasible) {
+        this.pack(solutions, count);
+        this.evaluatePacked(this.tour, this.tourStart, count, scores, feasible);
+    }
+
+    /**
+     * Método que empaqueta soluciones en el formato de evaluatePacked recorriendo sus
+     * sucesores. Los arrays se reutilizan entre llamadas, así que el lote de getTour
+     * solo es válido hasta el siguiente pack.
+     * @param solutions Soluciones del problema de este evaluador.
+     * @param count Número de soluciones.
+     * @return número de enteros escritos en el lote.
+     */
+    public int pack(TOPTWSolution[] solutions, int count) {
+        // cada solución ocupa como mucho todos los clientes más un depósito por vehículo
+        long capacity = (long) count * (this.problem.getPOIs() + this.vehicles);
+        if(capacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("El lote de " + count + " soluciones no cabe en un array: " + capacity + " enteros");
+        }
+        if(this.tour.length < capacity) {
+            this.tour = new int[(int) capacity];
+        }
+        if(this.tourStart.length < count + 1) {
+            this.tourStart = new int[count + 1];
+        }
+        int length = 0;
+        for(int s = 0; s < count; s++) {
+            TOPTWSolution solution = solutions[s];
+            if(solution.getProblem() != this.problem) {
+                throw new IllegalArgumentException("La solución " + s + " no es del problema del evaluador");
+            }
+            this.tourStart[s] = length;
+            int[] successors = solution.getSuccessors();
+            for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                int depot = solution.getIndexRoute(k);
+                for(int c = successors[depot]; c != depot; c = successors[c]) {
+                    this.tour[length++] = c;
+                }
+                this.tour[length++] = DEPOT;
+            }
+        }
+        this.tourStart[count] = length;
+        return length;
+    }
+
+    /**
+     * Método que devuelve el lote empaquetado por el último pack.
+     * @return clientes y depósitos de todas las soluciones.
+     */
+    public int[] getTour() {
+        return this.tour;
+    }
+
+    /**
+     * Método que devuelve dónde empieza cada solución en el lote del último pack; la
+     * solución s acaba donde empieza la s + 1.
+     * @return posiciones iniciales.
+     */
+    public int[] getTourStart() {
+        return this.tourStart;
+    }
+
+    /**
+     * Método que evalúa un lote ya empaquetado, por ejemplo el de planes importados.
+     * La solución s ocupa tour[start[s]] hasta tour[start[s+1]] (excluido); cada ruta
+     * son sus clientes (1..POIs) seguidos de DEPOT y todas salen del depósito en el
+     * instante 0. Una solución es factible si no tiene más rutas que vehículos, no
+     * repite clientes, llega a cada nodo antes de su dueTime y vuelve al depósito
+     * dentro del tiempo máximo por ruta. El score incluye a todos los clientes, aunque
+     * la solución no sea factible.
+     * @param tour Clientes y depósitos de todas las soluciones.
+     * @param start Posición inicial de cada solución, más el final de la última.
+     * @param count Número de soluciones.
+     * @param scores Salida: score de cada solución.
+     * @param feasible Salida: factibilidad de cada solución.
+     */
+    public void evaluatePacked(final int[] tour, final int[] start, final int count, final double[] scores, final boolean[] feasible) {
+        final int first = this.nextStamps(count);
+        int workers = Math.min(this.threads, count / MIN_SOLUTIONS_PER_THREAD);
+        if(workers <= 1) {
+            this.evaluateRange(tour, start, 0, count, this.visited[0], first, scores, feasible);
+            return;
+        }
+        ExecutorService pool = this.getPool();
+        ArrayList< Future<?> > tasks = new ArrayList< Future<?> >();
+        try {
+            for(int w = 0; w < workers; w++) {
+                final int from = (int)((long)count * w / workers);
+                final int to = (int)((long)count * (w + 1) / workers);
+                final int[] visited = this.visited[w];
+                tasks.add(pool.submit(new Runnable() {
+                    public void run() {
+                        TOPTWEvaluator.this.evaluateRange(tour, start, from, to, visited, first, scores, feasible);
+                    }
+                }));
+            }
+            for(Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // si algo falla, que ningún bloque siga escribiendo en los arrays de salida
+            for(Future<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Método que devuelve el pool de hilos, creándolo la primera vez. Sus hilos son
+     * daemon para que un evaluador sin cerrar no impida terminar la aplicación.
+     * @return pool de hilos del evaluador.
+     */
+    private synchronized ExecutorService getPool() {
+        if(this.pool == null) {
+            this.pool = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "TOPTWEvaluator");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return this.pool;
+    }
+
+    /**
+     * Método que termina los hilos del evaluador. Un lote posterior crea otro pool.
+     */
+    @Override
+    public synchronized void close() {
+        if(this.pool != null) {
+            this.pool.shutdownNow();
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Método que reserva count valores de marca consecutivos para un lote. Si se
+     * agotan los enteros se borran las marcas y se empieza de nuevo.
+     * @param count Número de soluciones del lote.
+     * @return primer valor de marca del lote.
+     */
+    private int nextStamps(int count) {
+        if(this.stamp > Integer.MAX_VALUE - count - 1) {
+            for(int[] marks : this.visited) {
+                Arrays.fill(marks, 0);
+            }
+            this.stamp = 0;
+        }
+        int first = this.stamp + 1;
+        this.stamp += count;
+        return first;
+    }
+
+    /**
+     * Método que evalúa las soluciones from..to-1 de un lote empaquetado. Es el bucle
+     * principal: solo lee arrays primitivos y acumula la factibilidad con operaciones
+     * lógicas en lugar de salir en cuanto falla algo.
+     * @param tour Clientes y depósitos de todas las soluciones.
+     * @param start Posición inicial de cada solución.
+     * @param from Primera solución.
+     * @param to Solución siguiente a la última.
+     * @param visited Marcas de clientes visitados de este hilo.
+     * @param first Valor de marca de la solución 0 del lote.
+     * @param scores Salida: score de cada solución.
+     * @param feasible Salida: factibilidad de cada solución.
+     */
+    private void evaluateRange(int[] tour, int[] start, int from, int to, int[] visited, int first,
+                               double[] scores, boolean[] feasible) {
+        final double[] readyTime = this.readyTime, dueTime = this.dueTime, serviceTime = this.serviceTime, score = this.score;
+        final double maxTimePerRoute = this.maxTimePerRoute;
+        final TOPTWDistances distances = this.distances;
+        for(int s = from; s < to; s++) {
+            int mark = first + s;
+            int end = start[s + 1];
+            int pre = DEPOT, routes = 0;
+            double time = 0.0, total = 0.0;
+            boolean valid = true;
+            for(int p = start[s]; p < end; p++) {
+                int c = tour[p];
+                double arrival = time + distances.getDistance(pre, c);
+                valid &= arrival < dueTime[c];
+                time = Math.max(arrival, readyTime[c]) + serviceTime[c];
+                total += score[c];
+                if(c == DEPOT) {
+                    valid &= time <= maxTimePerRoute;
+                    routes++;
+                    time = 0.0;
+                } else {
+                    valid &= visited[c] != mark;
+                    visited[c] = mark;
+                }
+                pre = c;
+            }
+            scores[s] = total;
+            feasible[s] = valid && routes <= this.vehicles && pre == DEPOT;
+        }
+    }
+}
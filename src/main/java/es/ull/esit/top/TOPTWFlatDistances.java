@@ -0,0 +1,44 @@
+package es.ull.esit.top;
+
+/**
+ * Matriz de distancias completa guardada por filas en un único double[].
+ */
+public class TOPTWFlatDistances implements TOPTWDistances {
+    private double[] x;
+    private double[] y;
+    private int size;
+    private double[] distances;
+
+    /**
+     * Constructor de la clase TOPTWFlatDistances.
+     * @param x Coordenadas x, una por nodo.
+     * @param y Coordenadas y, una por nodo.
+     */
+    public TOPTWFlatDistances(double[] x, double[] y) {
+        this.x = x;
+        this.y = y;
+        this.size = x.length;
+        this.distances = new double[this.size * this.size];
+    }
+
+    /**
+     * Método que calcula la matriz. Cada par se calcula una vez y se copia en su simétrico.
+     */
+    @Override
+    public void calculate() {
+        for(int i = 0; i < this.size; i++) {
+            for(int j = i + 1; j < this.size; j++) {
+                double diffXs = this.x[i] - this.x[j];
+                double diffYs = this.y[i] - this.y[j];
+                double distance = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+                this.distances[i * this.size + j] = distance;
+                this.distances[j * this.size + i] = distance;
+            }
+        }
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        return this.distances[i * this.size + j];
+    }
+}
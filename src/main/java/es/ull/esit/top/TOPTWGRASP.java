@@ -1,404 +1,1027 @@
-package es.ull.esit.top;
-
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-
-/**
- * TOPTWGRASP
- */
-public class TOPTWGRASP {
-    public static double NO_EVALUATED = -1.0;
-
-    private TOPTWSolution solution;
-    private int solutionTime;
-
-    /**
-     * Constructor de la clase
-     * @param sol
-     */
-    public TOPTWGRASP(TOPTWSolution sol){
-        this.solution = sol;
-        this.solutionTime = 0;
-    }
-
-    /*procedure GRASP(Max Iterations,Seed)
-        1 Read Input();
-        2 for k = 1, . . . , Max Iterations do
-            3 Solution ← Greedy Randomized Construction(Seed);
-            4 Solution ← Local Search(Solution);
-            5 Update Solution(Solution,Best Solution);
-        6 end;
-        7 return Best Solution;
-    end GRASP*/
-
-    /*procedure Greedy Randomized Construction(Seed)
-        Solution ← ∅;
-        Evaluate the incremental costs of the candidate elements;
-        while Solution is not a complete solution do
-            Build the restricted candidate list (RCL);
-            Select an element s from the RCL at random;
-            Solution ← Solution ∪ {s};
-            Reevaluate the incremental costs;
-        end;
-        return Solution;
-    end Greedy Randomized Construction.*/
-
-    /**
-     * Método GRASP
-     * @param maxIterations
-     * @param maxSizeRCL
-     */
-    public void GRASP(int maxIterations, int maxSizeRCL) {
-        double averageFitness = 0.0;
-        double bestSolution = 0.0;
-        for(int i = 0; i < maxIterations; i++) {
-
-            this.computeGreedySolution(maxSizeRCL);
-
-            // IMPRIMIR SOLUCION
-            double fitness = this.solution.evaluateFitness();
-            System.out.println(this.solution.getInfoSolution());
-            //System.out.println("Press Any Key To Continue...");
-            //new java.util.Scanner(System.in).nextLine();
-            averageFitness += fitness;
-            if(bestSolution < fitness) {
-                bestSolution = fitness;
-            }
-            //double fitness = this.solution.printSolution();
-
-            /******
-             *
-             * BÚSQUEDA LOCAL
-             *
-             */
-        }
-        averageFitness = averageFitness/maxIterations;
-        System.out.println(" --> MEDIA: "+averageFitness);
-        System.out.println(" --> MEJOR SOLUCION: "+bestSolution);
-    }
-
-    /**
-     * Método de selección aleatoria de la lista restringida de candidatos
-     * @param maxTRCL
-     * @return
-     */
-    public int aleatorySelectionRCL(int maxTRCL) {
-        SecureRandom random = new SecureRandom(); // Compliant for security-sensitive use cases
-        byte[] bytes = new byte[20]; // Declaración correcta del array
-        random.nextBytes(bytes);
-
-        // Retorna el índice aleatorio calculado directamente, sin la variable temporal
-        return random.nextInt(maxTRCL);
-    }
-
-
-    /**
-     * Método de selección fuzzy de la lista restringida de candidatos
-     * @param rcl
-     * @return
-     */
-    public int fuzzySelectionBestFDRCL(ArrayList< double[] > rcl) {
-        double[] membershipFunction = new double[rcl.size()];
-        double maxSc = this.getMaxScore();
-        for(int j=0; j < rcl.size(); j++) {
-            membershipFunction[j] = 1 - ((rcl.get(j)[4])/maxSc);
-        }
-        double minMemFunc = Double.MAX_VALUE;
-        int posSelected = -1;
-        for(int i = 0; i < rcl.size(); i++) {
-            if(minMemFunc > membershipFunction[i]) {
-                minMemFunc = membershipFunction[i];
-                posSelected = i;
-            }
-        }
-        return posSelected;
-    }
-
-    /**
-     * Método de selección fuzzy de la lista restringida de candidatos
-     * @param rcl
-     * @param alpha
-     * @return
-     */
-    public int fuzzySelectionAlphaCutRCL(ArrayList< double[] > rcl, double alpha) {
-        ArrayList< double[] > rclAlphaCut = new ArrayList< double[] >();
-        ArrayList< Integer > rclPos = new ArrayList< Integer >();
-        double[] membershipFunction = new double[rcl.size()];
-        double maxSc = this.getMaxScore();
-        for(int j=0; j < rcl.size(); j++) {
-            membershipFunction[j] = 1 - ((rcl.get(j)[4])/maxSc);
-            if(membershipFunction[j] <= alpha) {
-                rclAlphaCut.add(rcl.get(j));
-                rclPos.add(j);
-            }
-        }
-        int posSelected = -1;
-        if(rclAlphaCut.size() > 0) {
-            posSelected = rclPos.get(aleatorySelectionRCL(rclAlphaCut.size()));
-        } else {
-            posSelected = aleatorySelectionRCL(rcl.size());
-        }
-        return posSelected;
-    }
-
-    /**
-     * Método de construcción de la solución greedy
-     * @param maxSizeRCL
-     */
-    public void computeGreedySolution(int maxSizeRCL) {
-        // inicialización
-        this.solution.initSolution();
-
-        // tiempo de salida y score por ruta y cliente
-        ArrayList<ArrayList<Double>> departureTimesPerClient = new ArrayList<ArrayList<Double>>();
-        ArrayList<Double> init = new ArrayList<Double>();
-        for(int z = 0; z < this.solution.getProblem().getPOIs()+this.solution.getProblem().getVehicles(); z++) {init.add(0.0);}
-        departureTimesPerClient.add(0, init);
-
-        // clientes
-        ArrayList<Integer> customers = new ArrayList<Integer>();
-        for(int j = 1; j <= this.solution.getProblem().getPOIs(); j++) { customers.add(j); }
-
-        // Evaluar coste incremental de los elementos candidatos
-        ArrayList< double[] > candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
-
-        Collections.sort(candidates, new Comparator<double[]>() {
-            public int compare(double[] a, double[] b) {
-                return Double.compare(a[a.length-2], b[b.length-2]);
-            }
-        });
-
-        int maxTRCL = maxSizeRCL;
-        boolean existCandidates = true;
-
-        while(!customers.isEmpty() && existCandidates) {
-            if(!candidates.isEmpty()) {
-                //Construir lista restringida de candidatos
-                ArrayList< double[] > rcl = new ArrayList< double[] >();
-                maxTRCL = maxSizeRCL;
-                if(maxTRCL > candidates.size()) { maxTRCL = candidates.size(); }
-                for(int j=0; j < maxTRCL; j++) { rcl.add(candidates.get(j)); }
-
-                //Selección aleatoria o fuzzy de candidato de la lista restringida
-                int posSelected = -1;
-                int selection = 3;
-                double alpha = 0.8;
-                switch (selection) {
-                    case 1:  posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria
-                        break;
-                    case 2:  posSelected = this.fuzzySelectionBestFDRCL(rcl);   // Selección fuzzy con mejor valor de alpha
-                        break;
-                    case 3:  posSelected = this.fuzzySelectionAlphaCutRCL(rcl, alpha); // Selección fuzzy con alpha corte aleatoria
-                        break;
-                    default: posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria por defecto
-                        break;
-                }
-
-                double[] candidateSelected = rcl.get(posSelected);
-                for(int j=0; j < customers.size(); j++) {
-                    if(customers.get(j)==candidateSelected[0]) {
-                        customers.remove(j);
-                    }
-                }
-
-                updateSolution(candidateSelected, departureTimesPerClient);
-
-            } else { // No hay candidatos a insertar en la solución, crear otra ruta
-                if(this.solution.getCreatedRoutes() < this.solution.getProblem().getVehicles()) {
-                    int newDepot = this.solution.addRoute();
-                    ArrayList<Double> initNew = new ArrayList<Double>();
-                    for(int z = 0; z < this.solution.getProblem().getPOIs()+this.solution.getProblem().getVehicles(); z++) {initNew.add(0.0);}
-                    departureTimesPerClient.add(initNew);
-                }
-                else {
-                    existCandidates = false;
-                }
-            }
-            //Reevaluar coste incremental de los elementos candidatos
-            candidates.clear();
-            candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
-            Collections.sort(candidates, new Comparator<double[]>() {
-                public int compare(double[] a, double[] b) {
-                    return Double.compare(a[a.length-2], b[b.length-2]);
-                }
-            });
-        }
-
-    }
-
-    /**
-     * Método de actualización de la solución
-     * @param candidateSelected
-     * @param departureTimes
-     */
-    public void updateSolution(double[] candidateSelected, ArrayList< ArrayList< Double > > departureTimes) {
-        // Inserción del cliente en la ruta  return: cliente, ruta, predecesor, coste
-        this.solution.setPredecessor((int)candidateSelected[0], (int)candidateSelected[2]);
-        this.solution.setSuccessor((int)candidateSelected[0], this.solution.getSuccessor((int)candidateSelected[2]));
-        this.solution.setSuccessor((int)candidateSelected[2], (int)candidateSelected[0]);
-        this.solution.setPredecessor(this.solution.getSuccessor((int)candidateSelected[0]), (int)candidateSelected[0]);
-
-        // Actualización de las estructuras de datos y conteo a partir de la posición a insertar
-        double costInsertionPre = departureTimes.get((int)candidateSelected[1]).get((int)candidateSelected[2]);
-        ArrayList<Double> route = departureTimes.get((int)candidateSelected[1]);
-        int pre=(int)candidateSelected[2], suc=-1;
-        int depot = this.solution.getIndexRoute((int)candidateSelected[1]);
-        do {
-            suc = this.solution.getSuccessor(pre);
-            costInsertionPre += this.solution.getDistance(pre, suc);
-
-            if(costInsertionPre < this.solution.getProblem().getReadyTime(suc)) {
-                costInsertionPre = this.solution.getProblem().getReadyTime(suc);
-            }
-            costInsertionPre += this.solution.getProblem().getServiceTime(suc);
-
-            if(!this.solution.isDepot(suc))
-                route.set(suc, costInsertionPre);
-            pre = suc;
-        } while((suc != depot));
-
-        // Actualiza tiempos
-        departureTimes.set((int)candidateSelected[1], route);
-    }
-
-    /**
-     * Método de evaluación completa
-     * @param customers
-     * @param departureTimes
-     * @return
-     */
-    public ArrayList< double[] > comprehensiveEvaluation(ArrayList<Integer> customers, ArrayList< ArrayList< Double > > departureTimes) {
-        ArrayList< double[] > candidatesList = new ArrayList< double[] >();
-        double[] infoCandidate = new double[5];
-        boolean validFinalInsertion = true;
-        infoCandidate[0] = -1;
-        infoCandidate[1] = -1;
-        infoCandidate[2] = -1;
-        infoCandidate[3] = Double.MAX_VALUE;
-        infoCandidate[4] = -1;
-
-        for(int c = 0; c < customers.size(); c++) { // clientes disponibles
-            for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas creadas
-                validFinalInsertion = true;
-                int depot = this.solution.getIndexRoute(k);
-                int pre=-1, suc=-1;
-                double costInsertion = 0;
-                pre = depot;
-                int candidate = customers.get(c);
-                do {                                                // recorremos la ruta
-                    validFinalInsertion = true;
-                    suc = this.solution.getSuccessor(pre);
-                    double timesUntilPre = departureTimes.get(k).get(pre) + this.solution.getDistance(pre, candidate);
-                    if(timesUntilPre < (this.solution.getProblem().getDueTime(candidate))) {
-                        double costCand = 0;
-                        if(timesUntilPre < this.solution.getProblem().getReadyTime(candidate)) {
-                            costCand = this.solution.getProblem().getReadyTime(candidate);
-                        } else { costCand = timesUntilPre; }
-                        costCand +=  this.solution.getProblem().getServiceTime(candidate);
-                        if(costCand > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
-
-                        // Comprobar TW desde candidate hasta sucesor
-                        double timesUntilSuc = costCand + this.solution.getDistance(candidate, suc);
-                        if(timesUntilSuc < (this.solution.getProblem().getDueTime(suc))) {
-                            double costSuc = 0;
-                            if(timesUntilSuc < this.solution.getProblem().getReadyTime(suc)) {
-                                costSuc = this.solution.getProblem().getReadyTime(suc);
-                            } else { costSuc = timesUntilSuc; }
-                            costSuc +=  this.solution.getProblem().getServiceTime(suc);
-                            costInsertion = costSuc;
-                            if(costSuc > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false;}
-
-                            int pre2=suc, suc2 = -1;
-                            if(suc != depot)
-                                do {
-                                    suc2 = this.solution.getSuccessor(pre2);
-                                    double timesUntilSuc2 = costInsertion + this.solution.getDistance(pre2, suc2);
-                                    if(timesUntilSuc2 < (this.solution.getProblem().getDueTime(suc2))) {
-                                        if(timesUntilSuc2 < this.solution.getProblem().getReadyTime(suc2)) {
-                                            costInsertion = this.solution.getProblem().getReadyTime(suc2);
-                                        } else { costInsertion = timesUntilSuc2; }
-                                        costInsertion += this.solution.getProblem().getServiceTime(suc2);
-                                        if(costInsertion > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
-                                    } else { validFinalInsertion = false; }
-                                    pre2 = suc2;
-                                } while((suc2 != depot) && validFinalInsertion);
-                        } else { validFinalInsertion = false; }
-                    } else { validFinalInsertion = false; }
-
-                    if(validFinalInsertion==true) { // cliente, ruta, predecesor, coste
-                        if(costInsertion < infoCandidate[3]) {
-                            infoCandidate[0] = candidate; infoCandidate[1] = k; infoCandidate[2] = pre; infoCandidate[3] = costInsertion; infoCandidate[4] = this.solution.getProblem().getScore(candidate); // cliente, ruta, predecesor, coste, score
-                        }
-                    }
-
-                    pre = suc;
-                } while(suc != depot);
-            } //rutas creadas
-
-            // almacenamos en la lista de candidatos la mejor posición de inserción para el cliente
-            if(infoCandidate[0]!=-1 && infoCandidate[1]!=-1 && infoCandidate[2]!=-1 && infoCandidate[3] != Double.MAX_VALUE && infoCandidate[4]!=-1) {
-                double[] infoCandidate2 = new double[5];
-                infoCandidate2[0] = infoCandidate[0];  infoCandidate2[1] = infoCandidate[1];
-                infoCandidate2[2] = infoCandidate[2];  infoCandidate2[3] = infoCandidate[3];
-                infoCandidate2[4] = infoCandidate[4];
-                candidatesList.add(infoCandidate2);
-            }
-            validFinalInsertion = true;
-            infoCandidate[0] = -1;  infoCandidate[1] = -1;
-            infoCandidate[2] = -1;  infoCandidate[3] = Double.MAX_VALUE;
-            infoCandidate[4] = -1;
-        } // cliente
-
-        return candidatesList;
-    }
-
-
-    /**
-     * Método getSolution
-     * @return
-     */
-    public TOPTWSolution getSolution() {
-        return solution;
-    }
-
-    /**
-     * Método setSolution
-     * @param solution
-     */
-    public void setSolution(TOPTWSolution solution) {
-        this.solution = solution;
-    }
-
-    /**
-     * Método getSolutionTime
-     * @return solutionTime
-     */
-    public int getSolutionTime() {
-        return solutionTime;
-    }
-
-    /**
-     * Método setSolutionTime
-     * @param solutionTime
-     */
-    public void setSolutionTime(int solutionTime) {
-        this.solutionTime = solutionTime;
-    }
-
-    /**
-     * Método getMaxScore
-     * @return maxSc
-     */
-    public double getMaxScore() {
-        double maxSc = -1.0;
-        for(int i = 0; i < this.solution.getProblem().getScore().length; i++) {
-            if(this.solution.getProblem().getScore(i) > maxSc)
-                maxSc = this.solution.getProblem().getScore(i);
-        }
-        return maxSc;
-    }
-
-}
-
+package es.ull.esit.top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * TOPTWGRASP
+ */
+public class TOPTWGRASP {
+    public static final double NO_EVALUATED = -1.0;
+    public static final double DEFAULT_ALPHA = 0.8;
+    public static final int SELECTION_RANDOM = 1;
+    public static final int SELECTION_FUZZY_BEST = 2;
+    public static final int SELECTION_FUZZY_ALPHA_CUT = 3;
+
+    private TOPTWSolution solution;
+    private TOPTWSolution bestSolution;
+    private int solutionTime;
+    private int iterations;
+    private double elapsedTime;
+    private TOPTWInsertionCache insertionCache;
+    private double bestFitness;
+    private double averageFitness;
+    private TOPTWRandomSource random;
+    private long seed;
+    private int[] customers;
+    private int customersSize;
+    private int[] routeNodes;
+    private int[] insertionMark;
+    private int[] insertionPosition;
+    private double[] insertionCost;
+    private int[] cellMark;
+    private boolean[] cellReachable;
+    private int mark;
+    private TOPTWCandidates candidates;
+    private int[] rclPositions;
+    private TOPTWLocalSearch localSearch;
+    private boolean localSearchEnabled;
+    private boolean spatialPruningEnabled;
+    private int selection;
+    private TOPTWElitePool elitePool;
+    private TOPTWPathRelinking pathRelinking;
+    private TOPTWSolutionCache seenSolutions;
+    private boolean duplicateDetection;
+    private int duplicates;
+    private TOPTWReporter reporter;
+
+    /**
+     * Constructor de la clase
+     * @param sol
+     */
+    public TOPTWGRASP(TOPTWSolution sol){
+        this.solution = sol;
+        this.solutionTime = 0;
+        this.seed = new SplittableRandom().nextLong();
+        this.random = new TOPTWSplittableRandom(this.seed);
+        this.localSearchEnabled = true;
+        this.spatialPruningEnabled = true;
+        this.selection = SELECTION_FUZZY_ALPHA_CUT;
+        this.duplicateDetection = true;
+        this.reporter = new TOPTWReporter(TOPTWReporter.Detail.BEST);
+    }
+
+    /*procedure GRASP(Max Iterations,Seed)
+        1 Read Input();
+        2 for k = 1, . . . , Max Iterations do
+            3 Solution ← Greedy Randomized Construction(Seed);
+            4 Solution ← Local Search(Solution);
+            5 Update Solution(Solution,Best Solution);
+        6 end;
+        7 return Best Solution;
+    end GRASP*/
+
+    /*procedure Greedy Randomized Construction(Seed)
+        Solution ← ∅;
+        Evaluate the incremental costs of the candidate elements;
+        while Solution is not a complete solution do
+            Build the restricted candidate list (RCL);
+            Select an element s from the RCL at random;
+            Solution ← Solution ∪ {s};
+            Reevaluate the incremental costs;
+        end;
+        return Solution;
+    end Greedy Randomized Construction.*/
+
+    /**
+     * Método GRASP. Si solutionTime es positivo, para también al agotar ese tiempo
+     * en milisegundos, con la mejor solución encontrada hasta entonces.
+     * @param maxIterations
+     * @param maxSizeRCL
+     */
+    public void GRASP(int maxIterations, int maxSizeRCL) {
+        long deadline = System.nanoTime() + this.solutionTime * 1000000L;
+        this.runGRASP(maxIterations, maxSizeRCL, this.solutionTime > 0, deadline, null);
+    }
+
+    /**
+     * Método GRASP reactivo. En cada iteración el tamaño de RCL y el alpha se eligen
+     * entre las opciones de reactive según sus probabilidades, que se ajustan hacia las
+     * opciones que dan mejores soluciones. Sustituye a varias ejecuciones con tamaños
+     * de RCL fijos. Respeta solutionTime igual que GRASP.
+     * @param maxIterations
+     * @param reactive opciones y estadísticas; se reinician al empezar
+     */
+    public void reactiveGRASP(int maxIterations, TOPTWReactive reactive) {
+        reactive.reset();
+        long deadline = System.nanoTime() + this.solutionTime * 1000000L;
+        this.runGRASP(maxIterations, 0, this.solutionTime > 0, deadline, reactive);
+    }
+
+    /**
+     * Método GRASP con plazo: itera hasta el instante deadline (en la escala de
+     * System.nanoTime) y se queda con la mejor solución encontrada. La iteración en
+     * curso al vencer el plazo termina, y siempre se hace al menos una.
+     * @param deadline instante límite según System.nanoTime
+     * @param maxSizeRCL
+     */
+    public void GRASPUntil(long deadline, int maxSizeRCL) {
+        this.runGRASP(Integer.MAX_VALUE, maxSizeRCL, true, deadline, null);
+    }
+
+    /**
+     * Método con el bucle del GRASP secuencial. El plazo se comprueba con una llamada a
+     * System.nanoTime por iteración, despreciable frente a una construcción.
+     * @param maxIterations
+     * @param maxSizeRCL
+     * @param timed true si hay plazo
+     * @param deadline instante límite según System.nanoTime
+     * @param reactive opciones del GRASP reactivo, o null para usar maxSizeRCL y DEFAULT_ALPHA
+     */
+    private void runGRASP(int maxIterations, int maxSizeRCL, boolean timed, long deadline, TOPTWReactive reactive) {
+        long start = System.nanoTime();
+        if(this.elitePool != null) {
+            this.elitePool.clear();
+        }
+        this.clearSeenSolutions();
+        double averageFitness = 0.0;
+        double bestSolution = 0.0;
+        this.reporter.start();
+        int i = 0;
+        for(; i < maxIterations; i++) {
+            if(timed && i > 0 && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+
+            this.random.setSeed(this.seed + i);
+            int option = -1;
+            if(reactive != null) {
+                option = reactive.select(this.random);
+                this.computeGreedySolution(reactive.getRCLSize(option), reactive.getAlpha(option));
+            } else {
+                this.computeGreedySolution(maxSizeRCL);
+            }
+
+            // BÚSQUEDA LOCAL Y PATH RELINKING, SALVO CONSTRUCCIONES REPETIDAS
+            double fitness = this.improveSolution();
+
+            // IMPRIMIR SOLUCION
+            if(reactive != null) {
+                reactive.update(option, fitness);
+            }
+            this.reporter.iteration(i, this.solution, fitness);
+            //System.out.println("Press Any Key To Continue...");
+            //new java.util.Scanner(System.in).nextLine();
+            averageFitness += fitness;
+            if(i == 0 || bestSolution < fitness) {
+                bestSolution = fitness;
+                this.keepBestSolution();
+            }
+            //double fitness = this.solution.printSolution();
+        }
+        this.iterations = i;
+        this.elapsedTime = (System.nanoTime() - start) / 1e6;
+        averageFitness = averageFitness/this.iterations;
+        this.averageFitness = averageFitness;
+        this.bestFitness = bestSolution;
+        this.reporter.timing(this.iterations, this.elapsedTime);
+        this.reporter.finish(averageFitness, bestSolution, this.iterations > 0 ? this.bestSolution : null);
+    }
+
+    /**
+     * Método GRASP paralelo. Reparte las iteraciones en bloques consecutivos entre
+     * varios hilos; cada hilo construye sobre su propia TOPTWSolution y su propia
+     * fuente aleatoria. Cada iteración i usa la semilla seed + i y las fitness se
+     * combinan en orden, por lo que la media y la mejor solución coinciden con las
+     * del GRASP secuencial con la misma semilla. Cada hilo guarda la mejor solución
+     * de su bloque y al final se copia la mejor de todas. Si solutionTime es positivo,
+     * cada hilo deja su bloque al agotar el tiempo y solo cuentan las iteraciones hechas.
+     * @param maxIterations
+     * @param maxSizeRCL
+     * @param workers número de hilos
+     */
+    public void GRASP(int maxIterations, int maxSizeRCL, int workers) {
+        if(workers < 1) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo: " + workers);
+        }
+        final long start = System.nanoTime();
+        final boolean timed = this.solutionTime > 0;
+        final long deadline = start + this.solutionTime * 1000000L;
+        final double[] fitnessPerIteration = new double[maxIterations];
+        final int[] lastPerWorker = new int[workers];
+        final TOPTWGRASP[] graspPerWorker = new TOPTWGRASP[workers];
+        final TOPTW problem = this.solution.getProblem();
+        final long seed = this.seed;
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            ArrayList< Future<?> > tasks = new ArrayList< Future<?> >();
+            for(int w = 0; w < workers; w++) {
+                final int first = (int)((long)maxIterations * w / workers);
+                final int last = (int)((long)maxIterations * (w + 1) / workers);
+                final int index = w;
+                final TOPTWRandomSource workerRandom = this.random.copy();
+                tasks.add(pool.submit(new Runnable() {
+                    public void run() {
+                        TOPTWGRASP worker = new TOPTWGRASP(new TOPTWSolution(problem));
+                        graspPerWorker[index] = worker;
+                        worker.setRandomSource(workerRandom);
+                        worker.setLocalSearchEnabled(localSearchEnabled);
+                        worker.setSelection(selection);
+                        worker.setSpatialPruningEnabled(spatialPruningEnabled);
+                        worker.setDuplicateDetection(duplicateDetection);
+                        worker.clearSeenSolutions();
+                        worker.setReporter(new TOPTWReporter(TOPTWReporter.Detail.OFF));
+                        for(int i = first; i < last; i++) {
+                            if(timed && i > first && System.nanoTime() - deadline >= 0) {
+                                break;
+                            }
+                            worker.random.setSeed(seed + i);
+                            worker.computeGreedySolution(maxSizeRCL);
+                            fitnessPerIteration[i] = worker.improveSolution();
+                            if(i == first || fitnessPerIteration[i] > worker.bestFitness) {
+                                worker.bestFitness = fitnessPerIteration[i];
+                                worker.keepBestSolution();
+                            }
+                            lastPerWorker[index] = i + 1;
+                        }
+                    }
+                }));
+            }
+            for(Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double averageFitness = 0.0;
+        double bestSolution = 0.0;
+        this.reporter.start();
+        this.iterations = 0;
+        this.duplicates = 0;
+        for(int w = 0; w < workers; w++) {
+            if(graspPerWorker[w] != null) {
+                this.duplicates += graspPerWorker[w].duplicates;
+            }
+            int first = (int)((long)maxIterations * w / workers);
+            for(int i = first; i < lastPerWorker[w]; i++) {
+                averageFitness += fitnessPerIteration[i];
+                if(bestSolution < fitnessPerIteration[i]) {
+                    bestSolution = fitnessPerIteration[i];
+                }
+            }
+            this.iterations += Math.max(0, lastPerWorker[w] - first);
+        }
+        this.elapsedTime = (System.nanoTime() - start) / 1e6;
+        averageFitness = averageFitness/this.iterations;
+        this.averageFitness = averageFitness;
+        this.bestFitness = bestSolution;
+
+        // la primera iteración con la mejor fitness, como en el GRASP secuencial
+        TOPTWGRASP best = null;
+        for(int w = 0; w < workers; w++) {
+            TOPTWGRASP worker = graspPerWorker[w];
+            if(worker != null && worker.bestSolution != null && (best == null || worker.bestFitness > best.bestFitness)) {
+                best = worker;
+            }
+        }
+        if(best != null) {
+            this.prepareBestSolution();
+            best.bestSolution.copyInto(this.bestSolution);
+        }
+        this.reporter.timing(this.iterations, this.elapsedTime);
+        this.reporter.finish(averageFitness, bestSolution, best != null ? this.bestSolution : null);
+    }
+
+    /**
+     * Método que reserva, si hace falta, la solución donde se guarda la mejor encontrada
+     */
+    private void prepareBestSolution() {
+        if(this.bestSolution == null || this.bestSolution.getProblem() != this.solution.getProblem()) {
+            this.bestSolution = new TOPTWSolution(this.solution.getProblem());
+        }
+    }
+
+    /**
+     * Método que copia la solución actual en la mejor solución, sin reservar memoria
+     * salvo la primera vez
+     */
+    private void keepBestSolution() {
+        this.prepareBestSolution();
+        this.solution.copyInto(this.bestSolution);
+    }
+
+    /**
+     * Método que devuelve la mejor solución del último GRASP
+     * @return mejor solución, o null si no se ha ejecutado
+     */
+    public TOPTWSolution getBestSolution() {
+        return this.bestSolution;
+    }
+
+    /**
+     * Método que devuelve el reporter de resultados
+     * @return reporter
+     */
+    public TOPTWReporter getReporter() {
+        return this.reporter;
+    }
+
+    /**
+     * Método que modifica el reporter de resultados
+     * @param reporter
+     */
+    public void setReporter(TOPTWReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Método que aplica la búsqueda local y el path relinking a la última construcción.
+     * Si se saltan las repetidas (isSkippingDuplicates) y la construcción ya salió antes
+     * en esta ejecución, con las mismas rutas en el mismo orden (getOrderedHash), no
+     * aplica la búsqueda local y devuelve la fitness que se obtuvo entonces: la
+     * búsqueda local es determinista, pero recorre las rutas por índice, así que solo
+     * llega al mismo óptimo local desde la misma solución. Ese óptimo no puede mejorar
+     * a la mejor solución. En ese caso la solución se queda como la construcción.
+     * @return fitness de la iteración
+     */
+    private double improveSolution() {
+        boolean skip = this.isSkippingDuplicates();
+        long hash = this.solution.getOrderedHash();
+        if(skip) {
+            double fitness = this.seenSolutions.getFitness(hash);
+            if(fitness != TOPTWSolutionCache.NO_EVALUATED) {
+                this.duplicates++;
+                return fitness;
+            }
+        }
+        this.applyLocalSearch();
+        this.applyPathRelinking();
+        double fitness = this.solution.evaluateFitness();
+        if(skip) {
+            this.seenSolutions.put(hash, fitness);
+        }
+        return fitness;
+    }
+
+    /**
+     * Método que comprueba si se saltan las construcciones repetidas: hace falta que la
+     * detección esté activa, que haya búsqueda local que saltar, que no haya conjunto
+     * elite y que el reporter no imprima la solución de cada iteración, que sería la
+     * construcción y no el óptimo local. Con conjunto elite no se salta nada: el path
+     * relinking depende del contenido del conjunto y de la fuente aleatoria, y la
+     * solución debe ofrecerse al conjunto.
+     * @return true si se saltan
+     */
+    private boolean isSkippingDuplicates() {
+        return this.duplicateDetection && this.localSearchEnabled && this.elitePool == null
+                && this.reporter.getDetail() != TOPTWReporter.Detail.FULL;
+    }
+
+    /**
+     * Método que vacía las construcciones vistas al empezar una ejecución
+     */
+    private void clearSeenSolutions() {
+        if(this.seenSolutions == null) {
+            this.seenSolutions = new TOPTWSolutionCache();
+        }
+        this.seenSolutions.clear();
+        this.duplicates = 0;
+    }
+
+    /**
+     * Método que aplica la búsqueda local a la última solución construida, si está activada
+     * @return incremento del score
+     */
+    public double applyLocalSearch() {
+        if(!this.localSearchEnabled) {
+            return 0.0;
+        }
+        if(this.localSearch == null) {
+            this.localSearch = new TOPTWLocalSearch(this.solution);
+        }
+        return this.localSearch.run();
+    }
+
+    /**
+     * Método que, si hay conjunto elite, hace path relinking desde la solución actual
+     * hacia una solución elite elegida al azar, aplica la búsqueda local si el camino
+     * ha mejorado la solución y la ofrece al conjunto elite.
+     * @return incremento del score
+     */
+    public double applyPathRelinking() {
+        if(this.elitePool == null) {
+            return 0.0;
+        }
+        double gain = 0.0;
+        if(this.elitePool.size() > 0) {
+            if(this.pathRelinking == null) {
+                this.pathRelinking = new TOPTWPathRelinking(this.solution);
+            }
+            gain = this.pathRelinking.relink(this.elitePool.get(this.random.nextInt(this.elitePool.size())));
+            if(gain > 0.0) {
+                gain += this.applyLocalSearch();
+            }
+        }
+        this.elitePool.add(this.solution, this.solution.evaluateFitness());
+        return gain;
+    }
+
+    /**
+     * Método que devuelve el conjunto elite
+     * @return conjunto elite, o null si no se hace path relinking
+     */
+    public TOPTWElitePool getElitePool() {
+        return this.elitePool;
+    }
+
+    /**
+     * Método que activa el path relinking con un conjunto elite, que se vacía al empezar
+     * cada GRASP; con null se desactiva. Solo lo usa el GRASP secuencial (también el
+     * reactivo y GRASPUntil): en el paralelo cada iteración depende únicamente de su
+     * semilla y un conjunto compartido rompería esa equivalencia.
+     * @param elitePool
+     */
+    public void setElitePool(TOPTWElitePool elitePool) {
+        if(elitePool != null && elitePool.getProblem() != this.solution.getProblem()) {
+            throw new IllegalArgumentException("El conjunto elite no es del problema de la solución");
+        }
+        this.elitePool = elitePool;
+    }
+
+    /**
+     * Método de selección aleatoria de la lista restringida de candidatos
+     * @param maxTRCL
+     * @return
+     */
+    public int aleatorySelectionRCL(int maxTRCL) {
+        return this.random.nextInt(maxTRCL);
+    }
+
+    /**
+     * Método de selección fuzzy de la lista restringida de candidatos
+     * @param rcl candidatos ordenados; la RCL son las primeras rclSize posiciones
+     * @param rclSize
+     * @return
+     */
+    public int fuzzySelectionBestFDRCL(TOPTWCandidates rcl, int rclSize) {
+        TOPTW problem = this.solution.getProblem();
+        double minMemFunc = Double.MAX_VALUE;
+        int posSelected = -1;
+        for(int i = 0; i < rclSize; i++) {
+            double membership = problem.getMembership(rcl.getCustomer(i));
+            if(minMemFunc > membership) {
+                minMemFunc = membership;
+                posSelected = i;
+            }
+        }
+        return posSelected;
+    }
+
+    /**
+     * Método de selección fuzzy de la lista restringida de candidatos
+     * @param rcl candidatos ordenados; la RCL son las primeras rclSize posiciones
+     * @param rclSize
+     * @param alpha
+     * @return
+     */
+    public int fuzzySelectionAlphaCutRCL(TOPTWCandidates rcl, int rclSize, double alpha) {
+        TOPTW problem = this.solution.getProblem();
+        if(this.rclPositions == null || this.rclPositions.length < rclSize) {
+            this.rclPositions = new int[rclSize];
+        }
+        int cut = 0;
+        for(int j=0; j < rclSize; j++) {
+            if(problem.getMembership(rcl.getCustomer(j)) <= alpha) {
+                this.rclPositions[cut++] = j;
+            }
+        }
+        int posSelected = -1;
+        if(cut > 0) {
+            posSelected = this.rclPositions[aleatorySelectionRCL(cut)];
+        } else {
+            posSelected = aleatorySelectionRCL(rclSize);
+        }
+        return posSelected;
+    }
+
+    /**
+     * Método de construcción de la solución greedy con el alpha por defecto
+     * @param maxSizeRCL
+     */
+    public void computeGreedySolution(int maxSizeRCL) {
+        this.computeGreedySolution(maxSizeRCL, DEFAULT_ALPHA);
+    }
+
+    /**
+     * Método de construcción de la solución greedy
+     * @param maxSizeRCL
+     * @param alpha corte de la selección fuzzy
+     */
+    public void computeGreedySolution(int maxSizeRCL, double alpha) {
+        // inicialización
+        this.solution.initSolution();
+        this.invalidateInsertionCache();
+
+        // clientes
+        int poi = this.solution.getProblem().getPOIs();
+        if(this.customers == null || this.customers.length != poi) {
+            this.customers = new int[poi];
+        }
+        for(int j = 1; j <= poi; j++) { this.customers[j-1] = j; }
+        this.customersSize = poi;
+
+        // Evaluar coste incremental de los elementos candidatos
+        TOPTWCandidates candidates = this.comprehensiveEvaluation(this.customers, this.customersSize, maxSizeRCL);
+
+        int maxTRCL = maxSizeRCL;
+        boolean existCandidates = true;
+
+        while(this.customersSize > 0 && existCandidates) {
+            if(!candidates.isEmpty()) {
+                //Lista restringida de candidatos: construida durante la evaluación
+                maxTRCL = candidates.getRCLSize();
+
+                //Selección aleatoria o fuzzy de candidato de la lista restringida
+                int posSelected = -1;
+                // criterio de selección; el tamaño de la RCL es maxTRCL, acotado por maxSizeRCL
+                switch (this.selection) {
+                    case SELECTION_RANDOM:  posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria
+                        break;
+                    case SELECTION_FUZZY_BEST:  posSelected = this.fuzzySelectionBestFDRCL(candidates, maxTRCL);   // Selección fuzzy con mejor valor de alpha
+                        break;
+                    case SELECTION_FUZZY_ALPHA_CUT:  posSelected = this.fuzzySelectionAlphaCutRCL(candidates, maxTRCL, alpha); // Selección fuzzy con alpha corte aleatoria
+                        break;
+                    default: posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria por defecto
+                        break;
+                }
+
+                int customerSelected = candidates.getCustomer(posSelected);
+                for(int j=0; j < this.customersSize; j++) {
+                    if(this.customers[j] == customerSelected) {
+                        System.arraycopy(this.customers, j + 1, this.customers, j, this.customersSize - j - 1);
+                        this.customersSize--;
+                        break;
+                    }
+                }
+
+                updateSolution(customerSelected, candidates.getRoute(posSelected), candidates.getPredecessor(posSelected));
+
+            } else { // No hay candidatos a insertar en la solución, crear otra ruta
+                if(this.solution.getCreatedRoutes() < this.solution.getProblem().getVehicles()) {
+                    this.solution.addRoute();
+                }
+                else {
+                    existCandidates = false;
+                }
+            }
+            //Reevaluar coste incremental de los elementos candidatos
+            candidates = this.comprehensiveEvaluation(this.customers, this.customersSize, maxSizeRCL);
+        }
+
+    }
+
+    /**
+     * Método de actualización de la solución
+     * @param customer cliente insertado
+     * @param route ruta en la que se inserta
+     * @param predecessor predecesor tras el que se inserta
+     */
+    public void updateSolution(int customer, int route, int predecessor) {
+        // Inserción del cliente en la ruta
+        this.solution.setPredecessor(customer, predecessor);
+        this.solution.setSuccessor(customer, this.solution.getSuccessor(predecessor));
+        this.solution.setSuccessor(predecessor, customer);
+        this.solution.setPredecessor(this.solution.getSuccessor(customer), customer);
+
+        // Actualización de las estructuras de datos y conteo a partir de la posición a insertar
+        double costInsertionPre = this.solution.getDepartureTime(route, predecessor);
+        int pre=predecessor, suc=-1;
+        int depot = this.solution.getIndexRoute(route);
+        do {
+            suc = this.solution.getSuccessor(pre);
+            costInsertionPre += this.solution.getDistance(pre, suc);
+
+            if(costInsertionPre < this.solution.getProblem().getReadyTime(suc)) {
+                costInsertionPre = this.solution.getProblem().getReadyTime(suc);
+            }
+            costInsertionPre += this.solution.getProblem().getServiceTime(suc);
+
+            if(suc != depot)
+                this.solution.setDepartureTime(route, suc, costInsertionPre);
+            pre = suc;
+        } while((suc != depot));
+
+        // Actualiza holguras de la ruta
+        this.solution.updateForwardSlack(route);
+
+        // Solo cambian las inserciones de la ruta modificada
+        if(this.insertionCache != null) {
+            this.insertionCache.invalidateRoute(route);
+        }
+    }
+
+    /**
+     * Método de evaluación completa con todos los candidatos en la RCL, ordenados por coste.
+     * @param customers clientes pendientes
+     * @param size número de clientes pendientes
+     * @return candidatos
+     */
+    public TOPTWCandidates comprehensiveEvaluation(int[] customers, int size) {
+        return this.comprehensiveEvaluation(customers, size, size);
+    }
+
+    /**
+     * Método de evaluación completa. Calcula, para cada cliente, su mejor posición
+     * de inserción. Las rutas cuya inserción ya está en la caché no se vuelven a recorrer.
+     * La RCL, con los maxSizeRCL candidatos de menor coste, se construye a la vez.
+     * La lista devuelta se reutiliza en la siguiente llamada.
+     * @param customers clientes pendientes
+     * @param size número de clientes pendientes
+     * @param maxSizeRCL tamaño máximo de la RCL
+     * @return candidatos
+     */
+    public TOPTWCandidates comprehensiveEvaluation(int[] customers, int size, int maxSizeRCL) {
+        int poi = this.solution.getProblem().getPOIs();
+        if(this.insertionCache == null || !this.insertionCache.fits(poi, this.solution.getProblem().getVehicles())) {
+            this.insertionCache = new TOPTWInsertionCache(poi, this.solution.getProblem().getVehicles());
+        }
+        if(this.candidates == null || this.candidates.getCapacity() != poi) {
+            this.candidates = new TOPTWCandidates(poi);
+        }
+        this.candidates.clear(maxSizeRCL);
+        for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas modificadas
+            if(!this.insertionCache.isRouteValid(k)) {
+                this.evaluateRoute(k, customers, size);
+            }
+        }
+        for(int c = 0; c < size; c++) { // clientes disponibles
+            int candidate = customers[c];
+            int bestRoute = -1;
+            for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas creadas
+                if(this.insertionCache.getPredecessor(candidate, k) != TOPTWInsertionCache.NO_INSERTION) {
+                    if(bestRoute == -1 || this.insertionCache.getCost(candidate, k) < this.insertionCache.getCost(candidate, bestRoute)) {
+                        bestRoute = k;
+                    }
+                }
+            }
+
+            // almacenamos en la lista de candidatos la mejor posición de inserción para el cliente
+            if(bestRoute != -1) { // cliente, ruta, predecesor, coste, score
+                this.candidates.add(candidate, bestRoute, this.insertionCache.getPredecessor(candidate, bestRoute),
+                        this.insertionCache.getCost(candidate, bestRoute), this.solution.getProblem().getScore(candidate));
+            }
+        } // cliente
+
+        this.candidates.buildRCL();
+        return this.candidates;
+    }
+
+    /**
+     * Método que calcula la mejor inserción en una ruta de todos los clientes pendientes
+     * y la guarda en la caché. Como en un vecindario granular, un cliente solo se prueba
+     * justo antes o justo después de uno de sus vecinos de TOPTW y en las aristas que
+     * salen o llegan al depósito. Las aristas se generan desde los nodos de la ruta con
+     * las listas inversas de vecinos, así que el coste no depende de cuántos clientes
+     * queden pendientes por cada nodo de la ruta. Además, sin cambiar el resultado:
+     * - Un cliente se descarta si desde ningún nodo de la ruta se llega a su celda de la
+     *   rejilla espacial antes de que cierre su última ventana o del tiempo máximo.
+     * - Antes de consultar distancias, mayInsert descarta las aristas cuyo sucesor no
+     *   admite ni la salida más temprana posible del cliente.
+     * A igual coste se queda el predecesor que va antes en la ruta. La poda por celdas
+     * puede desactivarse con setSpatialPruningEnabled.
+     * @param k ruta
+     * @param customers clientes pendientes
+     * @param size número de clientes pendientes
+     */
+    private void evaluateRoute(int k, int[] customers, int size) {
+        TOPTW problem = this.solution.getProblem();
+        TOPTWSpatialIndex index = problem.getSpatialIndex();
+        int poi = problem.getPOIs();
+        if(this.routeNodes == null || this.routeNodes.length != poi + 1) {
+            this.routeNodes = new int[poi + 1];
+            this.insertionMark = new int[poi + 1];
+            this.insertionPosition = new int[poi + 1];
+            this.insertionCost = new double[poi + 1];
+            this.cellMark = new int[index.getCells()];
+            this.cellReachable = new boolean[index.getCells()];
+            this.mark = 0;
+        } else if(this.cellMark.length != index.getCells()) {
+            this.cellMark = new int[index.getCells()];
+            this.cellReachable = new boolean[index.getCells()];
+        }
+        if(++this.mark == Integer.MAX_VALUE) {
+            Arrays.fill(this.insertionMark, 0);
+            Arrays.fill(this.cellMark, 0);
+            this.mark = 1;
+        }
+        int depot = this.solution.getIndexRoute(k);
+        int length = 0;
+        int node = depot;
+        do {                                                // nodos de la ruta en orden
+            this.routeNodes[length++] = node;
+            node = this.solution.getSuccessor(node);
+        } while(node != depot);
+
+        // clientes que pueden llegar a la ruta: aristas del depósito
+        for(int c = 0; c < size; c++) {
+            int candidate = customers[c];
+            if(!this.isCellReachable(index.getCell(candidate), k, length)) {
+                continue;
+            }
+            this.insertionMark[candidate] = this.mark;
+            this.insertionPosition[candidate] = length;
+            this.insertionCost[candidate] = Double.MAX_VALUE;
+            this.tryInsertion(candidate, k, 0);
+            this.tryInsertion(candidate, k, length - 1);
+        }
+        // aristas junto a cada nodo de la ruta, para los clientes que lo tienen de vecino
+        int[] reverse = problem.getReverseNeighbors(), reverseStart = problem.getReverseNeighborStart();
+        for(int position = 1; position < length; position++) {
+            node = this.routeNodes[position];
+            for(int n = reverseStart[node]; n < reverseStart[node + 1]; n++) {
+                int candidate = reverse[n];
+                if(this.insertionMark[candidate] == this.mark) {
+                    this.tryInsertion(candidate, k, position - 1);
+                    this.tryInsertion(candidate, k, position);
+                }
+            }
+        }
+
+        for(int c = 0; c < size; c++) {
+            int candidate = customers[c];
+            if(this.insertionMark[candidate] == this.mark && this.insertionPosition[candidate] < length) {
+                this.insertionCache.set(candidate, k, this.routeNodes[this.insertionPosition[candidate]], this.insertionCost[candidate]);
+            } else {
+                this.insertionCache.set(candidate, k, TOPTWInsertionCache.NO_INSERTION, Double.MAX_VALUE);
+            }
+        }
+        this.insertionCache.setRouteValid(k);
+    }
+
+    /**
+     * Método que comprueba, una vez por celda y evaluación de ruta, si desde algún nodo
+     * de la ruta se llega a la celda antes de que cierre su última ventana y sin pasar
+     * del tiempo máximo por ruta.
+     * @param cell celda de la rejilla espacial
+     * @param k ruta, con sus nodos ya copiados en routeNodes
+     * @param length número de nodos de la ruta
+     * @return true si algún cliente de la celda puede insertarse en la ruta
+     */
+    private boolean isCellReachable(int cell, int k, int length) {
+        if(!this.spatialPruningEnabled) {
+            return true;
+        }
+        if(this.cellMark[cell] == this.mark) {
+            return this.cellReachable[cell];
+        }
+        TOPTW problem = this.solution.getProblem();
+        TOPTWSpatialIndex index = problem.getSpatialIndex();
+        int column = cell % index.getColumns(), row = cell / index.getColumns();
+        double maxArrival = Math.min(index.getMaxDueTime(cell), problem.getMaxTimePerRoute());
+        boolean reachable = false;
+        for(int i = 0; i < length && !reachable; i++) {
+            int node = this.routeNodes[i];
+            double limit = maxArrival - this.solution.getDepartureTime(k, node);
+            if(limit < 0.0) { // las salidas crecen a lo largo de la ruta
+                break;
+            }
+            reachable = index.isWithin(index.getGapX(column, problem.getX(node)), index.getGapY(row, problem.getY(node)), limit);
+        }
+        this.cellMark[cell] = this.mark;
+        this.cellReachable[cell] = reachable;
+        return reachable;
+    }
+
+    /**
+     * Método que prueba a insertar un cliente tras el nodo de una posición de la ruta y
+     * se queda con la inserción si mejora la mejor encontrada.
+     * @param candidate cliente
+     * @param k ruta
+     * @param position posición del predecesor en routeNodes
+     */
+    private void tryInsertion(int candidate, int k, int position) {
+        int pre = this.routeNodes[position];
+        if(!this.solution.mayInsert(candidate, k, pre)) {
+            return;
+        }
+        double costInsertion = this.solution.evaluateInsertion(candidate, k, pre);
+        if(costInsertion == Double.MAX_VALUE) {
+            return;
+        }
+        if(costInsertion < this.insertionCost[candidate]
+                || (costInsertion == this.insertionCost[candidate] && position < this.insertionPosition[candidate])) { // predecesor, coste
+            this.insertionCost[candidate] = costInsertion;
+            this.insertionPosition[candidate] = position;
+        }
+    }
+
+    /**
+     * Método que invalida la caché de inserciones. Debe llamarse si la solución se
+     * modifica fuera de computeGreedySolution/updateSolution.
+     */
+    public void invalidateInsertionCache() {
+        if(this.insertionCache != null) {
+            this.insertionCache.invalidateAll();
+        }
+    }
+
+
+    /**
+     * Método getSolution
+     * @return
+     */
+    public TOPTWSolution getSolution() {
+        return solution;
+    }
+
+    /**
+     * Método setSolution
+     * @param solution
+     */
+    public void setSolution(TOPTWSolution solution) {
+        this.solution = solution;
+        this.invalidateInsertionCache();
+        this.localSearch = null;
+        this.pathRelinking = null;
+    }
+
+    /**
+     * Método getSolutionTime. Tiempo máximo del GRASP en milisegundos; 0 sin límite.
+     * @return solutionTime
+     */
+    public int getSolutionTime() {
+        return solutionTime;
+    }
+
+    /**
+     * Método setSolutionTime. Fija el tiempo máximo del GRASP en milisegundos; 0 sin límite.
+     * @param solutionTime
+     */
+    public void setSolutionTime(int solutionTime) {
+        this.solutionTime = solutionTime;
+    }
+
+    /**
+     * Método que devuelve las iteraciones hechas en el último GRASP
+     * @return iteraciones
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Método que devuelve la duración del último GRASP
+     * @return milisegundos
+     */
+    public double getElapsedTime() {
+        return this.elapsedTime;
+    }
+
+    /**
+     * Método que devuelve las iteraciones por segundo del último GRASP
+     * @return iteraciones por segundo
+     */
+    public double getIterationsPerSecond() {
+        return this.elapsedTime > 0.0 ? this.iterations * 1000.0 / this.elapsedTime : 0.0;
+    }
+
+    /**
+     * Método setSeed. Fija la semilla base; la iteración i de GRASP usa seed + i,
+     * lo que hace las ejecuciones reproducibles.
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.random.setSeed(seed);
+    }
+
+    /**
+     * Método getSeed
+     * @return semilla base
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Método setRandomSource. Cambia la fuente aleatoria de la selección en la RCL.
+     * @param random
+     */
+    public void setRandomSource(TOPTWRandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * Método getRandomSource
+     * @return fuente aleatoria
+     */
+    public TOPTWRandomSource getRandomSource() {
+        return random;
+    }
+
+    /**
+     * Método setLocalSearchEnabled. Activa o desactiva la búsqueda local tras cada construcción.
+     * @param localSearchEnabled
+     */
+    public void setLocalSearchEnabled(boolean localSearchEnabled) {
+        this.localSearchEnabled = localSearchEnabled;
+    }
+
+    /**
+     * Método setDuplicateDetection. Activa o desactiva que no se repita la búsqueda local
+     * sobre construcciones ya vistas en la misma ejecución; sin efecto con conjunto elite.
+     * @param duplicateDetection
+     */
+    public void setDuplicateDetection(boolean duplicateDetection) {
+        this.duplicateDetection = duplicateDetection;
+    }
+
+    /**
+     * Método isDuplicateDetectionEnabled
+     * @return true si se saltan las construcciones repetidas
+     */
+    public boolean isDuplicateDetectionEnabled() {
+        return duplicateDetection;
+    }
+
+    /**
+     * Método getDuplicates
+     * @return construcciones repetidas saltadas en la última ejecución de GRASP
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Método isLocalSearchEnabled
+     * @return true si se aplica la búsqueda local
+     */
+    public boolean isLocalSearchEnabled() {
+        return localSearchEnabled;
+    }
+
+    /**
+     * Método setSpatialPruningEnabled. Activa o desactiva la poda por celdas de la rejilla
+     * espacial al evaluar las inserciones; las inserciones elegidas son las mismas.
+     * @param spatialPruningEnabled
+     */
+    public void setSpatialPruningEnabled(boolean spatialPruningEnabled) {
+        this.spatialPruningEnabled = spatialPruningEnabled;
+    }
+
+    /**
+     * Método isSpatialPruningEnabled
+     * @return true si se descartan las celdas inalcanzables
+     */
+    public boolean isSpatialPruningEnabled() {
+        return this.spatialPruningEnabled;
+    }
+
+    /**
+     * Método setSelection. Fija el criterio de selección de la RCL: SELECTION_RANDOM,
+     * SELECTION_FUZZY_BEST o SELECTION_FUZZY_ALPHA_CUT (por defecto). El alpha solo lo
+     * usa el corte alpha, también en el GRASP reactivo.
+     * @param selection
+     */
+    public void setSelection(int selection) {
+        if(selection < SELECTION_RANDOM || selection > SELECTION_FUZZY_ALPHA_CUT) {
+            throw new IllegalArgumentException("Criterio de selección desconocido: " + selection);
+        }
+        this.selection = selection;
+    }
+
+    /**
+     * Método getSelection
+     * @return criterio de selección de la RCL
+     */
+    public int getSelection() {
+        return this.selection;
+    }
+
+    /**
+     * Método getBestFitness
+     * @return mejor fitness de la última ejecución de GRASP
+     */
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    /**
+     * Método getAverageFitness
+     * @return fitness media de la última ejecución de GRASP
+     */
+    public double getAverageFitness() {
+        return averageFitness;
+    }
+
+    /**
+     * Método getMaxScore. Calculado una sola vez por instancia en TOPTW.
+     * @return maxSc
+     */
+    public double getMaxScore() {
+        return this.solution.getProblem().getMaxScore();
+    }
+
+}
+
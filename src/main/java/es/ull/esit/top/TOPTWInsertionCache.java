@@ -0,0 +1,126 @@
+package es.ull.esit.top;
+
+import java.util.Arrays;
+
+/**
+ * Caché de costes de inserción para la construcción greedy.
+ * Guarda, para cada par (cliente, ruta), el mejor predecesor tras el que insertar
+ * el cliente y el coste de dicha inserción. Solo se invalidan las entradas de la
+ * ruta que se modifica, el resto de rutas conservan su mejor inserción. Cada ruta
+ * se evalúa de una vez para todos los clientes pendientes (ver isRouteValid).
+ */
+public class TOPTWInsertionCache {
+    public static final int NO_INSERTION = -1;
+
+    private int customers;
+    private int routes;
+    private double[] cost;
+    private int[] predecessor;
+    private boolean[] valid;
+    private boolean[] routeValid;
+
+    /**
+     * Constructor de la clase TOPTWInsertionCache.
+     * @param customers Número de clientes del problema.
+     * @param routes Número máximo de rutas.
+     */
+    public TOPTWInsertionCache(int customers, int routes) {
+        this.customers = customers;
+        this.routes = routes;
+        this.cost = new double[(customers + 1) * routes];
+        this.predecessor = new int[(customers + 1) * routes];
+        this.valid = new boolean[(customers + 1) * routes];
+        this.routeValid = new boolean[routes];
+        this.invalidateAll();
+    }
+
+    /**
+     * Método que comprueba si la caché sirve para un problema.
+     * @param customers Número de clientes.
+     * @param routes Número de rutas.
+     * @return true si las dimensiones coinciden.
+     */
+    public boolean fits(int customers, int routes) {
+        return this.customers == customers && this.routes == routes;
+    }
+
+    /**
+     * Método que invalida todas las entradas de la caché.
+     */
+    public void invalidateAll() {
+        Arrays.fill(this.valid, false);
+        Arrays.fill(this.routeValid, false);
+    }
+
+    /**
+     * Método que invalida las entradas de una ruta.
+     * @param route Ruta modificada.
+     */
+    public void invalidateRoute(int route) {
+        for (int c = 0; c <= this.customers; c++) {
+            this.valid[c * this.routes + route] = false;
+        }
+        this.routeValid[route] = false;
+    }
+
+    /**
+     * Método que comprueba si una ruta se ha evaluado desde su última modificación.
+     * @param route Ruta.
+     * @return true si las entradas de la ruta están calculadas.
+     */
+    public boolean isRouteValid(int route) {
+        return this.routeValid[route];
+    }
+
+    /**
+     * Método que marca una ruta como evaluada.
+     * @param route Ruta.
+     */
+    public void setRouteValid(int route) {
+        this.routeValid[route] = true;
+    }
+
+    /**
+     * Método que comprueba si la entrada (cliente, ruta) está calculada.
+     * @param customer Cliente.
+     * @param route Ruta.
+     * @return true si la entrada es válida.
+     */
+    public boolean isValid(int customer, int route) {
+        return this.valid[customer * this.routes + route];
+    }
+
+    /**
+     * Método que guarda la mejor inserción de un cliente en una ruta.
+     * @param customer Cliente.
+     * @param route Ruta.
+     * @param predecessor Predecesor tras el que se inserta, o NO_INSERTION si no es factible.
+     * @param cost Coste de la inserción.
+     */
+    public void set(int customer, int route, int predecessor, double cost) {
+        int index = customer * this.routes + route;
+        this.predecessor[index] = predecessor;
+        this.cost[index] = cost;
+        this.valid[index] = true;
+    }
+
+    /**
+     * Método que devuelve el predecesor de la mejor inserción.
+     * @param customer Cliente.
+     * @param route Ruta.
+     * @return Predecesor o NO_INSERTION.
+     */
+    public int getPredecessor(int customer, int route) {
+        return this.predecessor[customer * this.routes + route];
+    }
+
+    /**
+     * Método que devuelve el coste de la mejor inserción.
+     * @param customer Cliente.
+     * @param route Ruta.
+     * @return Coste de la inserción.
+     */
+    public double getCost(int customer, int route) {
+        return this.cost[customer * this.routes + route];
+    }
+}
@@ -0,0 +1,345 @@
+package es.ull.esit.top;
+
+import java.util.Arrays;
+
+/**
+ * Búsqueda local para las soluciones construidas por el GRASP. Trabaja directamente
+ * sobre los arrays de predecesores y sucesores de TOPTWSolution con tres movimientos:
+ * 2-opt dentro de una ruta, relocate y swap entre rutas, e inserción de POIs no
+ * visitados. Los dos primeros acortan las rutas para liberar tiempo; la inserción
+ * aprovecha ese tiempo para sumar score. Los movimientos se evalúan por diferencia
+ * con las holguras de la solución y solo se recalcula la ruta que cambia.
+ * Como en la construcción, el vecindario es granular: un cliente solo se coloca justo
+ * antes o después de uno de sus vecinos de TOPTW o junto al depósito, y 2-opt solo
+ * crea la arista que une el nodo anterior al tramo con un vecino suyo.
+ */
+public class TOPTWLocalSearch {
+    public static final double EPSILON = 1e-9;
+
+    private TOPTWSolution solution;
+    private int[] sequence;
+    private boolean[] servable;
+    private int[] neighborMark;
+
+    /**
+     * Constructor de la clase TOPTWLocalSearch.
+     * @param solution Solución sobre la que se busca.
+     */
+    public TOPTWLocalSearch(TOPTWSolution solution) {
+        this.solution = solution;
+        TOPTW problem = solution.getProblem();
+        this.sequence = new int[problem.getPOIs() + 2];
+        // POIs que caben en una ruta ellos solos; el resto nunca podrá insertarse
+        this.servable = new boolean[problem.getPOIs() + 1];
+        this.neighborMark = new int[problem.getPOIs() + 1];
+        for(int c = 1; c <= problem.getPOIs(); c++) {
+            double departure = solution.getDeparture(c, problem.getDistance(0, c));
+            this.servable[c] = departure != Double.MAX_VALUE
+                    && solution.getDeparture(0, departure + problem.getDistance(c, 0)) != Double.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Método que aplica la búsqueda local hasta que ningún movimiento mejora.
+     * @return incremento del score de la solución.
+     */
+    public double run() {
+        Arrays.fill(this.neighborMark, TOPTWSolution.NO_INITIALIZED);
+        double gain = 0.0;
+        boolean improved = true;
+        while(improved) {
+            double inserted = this.insertUnvisited();
+            gain += inserted;
+            improved = inserted > 0.0;
+            // acortar rutas solo sirve si queda algún POI por visitar
+            if(this.hasUnvisited() && (this.twoOpt() || this.relocate() || this.swap())) {
+                improved = true;
+            }
+        }
+        return gain;
+    }
+
+    /**
+     * Método que comprueba si queda algún POI sin visitar que pueda llegar a insertarse.
+     * @return true si hay algún POI servible fuera de las rutas.
+     */
+    private boolean hasUnvisited() {
+        for(int c = 1; c <= this.solution.getProblem().getPOIs(); c++) {
+            if(this.servable[c] && this.solution.getPredecessor(c) == TOPTWSolution.NO_INITIALIZED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método que inserta POIs no visitados mientras quepa alguno, empezando por el de
+     * mayor score y, a igualdad, por el que menos retrasa el fin de su ruta.
+     * @return score añadido.
+     */
+    public double insertUnvisited() {
+        TOPTW problem = this.solution.getProblem();
+        double gain = 0.0;
+        boolean inserted = true;
+        while(inserted) {
+            inserted = false;
+            int bestCustomer = -1, bestRoute = -1, bestPre = -1;
+            double bestScore = -1.0, bestIncrease = Double.MAX_VALUE;
+            for(int c = 1; c <= problem.getPOIs(); c++) {
+                if(!this.servable[c] || this.solution.getPredecessor(c) != TOPTWSolution.NO_INITIALIZED || problem.getScore(c) < bestScore) {
+                    continue;
+                }
+                this.markNeighbors(c);
+                for(int k = 0; k < this.solution.getCreatedRoutes(); k++) {
+                    int depot = this.solution.getIndexRoute(k);
+                    int pre = depot;
+                    do {
+                        double end = this.isGranular(c, pre, this.solution.getSuccessor(pre)) ? this.solution.evaluateInsertion(c, k, pre) : Double.MAX_VALUE;
+                        if(end != Double.MAX_VALUE) {
+                            double increase = end - this.solution.getRouteEndTime(k);
+                            if(problem.getScore(c) > bestScore || increase < bestIncrease) {
+                                bestCustomer = c; bestRoute = k; bestPre = pre;
+                                bestScore = problem.getScore(c); bestIncrease = increase;
+                            }
+                        }
+                        pre = this.solution.getSuccessor(pre);
+                    } while(pre != depot);
+                }
+            }
+            if(bestCustomer != -1) {
+                this.link(bestCustomer, bestPre);
+                this.solution.updateRoute(bestRoute);
+                gain += bestScore;
+                inserted = true;
+            }
+        }
+        return gain;
+    }
+
+    /**
+     * Método 2-opt: invierte el tramo de ruta entre dos clientes si la ruta termina antes
+     * y sigue siendo factible. Aplica la primera mejora encontrada.
+     * @return true si se ha aplicado un movimiento.
+     */
+    public boolean twoOpt() {
+        for(int k = 0; k < this.solution.getCreatedRoutes(); k++) {
+            int depot = this.solution.getIndexRoute(k);
+            int length = this.loadSequence(depot);
+            double currentEnd = this.solution.getRouteEndTime(k);
+            // sequence[0] y sequence[length-1] son el depósito
+            for(int i = 1; i < length - 2; i++) {
+                int before = this.sequence[i - 1];
+                if(!this.solution.isDepot(before)) {
+                    this.markNeighbors(before);
+                }
+                for(int j = i + 1; j < length - 1; j++) {
+                    if(!this.solution.isDepot(before) && this.neighborMark[this.sequence[j]] != before) {
+                        continue;
+                    }
+                    // tramo invertido: sequence[j], sequence[j-1], ..., sequence[i]
+                    double time = this.solution.getDepartureTime(k, before);
+                    int pre = before;
+                    for(int p = j; p >= i && time != Double.MAX_VALUE; p--) {
+                        time = this.solution.getDeparture(this.sequence[p], time + this.solution.getDistance(pre, this.sequence[p]));
+                        pre = this.sequence[p];
+                    }
+                    if(time == Double.MAX_VALUE) {
+                        continue;
+                    }
+                    int after = this.sequence[j + 1];
+                    double end = this.solution.getRouteEndTime(k, after, time + this.solution.getDistance(pre, after));
+                    if(end < currentEnd - EPSILON) {
+                        for(int p = i; p <= j; p++) {
+                            int node = this.sequence[p];
+                            this.solution.setPredecessor(node, p == j ? before : this.sequence[p + 1]);
+                            this.solution.setSuccessor(node, p == i ? after : this.sequence[p - 1]);
+                        }
+                        this.solution.setSuccessor(before, this.sequence[j]);
+                        this.solution.setPredecessor(after, this.sequence[i]);
+                        this.solution.updateRoute(k);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método relocate: mueve un cliente a otra ruta si la suma de los fines de ambas
+     * rutas disminuye. Aplica la primera mejora encontrada.
+     * @return true si se ha aplicado un movimiento.
+     */
+    public boolean relocate() {
+        int routes = this.solution.getCreatedRoutes();
+        for(int a = 0; a < routes; a++) {
+            int depotA = this.solution.getIndexRoute(a);
+            for(int u = this.solution.getSuccessor(depotA); u != depotA; u = this.solution.getSuccessor(u)) {
+                int pu = this.solution.getPredecessor(u), su = this.solution.getSuccessor(u);
+                double endA = this.solution.getRouteEndTime(a, su, this.solution.getDepartureTime(a, pu) + this.solution.getDistance(pu, su));
+                if(endA == Double.MAX_VALUE) {
+                    continue;
+                }
+                this.markNeighbors(u);
+                for(int b = 0; b < routes; b++) {
+                    if(b == a) {
+                        continue;
+                    }
+                    int depotB = this.solution.getIndexRoute(b);
+                    double before = this.solution.getRouteEndTime(a) + this.solution.getRouteEndTime(b);
+                    int pre = depotB;
+                    do {
+                        double endB = this.isGranular(u, pre, this.solution.getSuccessor(pre)) ? this.solution.evaluateInsertion(u, b, pre) : Double.MAX_VALUE;
+                        if(endB != Double.MAX_VALUE && endA + endB < before - EPSILON) {
+                            this.unlink(u);
+                            this.link(u, pre);
+                            this.solution.updateRoute(a);
+                            this.solution.updateRoute(b);
+                            return true;
+                        }
+                        pre = this.solution.getSuccessor(pre);
+                    } while(pre != depotB);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método swap: intercambia dos clientes de rutas distintas si la suma de los fines
+     * de ambas rutas disminuye. Aplica la primera mejora encontrada.
+     * @return true si se ha aplicado un movimiento.
+     */
+    public boolean swap() {
+        int routes = this.solution.getCreatedRoutes();
+        for(int a = 0; a < routes; a++) {
+            int depotA = this.solution.getIndexRoute(a);
+            for(int u = this.solution.getSuccessor(depotA); u != depotA; u = this.solution.getSuccessor(u)) {
+                int pu = this.solution.getPredecessor(u), su = this.solution.getSuccessor(u);
+                this.markNeighbors(u);
+                for(int b = a + 1; b < routes; b++) {
+                    int depotB = this.solution.getIndexRoute(b);
+                    double before = this.solution.getRouteEndTime(a) + this.solution.getRouteEndTime(b);
+                    for(int v = this.solution.getSuccessor(depotB); v != depotB; v = this.solution.getSuccessor(v)) {
+                        int pv = this.solution.getPredecessor(v), sv = this.solution.getSuccessor(v);
+                        if(!this.isGranular(u, pv, sv) || !this.isNeighborPosition(v, pu, su)) {
+                            continue;
+                        }
+                        double endA = this.replacementEndTime(a, pu, v, su);
+                        if(endA == Double.MAX_VALUE) {
+                            continue;
+                        }
+                        double endB = this.replacementEndTime(b, pv, u, sv);
+                        if(endB != Double.MAX_VALUE && endA + endB < before - EPSILON) {
+                            this.unlink(u);
+                            this.unlink(v);
+                            this.link(v, pu);
+                            this.link(u, pv);
+                            this.solution.updateRoute(a);
+                            this.solution.updateRoute(b);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método que marca los vecinos de un cliente para consultarlos con isGranular.
+     * @param customer Cliente.
+     */
+    private void markNeighbors(int customer) {
+        TOPTW problem = this.solution.getProblem();
+        int[] neighbors = problem.getNeighbors(), neighborStart = problem.getNeighborStart();
+        for(int n = neighborStart[customer]; n < neighborStart[customer + 1]; n++) {
+            this.neighborMark[neighbors[n]] = customer;
+        }
+    }
+
+    /**
+     * Método que comprueba si un cliente puede ir entre dos nodos según el vecindario
+     * granular: alguno de los dos es el depósito o un vecino del cliente. Los vecinos
+     * del cliente deben estar marcados con markNeighbors.
+     * @param customer Cliente.
+     * @param pre Nodo anterior.
+     * @param suc Nodo siguiente.
+     * @return true si la posición entra en el vecindario.
+     */
+    private boolean isGranular(int customer, int pre, int suc) {
+        return this.solution.isDepot(pre) || this.solution.isDepot(suc)
+                || this.neighborMark[pre] == customer || this.neighborMark[suc] == customer;
+    }
+
+    /**
+     * Método como isGranular que consulta directamente la lista de vecinos del cliente,
+     * para cuando sus vecinos no están marcados.
+     * @param customer Cliente.
+     * @param pre Nodo anterior.
+     * @param suc Nodo siguiente.
+     * @return true si la posición entra en el vecindario.
+     */
+    private boolean isNeighborPosition(int customer, int pre, int suc) {
+        TOPTW problem = this.solution.getProblem();
+        return this.solution.isDepot(pre) || this.solution.isDepot(suc)
+                || problem.isNeighbor(customer, pre) || problem.isNeighbor(customer, suc);
+    }
+
+    /**
+     * Método que calcula el fin de una ruta si el nodo entre pre y suc se sustituye por otro.
+     * @param route Ruta.
+     * @param pre Predecesor del nodo sustituido.
+     * @param node Nodo que entra.
+     * @param suc Sucesor del nodo sustituido.
+     * @return fin de la ruta, o Double.MAX_VALUE si no es factible.
+     */
+    private double replacementEndTime(int route, int pre, int node, int suc) {
+        double departure = this.solution.getDeparture(node, this.solution.getDepartureTime(route, pre) + this.solution.getDistance(pre, node));
+        if(departure == Double.MAX_VALUE) {
+            return Double.MAX_VALUE;
+        }
+        return this.solution.getRouteEndTime(route, suc, departure + this.solution.getDistance(node, suc));
+    }
+
+    /**
+     * Método que enlaza un cliente tras un predecesor.
+     * @param customer Cliente.
+     * @param pre Predecesor.
+     */
+    private void link(int customer, int pre) {
+        int suc = this.solution.getSuccessor(pre);
+        this.solution.setPredecessor(customer, pre);
+        this.solution.setSuccessor(customer, suc);
+        this.solution.setSuccessor(pre, customer);
+        this.solution.setPredecessor(suc, customer);
+    }
+
+    /**
+     * Método que saca un cliente de su ruta.
+     * @param customer Cliente.
+     */
+    private void unlink(int customer) {
+        int pre = this.solution.getPredecessor(customer), suc = this.solution.getSuccessor(customer);
+        this.solution.setSuccessor(pre, suc);
+        this.solution.setPredecessor(suc, pre);
+        this.solution.setPredecessor(customer, TOPTWSolution.NO_INITIALIZED);
+        this.solution.setSuccessor(customer, TOPTWSolution.NO_INITIALIZED);
+    }
+
+    /**
+     * Método que copia en sequence los nodos de una ruta, con el depósito al principio y al final.
+     * @param depot Depósito de la ruta.
+     * @return número de posiciones ocupadas.
+     */
+    private int loadSequence(int depot) {
+        int length = 0;
+        int node = depot;
+        do {
+            this.sequence[length++] = node;
+            node = this.solution.getSuccessor(node);
+        } while(node != depot);
+        this.sequence[length++] = depot;
+        return length;
+    }
+}
@@ -0,0 +1,34 @@
+package es.ull.esit.top;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Matriz de distancias plana, por filas, leída directamente de un fichero binario
+ * proyectado en memoria. No se copia al heap: cada consulta lee del buffer.
+ */
+public class TOPTWMappedDistances implements TOPTWDistances {
+    private DoubleBuffer distances;
+    private int size;
+
+    /**
+     * Constructor de la clase TOPTWMappedDistances.
+     * @param distances Buffer con size * size distancias por filas.
+     * @param size Número de nodos.
+     */
+    public TOPTWMappedDistances(DoubleBuffer distances, int size) {
+        this.distances = distances;
+        this.size = size;
+    }
+
+    /**
+     * Método vacío: la matriz ya viene calculada en el fichero.
+     */
+    @Override
+    public void calculate() {
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        return this.distances.get(i * this.size + j);
+    }
+}
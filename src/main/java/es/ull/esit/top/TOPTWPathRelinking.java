@@ -0,0 +1,250 @@
+package es.ull.esit.top;
+
+/**
+ * Path relinking desde una solución hacia una solución guía del conjunto elite. En
+ * cada paso entra un cliente de la guía que falta en la solución, justo después de su
+ * predecesor o justo antes de su sucesor en la guía, insertándolo o sustituyendo a un
+ * vecino que no está en la guía; se elige el paso que más aumenta (o menos reduce) el
+ * score. Si ninguno es factible, se quita el cliente que no está en la guía que más
+ * acorta su ruta por unidad de score. Los pasos se evalúan por diferencia con las
+ * holguras de la solución y la fitness se lee de la propia solución, sin recorrerla.
+ * Al terminar la solución queda en el mejor punto del camino.
+ */
+public class TOPTWPathRelinking {
+    public static final double EPSILON = 1e-9;
+
+    private TOPTWSolution solution;
+    private TOPTWSolution best;
+    private boolean[] inGuide;
+    private int bestCustomer;
+    private int bestRoute;
+    private int bestPre;
+    private int bestReplaced;
+    private double bestDelta;
+    private double bestIncrease;
+    private int steps;
+
+    /**
+     * Constructor de la clase TOPTWPathRelinking.
+     * @param solution Solución de partida, que se modifica en cada relink.
+     */
+    public TOPTWPathRelinking(TOPTWSolution solution) {
+        this.solution = solution;
+        this.best = new TOPTWSolution(solution.getProblem());
+        this.inGuide = new boolean[solution.getProblem().getPOIs() + 1];
+        this.steps = 0;
+    }
+
+    /**
+     * Método que devuelve los pasos dados en el último relink.
+     * @return número de pasos.
+     */
+    public int getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * Método que recorre el camino desde la solución hasta la guía y deja en la
+     * solución la de mayor fitness encontrada, que puede ser la de partida.
+     * @param guide Solución guía del mismo problema.
+     * @return incremento de fitness respecto a la solución de partida.
+     */
+    public double relink(TOPTWSolution guide) {
+        if(guide.getProblem() != this.solution.getProblem()) {
+            throw new IllegalArgumentException("La guía no es del mismo problema");
+        }
+        TOPTW problem = this.solution.getProblem();
+        for(int c = 1; c <= problem.getPOIs(); c++) {
+            this.inGuide[c] = guide.getPredecessor(c) != TOPTWSolution.NO_INITIALIZED;
+        }
+        double initialFitness = this.solution.evaluateFitness(), bestFitness = initialFitness;
+        this.solution.copyInto(this.best);
+        this.steps = 0;
+        while(true) {
+            if(this.findInsertion(guide)) {
+                if(this.bestReplaced != -1) {
+                    this.unlink(this.bestReplaced);
+                }
+                this.link(this.bestCustomer, this.bestPre);
+                this.solution.updateRoute(this.bestRoute);
+            } else if(!this.removeOutsideGuide()) {
+                break;
+            }
+            this.steps++;
+            double fitness = this.solution.evaluateFitness();
+            if(fitness > bestFitness + EPSILON) {
+                bestFitness = fitness;
+                this.solution.copyInto(this.best);
+            }
+        }
+        this.solution.restoreFrom(this.best);
+        return bestFitness - initialFitness;
+    }
+
+    /**
+     * Método que busca el mejor paso que mete en la solución un cliente de la guía junto
+     * a su predecesor o su sucesor de la guía: el de mayor incremento de score y, a
+     * igualdad, el que menos retrasa el fin de su ruta. Deja el resultado en bestCustomer,
+     * bestRoute, bestPre y bestReplaced.
+     * @param guide Solución guía.
+     * @return true si se ha encontrado algún paso factible.
+     */
+    private boolean findInsertion(TOPTWSolution guide) {
+        TOPTW problem = this.solution.getProblem();
+        this.bestCustomer = -1;
+        this.bestDelta = -Double.MAX_VALUE;
+        this.bestIncrease = Double.MAX_VALUE;
+        for(int c = 1; c <= problem.getPOIs(); c++) {
+            // el incremento de score nunca supera el score del cliente
+            if(!this.inGuide[c] || this.solution.getPredecessor(c) != TOPTWSolution.NO_INITIALIZED || problem.getScore(c) < this.bestDelta) {
+                continue;
+            }
+            int pre = guide.getPredecessor(c), suc = guide.getSuccessor(c);
+            if(this.solution.isDepot(pre) || this.solution.isDepot(suc)) {
+                // junto al depósito: al principio o al final de cualquier ruta
+                for(int k = 0; k < this.solution.getCreatedRoutes(); k++) {
+                    int depot = this.solution.getIndexRoute(k);
+                    if(this.solution.isDepot(pre)) {
+                        this.tryInsertion(c, k, depot);
+                    }
+                    if(this.solution.isDepot(suc)) {
+                        this.tryInsertion(c, k, this.solution.getPredecessor(depot));
+                    }
+                }
+            }
+            if(!this.solution.isDepot(pre) && this.solution.getRoute(pre) != TOPTWSolution.NO_INITIALIZED) {
+                this.tryInsertion(c, this.solution.getRoute(pre), pre);
+            }
+            if(!this.solution.isDepot(suc) && this.solution.getRoute(suc) != TOPTWSolution.NO_INITIALIZED) {
+                this.tryInsertion(c, this.solution.getRoute(suc), this.solution.getPredecessor(suc));
+            }
+        }
+        return this.bestCustomer != -1;
+    }
+
+    /**
+     * Método que evalúa los pasos que meten un cliente tras pre: insertarlo, o
+     * sustituir por él a pre o a su sucesor si no están en la guía. Guarda el mejor.
+     * @param customer Cliente.
+     * @param route Ruta de pre.
+     * @param pre Predecesor.
+     */
+    private void tryInsertion(int customer, int route, int pre) {
+        TOPTW problem = this.solution.getProblem();
+        double score = problem.getScore(customer);
+        int suc = this.solution.getSuccessor(pre);
+        if(this.solution.mayInsert(customer, route, pre)) {
+            this.tryStep(customer, route, pre, -1, score, this.solution.evaluateInsertion(customer, route, pre));
+        }
+        if(!this.solution.isDepot(pre) && !this.inGuide[pre]) {
+            int before = this.solution.getPredecessor(pre);
+            this.tryStep(customer, route, before, pre, score - problem.getScore(pre),
+                    this.replacementEndTime(route, before, customer, suc));
+        }
+        if(!this.solution.isDepot(suc) && !this.inGuide[suc]) {
+            this.tryStep(customer, route, pre, suc, score - problem.getScore(suc),
+                    this.replacementEndTime(route, pre, customer, this.solution.getSuccessor(suc)));
+        }
+    }
+
+    /**
+     * Método que guarda un paso si es factible y mejor que el mejor encontrado.
+     * @param customer Cliente que entra.
+     * @param route Ruta.
+     * @param pre Nodo tras el que entra, una vez quitado replaced.
+     * @param replaced Cliente que sale, o -1.
+     * @param delta Incremento de score.
+     * @param end Fin de la ruta tras el paso, o Double.MAX_VALUE si no es factible.
+     */
+    private void tryStep(int customer, int route, int pre, int replaced, double delta, double end) {
+        if(end == Double.MAX_VALUE) {
+            return;
+        }
+        double increase = end - this.solution.getRouteEndTime(route);
+        if(delta > this.bestDelta || (delta == this.bestDelta && increase < this.bestIncrease)) {
+            this.bestCustomer = customer;
+            this.bestRoute = route;
+            this.bestPre = pre;
+            this.bestReplaced = replaced;
+            this.bestDelta = delta;
+            this.bestIncrease = increase;
+        }
+    }
+
+    /**
+     * Método que calcula el fin de una ruta si el nodo entre pre y suc se sustituye por otro.
+     * @param route Ruta.
+     * @param pre Predecesor del nodo sustituido.
+     * @param node Nodo que entra.
+     * @param suc Sucesor del nodo sustituido.
+     * @return fin de la ruta, o Double.MAX_VALUE si no es factible.
+     */
+    private double replacementEndTime(int route, int pre, int node, int suc) {
+        double departure = this.solution.getDeparture(node, this.solution.getDepartureTime(route, pre) + this.solution.getDistance(pre, node));
+        if(departure == Double.MAX_VALUE) {
+            return Double.MAX_VALUE;
+        }
+        return this.solution.getRouteEndTime(route, suc, departure + this.solution.getDistance(node, suc));
+    }
+
+    /**
+     * Método que quita de la solución el cliente que no está en la guía cuya salida más
+     * acorta su ruta por unidad de score.
+     * @return true si se ha quitado algún cliente.
+     */
+    private boolean removeOutsideGuide() {
+        TOPTW problem = this.solution.getProblem();
+        int removed = -1, removedRoute = -1;
+        double bestRatio = -Double.MAX_VALUE;
+        for(int k = 0; k < this.solution.getCreatedRoutes(); k++) {
+            int depot = this.solution.getIndexRoute(k);
+            for(int u = this.solution.getSuccessor(depot); u != depot; u = this.solution.getSuccessor(u)) {
+                if(this.inGuide[u]) {
+                    continue;
+                }
+                int pu = this.solution.getPredecessor(u), su = this.solution.getSuccessor(u);
+                double end = this.solution.getRouteEndTime(k, su, this.solution.getDepartureTime(k, pu) + this.solution.getDistance(pu, su));
+                if(end == Double.MAX_VALUE) {
+                    continue;
+                }
+                double ratio = (this.solution.getRouteEndTime(k) - end) / Math.max(problem.getScore(u), EPSILON);
+                if(ratio > bestRatio) {
+                    removed = u;
+                    removedRoute = k;
+                    bestRatio = ratio;
+                }
+            }
+        }
+        if(removed == -1) {
+            return false;
+        }
+        this.unlink(removed);
+        this.solution.updateRoute(removedRoute);
+        return true;
+    }
+
+    /**
+     * Método que enlaza un cliente tras un predecesor.
+     * @param customer Cliente.
+     * @param pre Predecesor.
+     */
+    private void link(int customer, int pre) {
+        int suc = this.solution.getSuccessor(pre);
+        this.solution.setPredecessor(customer, pre);
+        this.solution.setSuccessor(customer, suc);
+        this.solution.setSuccessor(pre, customer);
+        this.solution.setPredecessor(suc, customer);
+    }
+
+    /**
+     * Método que saca un cliente de su ruta.
+     * @param customer Cliente.
+     */
+    private void unlink(int customer) {
+        int pre = this.solution.getPredecessor(customer), suc = this.solution.getSuccessor(customer);
+        this.solution.setSuccessor(pre, suc);
+        this.solution.setPredecessor(suc, pre);
+        this.solution.setPredecessor(customer, TOPTWSolution.NO_INITIALIZED);
+        this.solution.setSuccessor(customer, TOPTWSolution.NO_INITIALIZED);
+    }
+}
@@ -0,0 +1,33 @@
+package es.ull.esit.top;
+
+/**
+ * Fuente de números aleatorios usada por el GRASP para elegir candidatos de la RCL.
+ * Cada instancia la usa un único hilo.
+ */
+public interface TOPTWRandomSource {
+
+    /**
+     * Método que reinicia la secuencia a partir de una semilla.
+     * @param seed Semilla.
+     */
+    void setSeed(long seed);
+
+    /**
+     * Método que devuelve un entero uniforme en [0, bound).
+     * @param bound Límite superior (exclusivo), positivo.
+     * @return entero aleatorio.
+     */
+    int nextInt(int bound);
+
+    /**
+     * Método que devuelve un real uniforme en [0, 1).
+     * @return real aleatorio.
+     */
+    double nextDouble();
+
+    /**
+     * Método que crea una fuente independiente del mismo tipo para otro hilo.
+     * @return nueva fuente aleatoria.
+     */
+    TOPTWRandomSource copy();
+}
@@ -0,0 +1,177 @@
+package es.ull.esit.top;
+
+/**
+ * Parámetros del GRASP reactivo. Cada opción es un par (tamaño de RCL, alpha) y
+ * tiene una probabilidad de ser elegida en cada iteración. Se acumula la fitness
+ * media de cada opción y cada block iteraciones las probabilidades se recalculan
+ * como q = (media / mejor)^delta normalizado, de modo que las opciones que dan
+ * mejores soluciones se eligen más a menudo.
+ */
+public class TOPTWReactive {
+    public static final double[] DEFAULT_ALPHAS = {0.6, 0.8, 1.0};
+    public static final int DEFAULT_BLOCK = 100;
+    public static final double DEFAULT_DELTA = 10.0;
+
+    private int[] rclSizes;
+    private double[] alphas;
+    private int block;
+    private double delta;
+    private double[] probability;
+    private double[] sumFitness;
+    private int[] count;
+    private double bestFitness;
+    private int iterations;
+
+    /**
+     * Constructor de la clase TOPTWReactive con los valores por defecto de alpha,
+     * bloque y delta.
+     * @param rclSizes Tamaños de RCL.
+     */
+    public TOPTWReactive(int[] rclSizes) {
+        this(rclSizes, DEFAULT_ALPHAS, DEFAULT_BLOCK, DEFAULT_DELTA);
+    }
+
+    /**
+     * Constructor de la clase TOPTWReactive.
+     * @param rclSizes Tamaños de RCL.
+     * @param alphas Valores de alpha del corte fuzzy.
+     * @param block Iteraciones entre recálculos de las probabilidades.
+     * @param delta Exponente que acentúa las diferencias entre opciones.
+     */
+    public TOPTWReactive(int[] rclSizes, double[] alphas, int block, double delta) {
+        if(rclSizes.length == 0 || alphas.length == 0 || block < 1) {
+            throw new IllegalArgumentException("El GRASP reactivo necesita al menos una opción y un bloque positivo");
+        }
+        this.rclSizes = rclSizes;
+        this.alphas = alphas;
+        this.block = block;
+        this.delta = delta;
+        int options = rclSizes.length * alphas.length;
+        this.probability = new double[options];
+        this.sumFitness = new double[options];
+        this.count = new int[options];
+        this.reset();
+    }
+
+    /**
+     * Método que vuelve a probabilidades uniformes y borra las estadísticas.
+     */
+    public void reset() {
+        for(int k = 0; k < this.probability.length; k++) {
+            this.probability[k] = 1.0 / this.probability.length;
+            this.sumFitness[k] = 0.0;
+            this.count[k] = 0;
+        }
+        this.bestFitness = 0.0;
+        this.iterations = 0;
+    }
+
+    /**
+     * Método que elige una opción por ruleta según las probabilidades.
+     * @param random Fuente aleatoria.
+     * @return índice de la opción.
+     */
+    public int select(TOPTWRandomSource random) {
+        double r = random.nextDouble();
+        double cumulative = 0.0;
+        for(int k = 0; k < this.probability.length - 1; k++) {
+            cumulative += this.probability[k];
+            if(r < cumulative) {
+                return k;
+            }
+        }
+        return this.probability.length - 1;
+    }
+
+    /**
+     * Método que anota la fitness obtenida con una opción y, al cerrar un bloque,
+     * recalcula las probabilidades.
+     * @param option Índice de la opción.
+     * @param fitness Fitness de la solución.
+     */
+    public void update(int option, double fitness) {
+        this.sumFitness[option] += fitness;
+        this.count[option]++;
+        if(fitness > this.bestFitness) {
+            this.bestFitness = fitness;
+        }
+        this.iterations++;
+        if(this.iterations % this.block == 0) {
+            this.updateProbabilities();
+        }
+    }
+
+    /**
+     * Método que recalcula las probabilidades. Las opciones sin usar reciben q = 1
+     * para que sigan probándose.
+     */
+    private void updateProbabilities() {
+        if(this.bestFitness <= 0.0) {
+            return;
+        }
+        double total = 0.0;
+        for(int k = 0; k < this.probability.length; k++) {
+            double q = 1.0;
+            if(this.count[k] > 0) {
+                q = Math.pow(this.sumFitness[k] / this.count[k] / this.bestFitness, this.delta);
+            }
+            this.probability[k] = q;
+            total += q;
+        }
+        for(int k = 0; k < this.probability.length; k++) {
+            this.probability[k] /= total;
+        }
+    }
+
+    /**
+     * Método que devuelve el número de opciones.
+     * @return opciones.
+     */
+    public int getOptions() {
+        return this.probability.length;
+    }
+
+    /**
+     * Método que devuelve el tamaño de RCL de una opción.
+     * @param option Índice de la opción.
+     * @return tamaño de RCL.
+     */
+    public int getRCLSize(int option) {
+        return this.rclSizes[option / this.alphas.length];
+    }
+
+    /**
+     * Método que devuelve el alpha de una opción.
+     * @param option Índice de la opción.
+     * @return alpha.
+     */
+    public double getAlpha(int option) {
+        return this.alphas[option % this.alphas.length];
+    }
+
+    /**
+     * Método que devuelve la probabilidad actual de una opción.
+     * @param option Índice de la opción.
+     * @return probabilidad.
+     */
+    public double getProbability(int option) {
+        return this.probability[option];
+    }
+
+    /**
+     * Método que devuelve las veces que se ha usado una opción.
+     * @param option Índice de la opción.
+     * @return usos.
+     */
+    public int getCount(int option) {
+        return this.count[option];
+    }
+
+    /**
+     * Método que devuelve los tamaños de RCL.
+     * @return tamaños de RCL.
+     */
+    public int[] getRCLSizes() {
+        return this.rclSizes;
+    }
+}
@@ -1,65 +1,70 @@
-package top;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-
-import es.ull.esit.utilities.ExpositoUtilities;
-
-public class TOPTWReader {
-
-    /**
-     * Método que lee un problema TOPTW de un fichero.
-     * @param filePath Ruta del fichero.
-     * @return Problema TOPTW.
-     */
-    public static top.TOPTW readProblem(String filePath) {
-        top.TOPTW problem = null;
-        BufferedReader reader = null;
-        try {
-            File instaceFile = new File(filePath);
-            reader = new BufferedReader(new FileReader(instaceFile));
-            String line = reader.readLine();
-            line = ExpositoUtilities.simplifyString(line);
-            String[] parts =line.split(" ");
-            problem = new top.TOPTW(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]));
-            line = reader.readLine();
-            line = null; parts = null;
-            for (int i = 0; i < problem.getPOIs()+1; i++) {
-                line = reader.readLine();
-                line = ExpositoUtilities.simplifyString(line);
-                parts = line.split(" ");
-                problem.setX(i, Double.parseDouble(parts[1]));
-                problem.setY(i, Double.parseDouble(parts[2]));
-                problem.setServiceTime(i, Double.parseDouble(parts[3]));
-                problem.setScore(i, Double.parseDouble(parts[4]));
-                if(i==0) {
-                    problem.setReadyTime(i, Double.parseDouble(parts[7]));
-                    problem.setDueTime(i, Double.parseDouble(parts[8]));
-                }
-                else {
-                    problem.setReadyTime(i, Double.parseDouble(parts[8]));
-                    problem.setDueTime(i, Double.parseDouble(parts[9]));
-                }
-                line = null; parts = null;
-            }
-            problem.calculateDistanceMatrix();
-        } catch (IOException e) {
-            System.err.println(e);
-            System.exit(0);
-        } finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException ex) {
-                    System.err.println(ex);
-                    System.exit(0);
-                }
-            }
-        }
-        problem.setMaxTimePerRoute(problem.getDueTime(0));
-        return problem;
-    }
-
+package es.ull.esit.top;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+public class TOPTWReader {
+
+    /**
+     * Método que lee un problema TOPTW de un fichero. Los ficheros con extensión
+     * TOPTWBinaryReader.BINARY_EXTENSION se leen en formato binario.
+     * @param filePath Ruta del fichero.
+     * @return Problema TOPTW.
+     */
+    public static TOPTW readProblem(String filePath) {
+        if(filePath.endsWith(TOPTWBinaryReader.BINARY_EXTENSION)) {
+            return TOPTWBinaryReader.readProblem(filePath);
+        }
+        TOPTW problem = null;
+        TOPTW.Builder builder = null;
+        TOPTWTokenizer tokenizer = null;
+        try {
+            File instaceFile = new File(filePath);
+            tokenizer = new TOPTWTokenizer(new FileReader(instaceFile));
+            // k v N t
+            tokenizer.skipToken();
+            int vehicles = tokenizer.nextInt();
+            int nodes = tokenizer.nextInt();
+            tokenizer.skipLine();
+            builder = new TOPTW.Builder(nodes, vehicles);
+            // D Q
+            tokenizer.skipLine();
+            for (int i = 0; i < builder.getPOIs()+1; i++) {
+                // i x y d S f a list O C, con a elementos en list
+                tokenizer.skipToken();
+                builder.setX(i, tokenizer.nextDouble());
+                builder.setY(i, tokenizer.nextDouble());
+                builder.setServiceTime(i, tokenizer.nextDouble());
+                builder.setScore(i, tokenizer.nextDouble());
+                tokenizer.skipToken();
+                int listLength = tokenizer.nextInt();
+                for (int j = 0; j < listLength; j++) {
+                    tokenizer.skipToken();
+                }
+                builder.setReadyTime(i, tokenizer.nextDouble());
+                double dueTime = tokenizer.nextDouble();
+                builder.setDueTime(i, dueTime);
+                if(i == 0) {
+                    builder.setMaxTimePerRoute(dueTime);
+                }
+                tokenizer.skipLine();
+            }
+            problem = builder.build();
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(0);
+        } finally {
+            if (tokenizer != null) {
+                try {
+                    tokenizer.close();
+                } catch (IOException ex) {
+                    System.err.println(ex);
+                    System.exit(0);
+                }
+            }
+        }
+        return problem;
+    }
+
 }
\ No newline at end of file
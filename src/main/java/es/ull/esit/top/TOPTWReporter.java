@@ -0,0 +1,154 @@
+package es.ull.esit.top;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Salida de resultados del GRASP. El texto se acumula en un StringBuilder y se
+ * vuelca a un Writer con buffer al terminar cada ejecución, o antes si crece
+ * demasiado, de modo que no se escribe línea a línea. La tabla completa de rutas
+ * (getInfoSolution) solo se genera por iteración en el nivel FULL; en el resto de
+ * niveles se genera una vez, para la mejor solución al terminar.
+ */
+public class TOPTWReporter {
+    public static final int FLUSH_THRESHOLD = 1 << 16;
+
+    /**
+     * Niveles de detalle de la salida.
+     */
+    public enum Detail {
+        /** Sin salida. */
+        OFF,
+        /** Media, mejor fitness y tabla de la mejor solución. */
+        BEST,
+        /** Además, una línea por iteración con su fitness. */
+        SUMMARY,
+        /** Además, la tabla completa de cada iteración. */
+        FULL
+    }
+
+    private Detail detail;
+    private Writer out;
+    private StringBuilder buffer;
+
+    /**
+     * Constructor de la clase TOPTWReporter que escribe en la salida estándar.
+     * @param detail Nivel de detalle.
+     */
+    public TOPTWReporter(Detail detail) {
+        this(detail, new BufferedWriter(new OutputStreamWriter(System.out)));
+    }
+
+    /**
+     * Constructor de la clase TOPTWReporter.
+     * @param detail Nivel de detalle.
+     * @param out Destino de la salida.
+     */
+    public TOPTWReporter(Detail detail, Writer out) {
+        this.detail = detail;
+        this.out = out;
+        this.buffer = new StringBuilder();
+    }
+
+    /**
+     * Método que devuelve el nivel de detalle.
+     * @return nivel de detalle.
+     */
+    public Detail getDetail() {
+        return this.detail;
+    }
+
+    /**
+     * Método que modifica el nivel de detalle.
+     * @param detail Nivel de detalle.
+     */
+    public void setDetail(Detail detail) {
+        this.detail = detail;
+    }
+
+    /**
+     * Método que comprueba si el reporter escribe algo.
+     * @return true si el nivel no es OFF.
+     */
+    public boolean isEnabled() {
+        return this.detail != Detail.OFF;
+    }
+
+    /**
+     * Método que anota el inicio de una ejecución del GRASP.
+     */
+    public void start() {
+        this.buffer.setLength(0);
+    }
+
+    /**
+     * Método que anota el resultado de una iteración.
+     * @param iteration Número de iteración.
+     * @param solution Solución de la iteración.
+     * @param fitness Fitness de la solución.
+     */
+    public void iteration(int iteration, TOPTWSolution solution, double fitness) {
+        switch(this.detail) {
+            case FULL:
+                solution.appendInfoSolution(this.buffer).append("\n");
+                break;
+            case SUMMARY:
+                this.buffer.append(" --> ITERACION ").append(iteration).append(": ").append(fitness)
+                        .append(" (").append(solution.getCreatedRoutes()).append(" rutas)\n");
+                break;
+            default:
+                break;
+        }
+        if(this.buffer.length() > FLUSH_THRESHOLD) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Método que anota las iteraciones hechas y el ritmo.
+     * @param iterations Iteraciones hechas.
+     * @param elapsedMillis Duración en milisegundos.
+     */
+    public void timing(int iterations, double elapsedMillis) {
+        if(!this.isEnabled()) {
+            return;
+        }
+        this.buffer.append(" --> ITERACIONES: ").append(iterations).append(" en ").append(elapsedMillis).append(" ms (")
+                .append(elapsedMillis > 0.0 ? iterations * 1000.0 / elapsedMillis : 0.0).append(" it/s)\n");
+    }
+
+    /**
+     * Método que anota el resultado final de una ejecución y vuelca la salida.
+     * @param averageFitness Fitness media.
+     * @param bestFitness Mejor fitness.
+     * @param bestSolution Mejor solución, o null si no hay.
+     */
+    public void finish(double averageFitness, double bestFitness, TOPTWSolution bestSolution) {
+        if(!this.isEnabled()) {
+            return;
+        }
+        if(bestSolution != null) {
+            bestSolution.appendInfoSolution(this.buffer).append("\n");
+        }
+        this.buffer.append(" --> MEDIA: ").append(averageFitness).append("\n");
+        this.buffer.append(" --> MEJOR SOLUCION: ").append(bestFitness).append("\n");
+        this.flush();
+    }
+
+    /**
+     * Método que escribe el contenido acumulado en el destino.
+     */
+    public void flush() {
+        try {
+            this.out.append(this.buffer);
+            this.out.flush();
+        } catch (IOException ex) {
+            Logger.getLogger(TOPTWReporter.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        this.buffer.setLength(0);
+    }
+}
@@ -1,368 +1,857 @@
-package top;
-
-import java.util.Arrays;
-
-import es.ull.esit.utilities.ExpositoUtilities;
-
-public class TOPTWSolution {
-    public static final int NO_INITIALIZED = -1;
-    private top.TOPTW problem;
-    private int[] predecessors;
-    private int[] successors;
-    private double[] waitingTime;
-    private int[] positionInRoute;
-
-    private int[] routes;
-    private int availableVehicles;
-    private double objectiveFunctionValue;
-
-    /**
-     * Constructor de la clase TOPTWSolution.
-     * @param problem Problema TOPTW.
-     */
-    public TOPTWSolution(top.TOPTW problem) {
-        this.problem = problem;
-        this.availableVehicles = this.problem.getVehicles();
-        this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.waitingTime = new double[this.problem.getPOIs()];
-        this.positionInRoute = new int[this.problem.getPOIs()];
-        Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
-        Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
-        Arrays.fill(this.waitingTime, TOPTWSolution.NO_INITIALIZED);
-        Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
-        this.routes = new int[this.problem.getVehicles()];
-        this.objectiveFunctionValue = TOPTWEvaluator.NO_EVALUATED;
-    }
-
-    /**
-     * Método que inicializa la solución.
-     */
-    public void initSolution() {
-        this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
-        Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
-        this.routes = new int[this.problem.getVehicles()];
-        Arrays.fill(this.routes, TOPTWSolution.NO_INITIALIZED);
-        this.routes[0] = 0;
-        this.predecessors[0] = 0;
-        this.successors[0] = 0;
-        this.availableVehicles = this.problem.getVehicles() - 1;
-    }
-
-    /**
-     * Metodo que comprueba si un nodo es un deposito.
-     * @param c
-     * @return verdadero si es un deposito, falso en caso contrario.
-     */
-    public boolean isDepot(int c) {
-        for(int i = 0; i < this.routes.length; i++) {
-            if(c==this.routes[i]) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Método que comprueba si dos soluciones son iguales.
-     * @param otherSolution Otra solución.
-     * @return true si son iguales, false en caso contrario.
-     */
-    public boolean iguales(TOPTWSolution otherSolution) {
-        for (int i = 0; i < this.predecessors.length; i++) {
-            if (this.predecessors[i] != otherSolution.predecessors[i]) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Método que devuelve el número de vehículos disponibles.
-     * @return Número de vehículos disponibles.
-     */
-    public int getAvailableVehicles() {
-        return this.availableVehicles;
-    }
-
-    /**
-     * Método que devuelve el número de rutas creadas.
-     * @return Número de rutas creadas.
-     */
-    public int getCreatedRoutes() {
-        return this.problem.getVehicles() - this.availableVehicles;
-    }
-
-    /**
-     * Método que devuelve la distancia entre dos nodos.
-     * @param x Nodo x.
-     * @param y Nodo y.
-     * @return Distancia entre los nodos.
-     */
-    public double getDistance(int x, int y) {
-        return this.problem.getDistance(x, y);
-    }
-
-    /**
-     * Metodo que establece el número de vehículos disponibles.
-     * @param availableVehicles
-     */
-    public void setAvailableVehicles(int availableVehicles) {
-        this.availableVehicles = availableVehicles;
-    }
-
-    /**
-     * Método que devuelve el predecesor de un nodo.
-     * @param customer Nodo.
-     * @return Predecesor del nodo.
-     */
-    public int getPredecessor(int customer) {
-        return this.predecessors[customer];
-    }
-
-    /**
-     * Método que devuelve los predecesores de los nodos.
-     * @return Predecesores de los nodos.
-     */
-    public int[] getPredecessors() {
-        return this.predecessors;
-    }
-
-    /**
-     * Método que devuelve el problema TOPTW.
-     * @return Problema TOPTW.
-     */
-    public top.TOPTW getProblem() {
-        return this.problem;
-    }
-
-    /**
-     * Método que devuelve el valor de la función objetivo.
-     * @return Valor de la función objetivo.
-     */
-    public double getObjectiveFunctionValue() {
-        return this.objectiveFunctionValue;
-    }
-
-    /**
-     * Método que devuelve la posición de un nodo en la ruta.
-     * @param customer Nodo.
-     * @return Posición del nodo en la ruta.
-     */
-    public int getPositionInRoute(int customer) {
-        return this.positionInRoute[customer];
-    }
-
-    /**
-     * Método que devuelve los sucesores
-     * @return sucesores de la ruta.
-     */
-    public int getSuccessor(int customer) {
-        return this.successors[customer];
-    }
-
-    /**
-     * Método que devuelve los sucesores de los nodos.
-     * @return Sucesores de los nodos.
-     */
-    public int[] getSuccessors() {
-        return this.successors;
-    }
-
-    /**
-     * Método que devuelve el indice de la ruta.
-     * @param index Índice de la ruta.
-     * @return indice de la ruta.
-     */
-    public int getIndexRoute(int index) {
-        return this.routes[index];
-    }
-
-    /**
-     * Metodo que devuelve el tiempo de espera de un cliente.
-     * @param customer
-     * @return tiempo de espera del cliente.
-     */
-    public double getWaitingTime(int customer) {
-        return this.waitingTime[customer];
-    }
-
-    /**
-     * Metodo que establece la función objetivo.
-     * @param objectiveFunctionValue
-     */
-    public void setObjectiveFunctionValue(double objectiveFunctionValue) {
-        this.objectiveFunctionValue = objectiveFunctionValue;
-    }
-
-    /**
-     * Metodo que establece una posición en la ruta.
-     * @param customer
-     * @param position
-     */
-    public void setPositionInRoute(int customer, int position) {
-        this.positionInRoute[customer] = position;
-    }
-
-    /**
-     * Metodo que establece el predecesor de un cliente.
-     * @param customer
-     * @param predecessor
-     */
-    public void setPredecessor(int customer, int predecessor) {
-        this.predecessors[customer] = predecessor;
-    }
-
-    /**
-     * Metodo que establece el sucesor de un cliente.
-     * @param customer
-     * @param succesor
-     */
-    public void setSuccessor(int customer, int succesor) {
-        this.successors[customer] = succesor;
-    }
-
-    /**
-     * Metodo que establece el tiempo de espera de un cliente.
-     * @param customer
-     * @param waitingTime
-     */
-    public void setWaitingTime(int customer, int waitingTime) {
-        this.waitingTime[customer] = waitingTime;
-    }
-
-    /**
-     * Metodo que devuelve la información de la solución.
-     * @return información de la solución.
-     */
-    public String getInfoSolution() {
-        final int COLUMN_WIDTH = 15;
-        String text = "\n"+"NODES: " + this.problem.getPOIs() + "\n" + "MAX TIME PER ROUTE: " + this.problem.getMaxTimePerRoute() + "\n" + "MAX NUMBER OF ROUTES: " + this.problem.getMaxRoutes() + "\n";
-        String textSolution = "\n"+"SOLUTION: "+"\n";
-        double costTimeSolution = 0.0, fitnessScore = 0.0;
-        boolean validSolution = true;
-        for(int k = 0; k < this.getCreatedRoutes(); k++) { // rutas creadas
-            String[] strings = new String[]{"\n" + "ROUTE " + k };
-            int[] width = new int[strings.length];
-            Arrays.fill(width, COLUMN_WIDTH);
-            text += ExpositoUtilities.getFormat(strings, width) + "\n";
-            strings = new String[]{"CUST NO.", "X COORD.", "Y. COORD.", "READY TIME", "DUE DATE", "ARRIVE TIME", " LEAVE TIME", "SERVICE TIME"};
-            width = new int[strings.length];
-            Arrays.fill(width, COLUMN_WIDTH);
-            text += ExpositoUtilities.getFormat(strings, width) + "\n";
-            strings = new String[strings.length];
-            int depot = this.getIndexRoute(k);
-            int pre=-1, suc=-1;
-            double costTimeRoute = 0.0, fitnessScoreRoute = 0.0;
-            pre = depot;
-            int index = 0;
-            strings[index++] = "" + pre;
-            strings[index++] = "" + this.getProblem().getX(pre);
-            strings[index++] = "" + this.getProblem().getY(pre);
-            strings[index++] = "" + this.getProblem().getReadyTime(pre);
-            strings[index++] = "" + this.getProblem().getDueTime(pre);
-            strings[index++] = "" + 0;
-            strings[index++] = "" + 0;
-            strings[index++] = "" + this.getProblem().getServiceTime(pre);
-            text += ExpositoUtilities.getFormat(strings, width);
-            text += "\n";
-            do {                // recorremos la ruta
-                index = 0;
-                suc = this.getSuccessor(pre);
-                textSolution += pre+" - ";
-                strings[index++] = "" + suc;
-                strings[index++] = "" + this.getProblem().getX(suc);
-                strings[index++] = "" + this.getProblem().getY(suc);
-                strings[index++] = "" + this.getProblem().getReadyTime(suc);
-                strings[index++] = "" + this.getProblem().getDueTime(suc);
-                costTimeRoute += this.getDistance(pre, suc);
-                if(costTimeRoute < (this.getProblem().getDueTime(suc))) {
-                    if(costTimeRoute < this.getProblem().getReadyTime(suc)) {
-                        costTimeRoute = this.getProblem().getReadyTime(suc);
-                    }
-                    strings[index++] = "" + costTimeRoute;
-                    costTimeRoute +=  this.getProblem().getServiceTime(suc);
-                    strings[index++] = "" + costTimeRoute;
-                    strings[index++] = "" + this.getProblem().getServiceTime(pre);
-                    if(costTimeRoute > this.getProblem().getMaxTimePerRoute()) { validSolution = false; }
-                    fitnessScoreRoute += this.problem.getScore(suc);
-                } else { validSolution = false; }
-                pre = suc;
-                text += ExpositoUtilities.getFormat(strings, width);
-                text += "\n";
-            } while(suc != depot);
-            textSolution += suc+"\n";
-            costTimeSolution += costTimeRoute;
-            fitnessScore += fitnessScoreRoute;
-        }
-        textSolution += "FEASIBLE SOLUTION: "+validSolution+"\n"+"SCORE: "+fitnessScore+"\n"+"TIME COST: "+costTimeSolution+"\n";
-        return textSolution+text;
-    }
-
-    /**
-     * Metodo que evalua la solución.
-     * @return valor de la función objetivo.
-     */
-    public double evaluateFitness() {
-        double objectiveFunction = 0.0;
-        double objectiveFunctionPerRoute = 0.0;
-        for(int k = 0; k < this.getCreatedRoutes(); k++) {
-            int depot = this.getIndexRoute(k);
-            int pre=depot, suc = -1;
-            do {
-                suc = this.getSuccessor(pre);
-                objectiveFunctionPerRoute = objectiveFunctionPerRoute + this.problem.getScore(suc);
-                pre = suc;
-            } while((suc != depot));
-            objectiveFunction = objectiveFunction + objectiveFunctionPerRoute;
-            objectiveFunctionPerRoute = 0.0;
-        }
-        return objectiveFunction;
-    }
-
-    /**
-     * Metodo que añade una ruta.
-     * @return deposito.
-     */
-    public int addRoute() {
-        int depot = this.problem.getPOIs();
-        depot++;
-        int routePos = 1;
-        for(int i = 0; i < this.routes.length; i++) {
-            if(this.routes[i] != -1 && this.routes[i] != 0) {
-                depot = this.routes[i];
-                depot++;
-                routePos = i+1;
-            }
-        }
-        this.routes[routePos] = depot;
-        this.availableVehicles--;
-        this.predecessors[depot] = depot;
-        this.successors[depot] = depot;
-        this.problem.addNodeDepot();
-        return depot;
-    }
-
-    /**
-     * Metodo que imprime la solución.
-     * @return valor de la función objetivo.
-     */
-    public double printSolution() {
-        for(int k = 0; k < this.getCreatedRoutes(); k++) {
-            int depot = this.getIndexRoute(k);
-            int pre=depot, suc = -1;
-            do {
-                suc = this.getSuccessor(pre);
-                System.out.print(pre+" - ");
-                pre = suc;
-            } while((suc != depot));
-            System.out.println(suc+"  ");
-        }
-        double fitness = this.evaluateFitness();
-        System.out.println("SC="+fitness);
-        return fitness;
-    }
-
-}
+package es.ull.esit.top;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+
+public class TOPTWSolution {
+    public static final int NO_INITIALIZED = -1;
+    // Columnas de la tabla de getInfoSolution
+    private static final String[] INFO_COLUMNS = {"CUST NO.", "X COORD.", "Y. COORD.", "READY TIME", "DUE DATE", "ARRIVE TIME", " LEAVE TIME", "SERVICE TIME"};
+    private TOPTW problem;
+    private int[] predecessors;
+    private int[] successors;
+    private double[] waitingTime;
+    private int[] positionInRoute;
+
+    private int[] routes;
+    // Ruta de cada nodo, ver getRoute
+    private int[] routeOf;
+    private int availableVehicles;
+    private double objectiveFunctionValue;
+
+    // Tiempos de salida por ruta y nodo
+    private double[][] departureTimes;
+
+    // Holguras hacia delante (Savelsbergh) por nodo y tiempo de fin por ruta
+    private double[] arrivalSlack;
+    private double[] forwardSlack;
+    private double[] cumulativeWaiting;
+    private double[] routeEndTime;
+
+    // Datos que updateForwardSlack mantiene al recorrer cada ruta modificada
+    private double[] arrivalTime;
+    private double[] routeScore;
+    private boolean[] routeFeasible;
+    private double totalScore;
+    private int infeasibleRoutes;
+
+    // Hash Zobrist de los arcos de sucesores, ver getHash
+    private long hash;
+
+    /**
+     * Constructor de la clase TOPTWSolution.
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWSolution(TOPTW problem) {
+        this.problem = problem;
+        this.availableVehicles = this.problem.getVehicles();
+        this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.waitingTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.positionInRoute = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.waitingTime, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
+        this.routes = new int[this.problem.getVehicles()];
+        this.routeOf = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        Arrays.fill(this.routeOf, TOPTWSolution.NO_INITIALIZED);
+        this.objectiveFunctionValue = TOPTWEvaluator.NO_EVALUATED;
+        this.departureTimes = new double[this.problem.getVehicles()][this.problem.getPOIs()+this.problem.getVehicles()];
+        this.arrivalSlack = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.forwardSlack = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.cumulativeWaiting = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.routeEndTime = new double[this.problem.getVehicles()];
+        this.arrivalTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.routeScore = new double[this.problem.getVehicles()];
+        this.routeFeasible = new boolean[this.problem.getVehicles()];
+        this.initTimes();
+    }
+
+    /**
+     * Método que reinicia los tiempos de salida y las holguras de todos los nodos.
+     */
+    private void initTimes() {
+        for(int k = 0; k < this.departureTimes.length; k++) {
+            Arrays.fill(this.departureTimes[k], 0.0);
+        }
+        Arrays.fill(this.arrivalSlack, Double.MAX_VALUE);
+        Arrays.fill(this.forwardSlack, Double.MAX_VALUE);
+        Arrays.fill(this.cumulativeWaiting, 0.0);
+        Arrays.fill(this.routeEndTime, 0.0);
+        Arrays.fill(this.arrivalTime, 0.0);
+        Arrays.fill(this.waitingTime, 0.0);
+        Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.routeScore, 0.0);
+        Arrays.fill(this.routeFeasible, true);
+        this.totalScore = 0.0;
+        this.infeasibleRoutes = 0;
+    }
+
+    /**
+     * Método que inicializa la solución. Reutiliza los arrays ya reservados.
+     */
+    public void initSolution() {
+        Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.routes, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.routeOf, TOPTWSolution.NO_INITIALIZED);
+        this.routes[0] = 0;
+        this.routeOf[0] = 0;
+        this.predecessors[0] = 0;
+        this.successors[0] = 0;
+        this.hash = 0L;
+        this.availableVehicles = this.problem.getVehicles() - 1;
+        this.initTimes();
+        this.updateForwardSlack(0);
+    }
+
+    /**
+     * Metodo que comprueba si un nodo es un deposito. Los depósitos tienen índices fijos
+     * (ver getDepot): el nodo 0 y los nodos POIs+1..POIs+vehicles-1, de modo que basta
+     * con comparar el índice, aunque la ruta aún no se haya creado.
+     * @param c
+     * @return verdadero si es un deposito, falso en caso contrario.
+     */
+    public boolean isDepot(int c) {
+        return c == 0 || c > this.problem.getPOIs();
+    }
+
+    /**
+     * Método que devuelve el depósito de una ruta: el nodo 0 para la ruta 0 y POIs+route
+     * para las demás.
+     * @param route Índice de la ruta.
+     * @return depósito de la ruta.
+     */
+    public int getDepot(int route) {
+        return route == 0 ? 0 : this.problem.getPOIs() + route;
+    }
+
+    /**
+     * Método que devuelve la ruta en la que está un nodo. Se actualiza al recalcular las
+     * holguras de la ruta (updateForwardSlack) y se borra al quitar su predecesor.
+     * @param node Nodo.
+     * @return índice de la ruta, o NO_INITIALIZED si el nodo no está en ninguna.
+     */
+    public int getRoute(int node) {
+        return this.routeOf[node];
+    }
+
+    /**
+     * Método que comprueba si dos soluciones son iguales. Si sus hashes difieren no
+     * pueden serlo y no hace falta recorrer los predecesores.
+     * @param otherSolution Otra solución.
+     * @return true si son iguales, false en caso contrario.
+     */
+    public boolean iguales(TOPTWSolution otherSolution) {
+        if(this.hash != otherSolution.hash) {
+            return false;
+        }
+        for (int i = 0; i < this.predecessors.length; i++) {
+            if (this.predecessors[i] != otherSolution.predecessors[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Método que mide la diferencia entre dos soluciones como el número de clientes
+     * cuyo sucesor cambia; los depósitos de todas las rutas cuentan como el mismo nodo,
+     * así que el orden de las rutas no importa. Vale 0 si las dos soluciones tienen las
+     * mismas rutas, y un cliente que solo visita una de ellas también cuenta.
+     * @param otherSolution Otra solución del mismo problema.
+     * @return número de clientes con distinto sucesor.
+     */
+    public int getSuccessorDistance(TOPTWSolution otherSolution) {
+        int distance = 0;
+        for(int c = 1; c <= this.problem.getPOIs(); c++) {
+            int a = this.successors[c], b = otherSolution.successors[c];
+            if(a != b && !(this.isDepot(a) && this.isDepot(b))) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Método que devuelve el hash de las rutas de la solución: el XOR de una clave
+     * pseudoaleatoria de 64 bits por cada arco cliente → sucesor y depósito → primer
+     * cliente, con todos los depósitos como el nodo 0. Se actualiza en cada
+     * setSuccessor, así que consultarlo es O(1). Como getSuccessorDistance, no depende
+     * del orden de las rutas: dos soluciones con las mismas rutas tienen el mismo hash
+     * y, salvo colisiones, soluciones distintas tienen hashes distintos.
+     * @return hash de la solución.
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Método que devuelve un hash que, además de las rutas (getHash), distingue su
+     * orden: añade, para cada ruta creada, una clave con su índice y su primer cliente.
+     * Como cada índice de ruta tiene un depósito fijo, dos soluciones con el mismo
+     * hash ordenado tienen, salvo colisiones, los mismos sucesores y predecesores
+     * (iguales). Cuesta O(rutas).
+     * @return hash de la solución con el orden de las rutas.
+     */
+    public long getOrderedHash() {
+        long ordered = this.hash;
+        for(int k = 0; k < this.getCreatedRoutes(); k++) {
+            int first = this.successors[this.routes[k]];
+            // los índices de ruta se colocan tras los nodos para no coincidir con un arco
+            ordered ^= mix(this.isDepot(first) ? 0 : first, this.problem.getPOIs() + 1 + k);
+        }
+        return ordered;
+    }
+
+    /**
+     * Método que devuelve la clave de un arco para el hash de la solución. Las claves
+     * se obtienen mezclando los extremos (finalizador de SplitMix64) en lugar de
+     * guardarlas en una tabla de tamaño nodos por nodos.
+     * @param from Nodo de origen.
+     * @param to Nodo de destino.
+     * @return clave del arco, 0 para un depósito sin clientes.
+     */
+    private long getArcKey(int from, int to) {
+        long a = this.isDepot(from) ? 0 : from, b = this.isDepot(to) ? 0 : to;
+        if(a == 0 && b == 0) {
+            return 0L;
+        }
+        return mix(a, b);
+    }
+
+    /**
+     * Método que mezcla dos enteros no negativos en una clave de 64 bits con el
+     * finalizador de SplitMix64.
+     * @param a Primer entero.
+     * @param b Segundo entero.
+     * @return clave pseudoaleatoria, distinta para (a, b) y (b, a).
+     */
+    private static long mix(long a, long b) {
+        long z = (a + 1) * 0x9E3779B97F4A7C15L ^ (b + 1) * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Método que copia esta solución en otra ya reservada para el mismo problema, sin
+     * reservar memoria: rutas, predecesores, sucesores, tiempos y holguras, el score
+     * y la factibilidad de cada ruta, y el hash.
+     * Sirve para guardar la mejor solución del GRASP y para restaurarla.
+     * @param target Solución destino.
+     */
+    public void copyInto(TOPTWSolution target) {
+        if(target.problem != this.problem) {
+            throw new IllegalArgumentException("Las soluciones no son del mismo problema");
+        }
+        System.arraycopy(this.predecessors, 0, target.predecessors, 0, this.predecessors.length);
+        System.arraycopy(this.successors, 0, target.successors, 0, this.successors.length);
+        System.arraycopy(this.routes, 0, target.routes, 0, this.routes.length);
+        System.arraycopy(this.routeOf, 0, target.routeOf, 0, this.routeOf.length);
+        target.availableVehicles = this.availableVehicles;
+        target.objectiveFunctionValue = this.objectiveFunctionValue;
+        for(int k = 0; k < this.departureTimes.length; k++) {
+            System.arraycopy(this.departureTimes[k], 0, target.departureTimes[k], 0, this.departureTimes[k].length);
+        }
+        System.arraycopy(this.arrivalSlack, 0, target.arrivalSlack, 0, this.arrivalSlack.length);
+        System.arraycopy(this.forwardSlack, 0, target.forwardSlack, 0, this.forwardSlack.length);
+        System.arraycopy(this.cumulativeWaiting, 0, target.cumulativeWaiting, 0, this.cumulativeWaiting.length);
+        System.arraycopy(this.routeEndTime, 0, target.routeEndTime, 0, this.routeEndTime.length);
+        System.arraycopy(this.arrivalTime, 0, target.arrivalTime, 0, this.arrivalTime.length);
+        System.arraycopy(this.waitingTime, 0, target.waitingTime, 0, this.waitingTime.length);
+        System.arraycopy(this.positionInRoute, 0, target.positionInRoute, 0, this.positionInRoute.length);
+        System.arraycopy(this.routeScore, 0, target.routeScore, 0, this.routeScore.length);
+        System.arraycopy(this.routeFeasible, 0, target.routeFeasible, 0, this.routeFeasible.length);
+        target.totalScore = this.totalScore;
+        target.infeasibleRoutes = this.infeasibleRoutes;
+        target.hash = this.hash;
+    }
+
+    /**
+     * Método que restaura esta solución a partir de una copia hecha con copyInto.
+     * @param snapshot Solución guardada.
+     */
+    public void restoreFrom(TOPTWSolution snapshot) {
+        snapshot.copyInto(this);
+    }
+
+    /**
+     * Método que devuelve el número de vehículos disponibles.
+     * @return Número de vehículos disponibles.
+     */
+    public int getAvailableVehicles() {
+        return this.availableVehicles;
+    }
+
+    /**
+     * Método que devuelve el número de rutas creadas.
+     * @return Número de rutas creadas.
+     */
+    public int getCreatedRoutes() {
+        return this.problem.getVehicles() - this.availableVehicles;
+    }
+
+    /**
+     * Método que devuelve la distancia entre dos nodos.
+     * @param x Nodo x.
+     * @param y Nodo y.
+     * @return Distancia entre los nodos.
+     */
+    public double getDistance(int x, int y) {
+        return this.problem.getDistance(x, y);
+    }
+
+    /**
+     * Metodo que establece el número de vehículos disponibles.
+     * @param availableVehicles
+     */
+    public void setAvailableVehicles(int availableVehicles) {
+        this.availableVehicles = availableVehicles;
+    }
+
+    /**
+     * Método que devuelve el predecesor de un nodo.
+     * @param customer Nodo.
+     * @return Predecesor del nodo.
+     */
+    public int getPredecessor(int customer) {
+        return this.predecessors[customer];
+    }
+
+    /**
+     * Método que devuelve los predecesores de los nodos.
+     * @return Predecesores de los nodos.
+     */
+    public int[] getPredecessors() {
+        return this.predecessors;
+    }
+
+    /**
+     * Método que devuelve el problema TOPTW.
+     * @return Problema TOPTW.
+     */
+    public TOPTW getProblem() {
+        return this.problem;
+    }
+
+    /**
+     * Método que devuelve el valor de la función objetivo.
+     * @return Valor de la función objetivo.
+     */
+    public double getObjectiveFunctionValue() {
+        return this.objectiveFunctionValue;
+    }
+
+    /**
+     * Método que devuelve la posición de un nodo en la ruta: 0 para el depósito, 1 para
+     * el primer cliente, etc.
+     * @param customer Nodo.
+     * @return Posición del nodo en la ruta, o NO_INITIALIZED si no está en ninguna.
+     */
+    public int getPositionInRoute(int customer) {
+        return this.positionInRoute[customer];
+    }
+
+    /**
+     * Método que devuelve los sucesores
+     * @return sucesores de la ruta.
+     */
+    public int getSuccessor(int customer) {
+        return this.successors[customer];
+    }
+
+    /**
+     * Método que devuelve los sucesores de los nodos. No debe modificarse: el hash de
+     * la solución solo se mantiene con setSuccessor.
+     * @return Sucesores de los nodos.
+     */
+    public int[] getSuccessors() {
+        return this.successors;
+    }
+
+    /**
+     * Método que devuelve el indice de la ruta.
+     * @param index Índice de la ruta.
+     * @return indice de la ruta.
+     */
+    public int getIndexRoute(int index) {
+        return this.routes[index];
+    }
+
+    /**
+     * Metodo que devuelve el tiempo de espera de un cliente hasta su readyTime.
+     * @param customer
+     * @return tiempo de espera del cliente.
+     */
+    public double getWaitingTime(int customer) {
+        return this.waitingTime[customer];
+    }
+
+    /**
+     * Metodo que devuelve el instante de llegada a un nodo, antes de esperar a su
+     * readyTime. Para un depósito es la vuelta al final de la ruta.
+     * @param node
+     * @return instante de llegada.
+     */
+    public double getArrivalTime(int node) {
+        return this.arrivalTime[node];
+    }
+
+    /**
+     * Metodo que devuelve la suma del score de los nodos de una ruta.
+     * @param route Índice de la ruta.
+     * @return score de la ruta.
+     */
+    public double getRouteScore(int route) {
+        return this.routeScore[route];
+    }
+
+    /**
+     * Metodo que devuelve la duración de una ruta, desde que sale del depósito hasta
+     * que vuelve a él y termina su servicio.
+     * @param route Índice de la ruta.
+     * @return duración de la ruta.
+     */
+    public double getRouteDuration(int route) {
+        return this.routeEndTime[route] - this.departureTimes[route][this.routes[route]];
+    }
+
+    /**
+     * Metodo que comprueba si una ruta cumple todas las ventanas de tiempo y el tiempo
+     * máximo por ruta.
+     * @param route Índice de la ruta.
+     * @return true si la ruta es factible.
+     */
+    public boolean isRouteFeasible(int route) {
+        return this.routeFeasible[route];
+    }
+
+    /**
+     * Metodo que comprueba si todas las rutas son factibles.
+     * @return true si la solución es factible.
+     */
+    public boolean isFeasible() {
+        return this.infeasibleRoutes == 0;
+    }
+
+    /**
+     * Metodo que establece la función objetivo.
+     * @param objectiveFunctionValue
+     */
+    public void setObjectiveFunctionValue(double objectiveFunctionValue) {
+        this.objectiveFunctionValue = objectiveFunctionValue;
+    }
+
+    /**
+     * Metodo que establece una posición en la ruta.
+     * @param customer
+     * @param position
+     */
+    public void setPositionInRoute(int customer, int position) {
+        this.positionInRoute[customer] = position;
+    }
+
+    /**
+     * Metodo que establece el predecesor de un cliente.
+     * @param customer
+     * @param predecessor
+     */
+    public void setPredecessor(int customer, int predecessor) {
+        this.predecessors[customer] = predecessor;
+        if(predecessor == TOPTWSolution.NO_INITIALIZED) {
+            this.routeOf[customer] = TOPTWSolution.NO_INITIALIZED;
+            this.positionInRoute[customer] = TOPTWSolution.NO_INITIALIZED;
+        }
+    }
+
+    /**
+     * Metodo que establece el sucesor de un cliente y actualiza el hash de la solución
+     * (los predecesores son el reflejo de los sucesores y no entran en el hash).
+     * @param customer
+     * @param succesor
+     */
+    public void setSuccessor(int customer, int succesor) {
+        int old = this.successors[customer];
+        if(old != TOPTWSolution.NO_INITIALIZED) {
+            this.hash ^= this.getArcKey(customer, old);
+        }
+        this.successors[customer] = succesor;
+        if(succesor != TOPTWSolution.NO_INITIALIZED) {
+            this.hash ^= this.getArcKey(customer, succesor);
+        }
+    }
+
+    /**
+     * Metodo que establece el tiempo de espera de un cliente.
+     * @param customer
+     * @param waitingTime
+     */
+    public void setWaitingTime(int customer, int waitingTime) {
+        this.waitingTime[customer] = waitingTime;
+    }
+
+    /**
+     * Metodo que recalcula las holguras hacia delante de una ruta recorriéndola desde
+     * el depósito final hacia atrás. Para cada nodo j se guarda cuánto puede retrasarse
+     * su salida sin violar ninguna ventana de tiempo posterior (arrivalSlack, comparación
+     * estricta con el due time) ni el tiempo máximo por ruta (forwardSlack), y la espera
+     * acumulada en los nodos que le siguen. Con ellas la factibilidad de una inserción
+     * entre pre y suc se comprueba en tiempo constante. En el mismo recorrido se guardan
+     * la llegada y la espera de cada nodo y el score y la factibilidad de la ruta, y se
+     * actualizan por diferencia el score total y el número de rutas infactibles, de modo
+     * que evaluateFitness e isFeasible no recorren la solución.
+     * @param route Índice de la ruta.
+     */
+    public void updateForwardSlack(int route) {
+        double[] departureTimes = this.departureTimes[route];
+        int depot = this.routes[route];
+        int last = this.predecessors[depot];
+        double arrival = departureTimes[last] + this.getDistance(last, depot);
+        double waiting = Math.max(0.0, this.problem.getReadyTime(depot) - arrival);
+        double departure = arrival + waiting + this.problem.getServiceTime(depot);
+        this.routeEndTime[route] = departure;
+        this.routeOf[depot] = route;
+        this.arrivalTime[depot] = arrival;
+        this.waitingTime[depot] = waiting;
+        double score = this.problem.getScore(depot);
+        boolean feasible = arrival < this.problem.getDueTime(depot) && departure <= this.problem.getMaxTimePerRoute();
+
+        // Valores del sucesor n del nodo j que se está calculando
+        double arrivalSlackSuc = Double.MAX_VALUE, forwardSlackSuc = Double.MAX_VALUE, waitingSuc = 0.0;
+        int n = depot, j = last;
+        while(j != depot) {
+            this.arrivalSlack[j] = Math.min(this.problem.getDueTime(n) - arrival, arrivalSlackSuc + waiting);
+            this.forwardSlack[j] = waiting + Math.min(this.problem.getMaxTimePerRoute() - departure, forwardSlackSuc);
+            this.cumulativeWaiting[j] = waiting + waitingSuc;
+            arrivalSlackSuc = this.arrivalSlack[j];
+            forwardSlackSuc = this.forwardSlack[j];
+            waitingSuc = this.cumulativeWaiting[j];
+            this.routeOf[j] = route;
+            score += this.problem.getScore(j);
+
+            int pre = this.predecessors[j];
+            arrival = departureTimes[pre] + this.getDistance(pre, j);
+            waiting = Math.max(0.0, this.problem.getReadyTime(j) - arrival);
+            departure = departureTimes[j];
+            this.arrivalTime[j] = arrival;
+            this.waitingTime[j] = waiting;
+            feasible &= arrival < this.problem.getDueTime(j);
+            n = j;
+            j = pre;
+        }
+
+        int position = 0;
+        this.positionInRoute[depot] = position;
+        for(j = this.successors[depot]; j != depot; j = this.successors[j]) {
+            this.positionInRoute[j] = ++position;
+        }
+        this.totalScore += score - this.routeScore[route];
+        this.routeScore[route] = score;
+        if(feasible != this.routeFeasible[route]) {
+            this.infeasibleRoutes += feasible ? -1 : 1;
+            this.routeFeasible[route] = feasible;
+        }
+    }
+
+    /**
+     * Metodo que recalcula los tiempos de salida de una ruta desde el depósito y
+     * después sus holguras.
+     * @param route Índice de la ruta.
+     */
+    public void updateRoute(int route) {
+        double[] departureTimes = this.departureTimes[route];
+        int depot = this.routes[route];
+        int pre = depot, suc = -1;
+        double time = departureTimes[depot];
+        do {
+            suc = this.successors[pre];
+            time = Math.max(time + this.getDistance(pre, suc), this.problem.getReadyTime(suc)) + this.problem.getServiceTime(suc);
+            if(suc != depot) {
+                departureTimes[suc] = time;
+            }
+            pre = suc;
+        } while(suc != depot);
+        this.updateForwardSlack(route);
+    }
+
+    /**
+     * Método que devuelve el tiempo de salida de un nodo en una ruta.
+     * @param route Índice de la ruta.
+     * @param node Nodo.
+     * @return tiempo de salida.
+     */
+    public double getDepartureTime(int route, int node) {
+        return this.departureTimes[route][node];
+    }
+
+    /**
+     * Método que establece el tiempo de salida de un nodo en una ruta.
+     * @param route Índice de la ruta.
+     * @param node Nodo.
+     * @param departureTime Tiempo de salida.
+     */
+    public void setDepartureTime(int route, int node, double departureTime) {
+        this.departureTimes[route][node] = departureTime;
+    }
+
+    /**
+     * Método que devuelve la hora de salida de un nodo si se llega a él en un instante dado.
+     * @param node Nodo.
+     * @param arrival Instante de llegada.
+     * @return hora de salida, o Double.MAX_VALUE si incumple su ventana o el tiempo máximo por ruta.
+     */
+    public double getDeparture(int node, double arrival) {
+        if(arrival >= this.problem.getDueTime(node)) {
+            return Double.MAX_VALUE;
+        }
+        double departure = Math.max(arrival, this.problem.getReadyTime(node)) + this.problem.getServiceTime(node);
+        if(departure > this.problem.getMaxTimePerRoute()) {
+            return Double.MAX_VALUE;
+        }
+        return departure;
+    }
+
+    /**
+     * Método que devuelve el nuevo fin de una ruta si a uno de sus nodos se llega en otro
+     * instante y los nodos que le siguen no cambian. Si la salida se retrasa se usan las
+     * holguras; si se adelanta se propaga hasta que una espera absorbe el cambio.
+     * @param route Índice de la ruta.
+     * @param node Primer nodo sin cambios de la ruta (puede ser el depósito final).
+     * @param arrival Nuevo instante de llegada al nodo.
+     * @return fin de la ruta, o Double.MAX_VALUE si deja de ser factible.
+     */
+    public double getRouteEndTime(int route, int node, double arrival) {
+        double[] departureTimes = this.departureTimes[route];
+        double departure = this.getDeparture(node, arrival);
+        int depot = this.routes[route];
+        if(departure == Double.MAX_VALUE || node == depot) {
+            return departure;
+        }
+        double shift = departure - departureTimes[node];
+        if(shift >= 0.0) {
+            if(shift < this.arrivalSlack[node] && shift <= this.forwardSlack[node]) {
+                return this.routeEndTime[route] + Math.max(0.0, shift - this.cumulativeWaiting[node]);
+            }
+            return Double.MAX_VALUE;
+        }
+        int pre = node, suc = -1;
+        do {
+            suc = this.successors[pre];
+            departure = Math.max(departure + this.getDistance(pre, suc), this.problem.getReadyTime(suc)) + this.problem.getServiceTime(suc);
+            if(suc != depot && departure == departureTimes[suc]) {
+                return this.routeEndTime[route];
+            }
+            pre = suc;
+        } while(suc != depot);
+        return departure;
+    }
+
+    /**
+     * Método que evalúa la inserción de un cliente tras un predecesor de una ruta.
+     * @param customer Cliente a insertar.
+     * @param route Índice de la ruta.
+     * @param pre Predecesor tras el que se inserta.
+     * @return fin de la ruta tras la inserción, o Double.MAX_VALUE si no es factible.
+     */
+    public double evaluateInsertion(int customer, int route, int pre) {
+        double departure = this.getDeparture(customer, this.departureTimes[route][pre] + this.getDistance(pre, customer));
+        if(departure == Double.MAX_VALUE) {
+            return Double.MAX_VALUE;
+        }
+        int suc = this.successors[pre];
+        return this.getRouteEndTime(route, suc, departure + this.getDistance(customer, suc));
+    }
+
+    /**
+     * Método que descarta, sin consultar distancias, inserciones que no pueden ser
+     * factibles. Toma la salida más temprana posible del cliente (su readyTime más su
+     * servicio, con distancias no negativas) y comprueba la ventana del cliente y las
+     * holguras del sucesor. Si devuelve false, evaluateInsertion devolvería Double.MAX_VALUE.
+     * @param customer Cliente a insertar.
+     * @param route Índice de la ruta.
+     * @param pre Predecesor tras el que se inserta.
+     * @return false si la inserción es seguro infactible.
+     */
+    public boolean mayInsert(int customer, int route, int pre) {
+        if(this.departureTimes[route][pre] >= this.problem.getDueTime(customer)) {
+            return false;
+        }
+        int suc = this.successors[pre];
+        double departure = this.problem.getReadyTime(customer) + this.problem.getServiceTime(customer) + this.problem.getServiceTime(suc);
+        if(suc == this.routes[route]) {
+            return departure <= this.problem.getMaxTimePerRoute();
+        }
+        double shift = departure - this.departureTimes[route][suc];
+        return shift < this.arrivalSlack[suc] && shift <= this.forwardSlack[suc];
+    }
+
+    /**
+     * Método que devuelve cuánto puede retrasarse la salida de un cliente sin
+     * incumplir las ventanas de tiempo posteriores (el retraso debe ser estrictamente menor).
+     * @param customer Cliente.
+     * @return holgura de llegada.
+     */
+    public double getArrivalSlack(int customer) {
+        return this.arrivalSlack[customer];
+    }
+
+    /**
+     * Método que devuelve cuánto puede retrasarse la salida de un cliente sin
+     * superar el tiempo máximo por ruta.
+     * @param customer Cliente.
+     * @return holgura hacia delante.
+     */
+    public double getForwardSlack(int customer) {
+        return this.forwardSlack[customer];
+    }
+
+    /**
+     * Método que devuelve la espera acumulada en los nodos posteriores a un cliente.
+     * @param customer Cliente.
+     * @return espera acumulada.
+     */
+    public double getCumulativeWaiting(int customer) {
+        return this.cumulativeWaiting[customer];
+    }
+
+    /**
+     * Método que devuelve el instante en que una ruta vuelve al depósito.
+     * @param route Índice de la ruta.
+     * @return tiempo de fin de la ruta.
+     */
+    public double getRouteEndTime(int route) {
+        return this.routeEndTime[route];
+    }
+
+    /**
+     * Metodo que devuelve la información de la solución.
+     * @return información de la solución.
+     */
+    public String getInfoSolution() {
+        return this.appendInfoSolution(new StringBuilder()).toString();
+    }
+
+    /**
+     * Metodo que añade la información de la solución a un buffer.
+     * @param out buffer de salida.
+     * @return el mismo buffer.
+     */
+    public StringBuilder appendInfoSolution(StringBuilder out) {
+        final int COLUMN_WIDTH = 15;
+        // un solo formateador por llamada, con el formato de ExpositoUtilities.getFormat
+        DecimalFormat decimalFormat = new DecimalFormat("0.000");
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+        symbols.setDecimalSeparator('.');
+        decimalFormat.setDecimalFormatSymbols(symbols);
+        StringBuilder text = new StringBuilder();
+        text.append("\n").append("NODES: ").append(this.problem.getPOIs()).append("\n").append("MAX TIME PER ROUTE: ").append(this.problem.getMaxTimePerRoute()).append("\n").append("MAX NUMBER OF ROUTES: ").append(this.problem.getMaxRoutes()).append("\n");
+        out.append("\n").append("SOLUTION: ").append("\n");
+        double costTimeSolution = 0.0, fitnessScore = 0.0;
+        for(int k = 0; k < this.getCreatedRoutes(); k++) { // rutas creadas
+            appendCell(text, "\n" + "ROUTE " + k, COLUMN_WIDTH);
+            text.append("\n");
+            for(String column : INFO_COLUMNS) {
+                appendCell(text, column, COLUMN_WIDTH);
+            }
+            text.append("\n");
+            int depot = this.getIndexRoute(k);
+            int pre=-1, suc=-1;
+            pre = depot;
+            appendCell(text, String.valueOf(pre), COLUMN_WIDTH);
+            appendCell(text, decimalFormat.format(this.getProblem().getX(pre)), COLUMN_WIDTH);
+            appendCell(text, decimalFormat.format(this.getProblem().getY(pre)), COLUMN_WIDTH);
+            appendCell(text, decimalFormat.format(this.getProblem().getReadyTime(pre)), COLUMN_WIDTH);
+            appendCell(text, decimalFormat.format(this.getProblem().getDueTime(pre)), COLUMN_WIDTH);
+            appendCell(text, "0", COLUMN_WIDTH);
+            appendCell(text, "0", COLUMN_WIDTH);
+            appendCell(text, decimalFormat.format(this.getProblem().getServiceTime(pre)), COLUMN_WIDTH);
+            text.append("\n");
+            do {                // recorremos la ruta
+                suc = this.getSuccessor(pre);
+                out.append(pre).append(" - ");
+                appendCell(text, String.valueOf(suc), COLUMN_WIDTH);
+                appendCell(text, decimalFormat.format(this.getProblem().getX(suc)), COLUMN_WIDTH);
+                appendCell(text, decimalFormat.format(this.getProblem().getY(suc)), COLUMN_WIDTH);
+                appendCell(text, decimalFormat.format(this.getProblem().getReadyTime(suc)), COLUMN_WIDTH);
+                appendCell(text, decimalFormat.format(this.getProblem().getDueTime(suc)), COLUMN_WIDTH);
+                // tiempos guardados por updateForwardSlack: inicio del servicio y salida
+                appendCell(text, decimalFormat.format(Math.max(this.arrivalTime[suc], this.getProblem().getReadyTime(suc))), COLUMN_WIDTH);
+                appendCell(text, decimalFormat.format(suc == depot ? this.routeEndTime[k] : this.departureTimes[k][suc]), COLUMN_WIDTH);
+                appendCell(text, decimalFormat.format(this.getProblem().getServiceTime(pre)), COLUMN_WIDTH);
+                pre = suc;
+                text.append("\n");
+            } while(suc != depot);
+            out.append(suc).append("\n");
+            costTimeSolution += this.routeEndTime[k];
+            fitnessScore += this.routeScore[k];
+        }
+        out.append("FEASIBLE SOLUTION: ").append(this.isFeasible()).append("\n").append("SCORE: ").append(fitnessScore).append("\n").append("TIME COST: ").append(costTimeSolution).append("\n");
+        return out.append(text);
+    }
+
+    /**
+     * Metodo que añade una celda alineada a la derecha, como ExpositoUtilities.getFormat
+     * pero sin construir una cadena de formato.
+     * @param text buffer de salida.
+     * @param cell contenido de la celda.
+     * @param width ancho mínimo de la celda.
+     */
+    private static void appendCell(StringBuilder text, String cell, int width) {
+        for(int i = cell.length(); i < width; i++) {
+            text.append(' ');
+        }
+        text.append(cell);
+    }
+
+    /**
+     * Metodo que evalua la solución. El score total se mantiene al actualizar cada
+     * ruta (ver updateForwardSlack), así que no se recorre la solución.
+     * @return valor de la función objetivo.
+     */
+    public double evaluateFitness() {
+        return this.totalScore;
+    }
+
+    /**
+     * Metodo que añade una ruta. Su depósito se calcula con getDepot; no modifica el
+     * problema, que puede estar compartido entre hilos.
+     * @return deposito.
+     */
+    public int addRoute() {
+        int routePos = this.getCreatedRoutes();
+        if(routePos >= this.routes.length) {
+            throw new IllegalStateException("No quedan vehículos disponibles");
+        }
+        int depot = this.getDepot(routePos);
+        this.routes[routePos] = depot;
+        this.availableVehicles--;
+        this.predecessors[depot] = depot;
+        this.successors[depot] = depot;
+        this.updateForwardSlack(routePos);
+        return depot;
+    }
+
+    /**
+     * Metodo que imprime la solución.
+     * @return valor de la función objetivo.
+     */
+    public double printSolution() {
+        for(int k = 0; k < this.getCreatedRoutes(); k++) {
+            int depot = this.getIndexRoute(k);
+            int pre=depot, suc = -1;
+            do {
+                suc = this.getSuccessor(pre);
+                System.out.print(pre+" - ");
+                pre = suc;
+            } while((suc != depot));
+            System.out.println(suc+"  ");
+        }
+        double fitness = this.evaluateFitness();
+        System.out.println("SC="+fitness);
+        return fitness;
+    }
+
+}
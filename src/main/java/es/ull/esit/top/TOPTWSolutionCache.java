@@ -0,0 +1,134 @@
+package es.ull.esit.top;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de soluciones ya vistas, indexado por un hash de TOPTWSolution (getHash,
+ * o getOrderedHash si importa el orden de las rutas), que guarda una fitness por
+ * solución. Es una tabla de direccionamiento abierto sobre arrays primitivos, sin
+ * objetos por entrada, que dobla su tamaño al llenarse a la mitad. Dos soluciones con
+ * el mismo hash se consideran la misma.
+ */
+public class TOPTWSolutionCache {
+    public static final double NO_EVALUATED = -1.0;
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] keys;
+    private double[] values;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * Constructor de la clase TOPTWSolutionCache con la capacidad inicial por defecto.
+     */
+    public TOPTWSolutionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor de la clase TOPTWSolutionCache.
+     * @param capacity Número de soluciones que se esperan; la tabla crece si se supera.
+     */
+    public TOPTWSolutionCache(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacity);
+        }
+        int length = Integer.highestOneBit(Math.min(capacity, 1 << 29) * 2 - 1) << 1;
+        this.keys = new long[length];
+        this.values = new double[length];
+        this.used = new boolean[length];
+        this.size = 0;
+    }
+
+    /**
+     * Método que vacía el conjunto sin liberar la tabla.
+     */
+    public void clear() {
+        Arrays.fill(this.used, false);
+        this.size = 0;
+    }
+
+    /**
+     * Método que devuelve el número de soluciones guardadas.
+     * @return número de soluciones.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Método que comprueba si una solución ya se ha visto.
+     * @param hash Hash de la solución.
+     * @return true si está en el conjunto.
+     */
+    public boolean contains(long hash) {
+        return this.used[this.find(hash)];
+    }
+
+    /**
+     * Método que devuelve la fitness guardada de una solución.
+     * @param hash Hash de la solución.
+     * @return fitness, o NO_EVALUATED si la solución no se ha visto.
+     */
+    public double getFitness(long hash) {
+        int slot = this.find(hash);
+        return this.used[slot] ? this.values[slot] : NO_EVALUATED;
+    }
+
+    /**
+     * Método que guarda una solución con su fitness, o la actualiza si ya estaba.
+     * @param hash Hash de la solución.
+     * @param fitness Fitness de la solución.
+     * @return true si la solución no estaba.
+     */
+    public boolean put(long hash, double fitness) {
+        int slot = this.find(hash);
+        this.values[slot] = fitness;
+        if(this.used[slot]) {
+            return false;
+        }
+        this.keys[slot] = hash;
+        this.used[slot] = true;
+        this.size++;
+        if(this.size * 2 > this.keys.length) {
+            this.grow();
+        }
+        return true;
+    }
+
+    /**
+     * Método que devuelve la posición de un hash en la tabla, o la posición libre
+     * donde iría, con sondeo lineal.
+     * @param hash Hash de la solución.
+     * @return posición.
+     */
+    private int find(long hash) {
+        int mask = this.keys.length - 1;
+        // los bits altos del hash ya están mezclados; se pliegan sobre los bajos
+        int slot = (int)(hash ^ (hash >>> 32)) & mask;
+        while(this.used[slot] && this.keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Método que dobla el tamaño de la tabla y recoloca las soluciones guardadas.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        double[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new double[oldKeys.length * 2];
+        this.used = new boolean[oldKeys.length * 2];
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldUsed[i]) {
+                int slot = this.find(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+                this.used[slot] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package es.ull.esit.top;
+
+import java.util.Arrays;
+
+/**
+ * Rejilla uniforme sobre las coordenadas de los clientes. Guarda la celda de cada
+ * cliente y el mayor dueTime de cada celda, de modo que una celda entera puede
+ * descartarse si desde un punto no se llega a ella antes de que cierren todas sus
+ * ventanas de tiempo. El depósito (nodo 0) no se indexa. Las cotas suponen
+ * distancias euclídeas.
+ */
+public class TOPTWSpatialIndex {
+    public static final int CUSTOMERS_PER_CELL = 4;
+    // margen para los bordes de celda y las distancias guardadas en float
+    private static final double RELATIVE_TOLERANCE = 1e-6;
+
+    private double minX;
+    private double minY;
+    private double cellWidth;
+    private double cellHeight;
+    private int columns;
+    private int rows;
+    private int[] cellOf;
+    private double[] cellMaxDueTime;
+    private double maxDueTime;
+
+    /**
+     * Constructor de la clase TOPTWSpatialIndex.
+     * @param x Coordenada x de cada nodo.
+     * @param y Coordenada y de cada nodo.
+     * @param dueTime Fin de la ventana de tiempo de cada nodo.
+     * @param customers Número de clientes (nodos 1..customers).
+     */
+    public TOPTWSpatialIndex(double[] x, double[] y, double[] dueTime, int customers) {
+        this.minX = Double.MAX_VALUE;
+        this.minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for(int c = 1; c <= customers; c++) {
+            this.minX = Math.min(this.minX, x[c]);
+            this.minY = Math.min(this.minY, y[c]);
+            maxX = Math.max(maxX, x[c]);
+            maxY = Math.max(maxY, y[c]);
+        }
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt((double) customers / CUSTOMERS_PER_CELL)));
+        this.columns = side;
+        this.rows = side;
+        this.cellWidth = customers > 0 && maxX > this.minX ? (maxX - this.minX) / side : 1.0;
+        this.cellHeight = customers > 0 && maxY > this.minY ? (maxY - this.minY) / side : 1.0;
+
+        int cells = this.columns * this.rows;
+        this.cellOf = new int[customers + 1];
+        this.cellMaxDueTime = new double[cells];
+        Arrays.fill(this.cellMaxDueTime, -Double.MAX_VALUE);
+        this.maxDueTime = -Double.MAX_VALUE;
+        for(int c = 1; c <= customers; c++) {
+            int cell = this.getRow(y[c]) * this.columns + this.getColumn(x[c]);
+            this.cellOf[c] = cell;
+            this.cellMaxDueTime[cell] = Math.max(this.cellMaxDueTime[cell], dueTime[c]);
+            this.maxDueTime = Math.max(this.maxDueTime, dueTime[c]);
+        }
+    }
+
+    /**
+     * Método que devuelve la columna que contiene una coordenada x, acotada a la rejilla.
+     * @param x Coordenada x.
+     * @return columna.
+     */
+    private int getColumn(double x) {
+        int column = (int) Math.floor((x - this.minX) / this.cellWidth);
+        return Math.max(0, Math.min(this.columns - 1, column));
+    }
+
+    /**
+     * Método que devuelve la fila que contiene una coordenada y, acotada a la rejilla.
+     * @param y Coordenada y.
+     * @return fila.
+     */
+    private int getRow(double y) {
+        int row = (int) Math.floor((y - this.minY) / this.cellHeight);
+        return Math.max(0, Math.min(this.rows - 1, row));
+    }
+
+    /**
+     * Método que devuelve el número de columnas.
+     * @return columnas.
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Método que devuelve el número de filas.
+     * @return filas.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Método que devuelve la distancia horizontal desde un punto a una columna de la rejilla.
+     * @param column Columna.
+     * @param x Coordenada x del punto.
+     * @return distancia, 0 si el punto está dentro de la columna.
+     */
+    public double getGapX(int column, double x) {
+        double margin = this.cellWidth * RELATIVE_TOLERANCE;
+        double left = this.minX + column * this.cellWidth - margin;
+        return Math.max(0.0, Math.max(left - x, x - (left + this.cellWidth + 2 * margin)));
+    }
+
+    /**
+     * Método que devuelve la distancia vertical desde un punto a una fila de la rejilla.
+     * @param row Fila.
+     * @param y Coordenada y del punto.
+     * @return distancia, 0 si el punto está dentro de la fila.
+     */
+    public double getGapY(int row, double y) {
+        double margin = this.cellHeight * RELATIVE_TOLERANCE;
+        double bottom = this.minY + row * this.cellHeight - margin;
+        return Math.max(0.0, Math.max(bottom - y, y - (bottom + this.cellHeight + 2 * margin)));
+    }
+
+    /**
+     * Método que comprueba si una celda puede quedar a una distancia menor o igual que
+     * un límite, a partir de las distancias a su columna y a su fila. Compara cuadrados
+     * para no calcular raíces.
+     * @param gapX Distancia a la columna (getGapX).
+     * @param gapY Distancia a la fila (getGapY).
+     * @param limit Distancia máxima.
+     * @return false solo si ningún punto de la celda está dentro del límite.
+     */
+    public boolean isWithin(double gapX, double gapY, double limit) {
+        double scale = 1.0 - RELATIVE_TOLERANCE;
+        return limit >= 0.0 && (gapX * gapX + gapY * gapY) * scale * scale <= limit * limit;
+    }
+
+    /**
+     * Método que devuelve el mayor dueTime de los clientes de una celda.
+     * @param cell Celda.
+     * @return mayor dueTime, o -Double.MAX_VALUE si la celda está vacía.
+     */
+    public double getMaxDueTime(int cell) {
+        return this.cellMaxDueTime[cell];
+    }
+
+    /**
+     * Método que devuelve el mayor dueTime de todos los clientes.
+     * @return mayor dueTime.
+     */
+    public double getMaxDueTime() {
+        return this.maxDueTime;
+    }
+
+    /**
+     * Método que devuelve el número de celdas.
+     * @return celdas.
+     */
+    public int getCells() {
+        return this.columns * this.rows;
+    }
+
+    /**
+     * Método que devuelve la celda de un cliente.
+     * @param customer Cliente.
+     * @return celda (fila * columnas + columna).
+     */
+    public int getCell(int customer) {
+        return this.cellOf[customer];
+    }
+}
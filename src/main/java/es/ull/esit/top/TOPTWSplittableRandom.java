@@ -0,0 +1,102 @@
+package es.ull.esit.top;
+
+/**
+ * Fuente aleatoria por defecto del GRASP. Es el generador SplitMix64 de
+ * java.util.SplittableRandom, con la misma secuencia para la misma semilla, pero
+ * con el estado en un campo: ni generar números ni cambiar de semilla (una vez por
+ * iteración del GRASP) reserva memoria.
+ */
+public class TOPTWSplittableRandom implements TOPTWRandomSource {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    /**
+     * Constructor de la clase TOPTWSplittableRandom.
+     * @param seed Semilla inicial.
+     */
+    public TOPTWSplittableRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Método que reinicia la secuencia a partir de una semilla.
+     * @param seed Semilla.
+     */
+    @Override
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Método que devuelve un entero uniforme en [0, bound), descartando los valores
+     * que darían más peso a los primeros enteros, como SplittableRandom.
+     * @param bound Límite superior (exclusivo).
+     * @return entero aleatorio.
+     */
+    @Override
+    public int nextInt(int bound) {
+        if(bound <= 0) {
+            throw new IllegalArgumentException("El límite debe ser positivo: " + bound);
+        }
+        int r = mix32(this.nextState());
+        int m = bound - 1;
+        if((bound & m) == 0) {
+            r &= m;
+        } else {
+            int u = r >>> 1;
+            while(u + m - (r = u % bound) < 0) {
+                u = mix32(this.nextState()) >>> 1;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Método que devuelve un real uniforme en [0, 1), con 53 bits como SplittableRandom.
+     * @return real aleatorio.
+     */
+    @Override
+    public double nextDouble() {
+        return (mix64(this.nextState()) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Método que crea una fuente independiente para otro hilo.
+     * @return nueva fuente aleatoria.
+     */
+    @Override
+    public TOPTWRandomSource copy() {
+        return new TOPTWSplittableRandom(mix64(this.nextState()));
+    }
+
+    /**
+     * Método que avanza el estado.
+     * @return nuevo estado.
+     */
+    private long nextState() {
+        this.state += GOLDEN_GAMMA;
+        return this.state;
+    }
+
+    /**
+     * Método que mezcla el estado en 64 bits (finalizador de SplitMix64).
+     * @param z Estado.
+     * @return valor pseudoaleatorio.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Método que mezcla el estado en 32 bits.
+     * @param z Estado.
+     * @return valor pseudoaleatorio.
+     */
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
@@ -0,0 +1,203 @@
+package es.ull.esit.top;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lector de tokens numéricos para las instancias de texto. Recorre el buffer de
+ * caracteres una sola vez, sin expresiones regulares ni split, y convierte los
+ * números directamente. Los espacios, tabuladores y retornos de carro separan
+ * tokens; los saltos de línea solo importan en skipLine.
+ */
+public class TOPTWTokenizer implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private char[] token;
+    private int tokenLength;
+
+    /**
+     * Constructor de la clase TOPTWTokenizer.
+     * @param reader Origen de los caracteres.
+     */
+    public TOPTWTokenizer(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.token = new char[64];
+        this.tokenLength = 0;
+    }
+
+    /**
+     * Método que devuelve el siguiente carácter sin consumirlo.
+     * @return carácter, o -1 al final del fichero.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    private int peek() throws IOException {
+        if(this.position == this.limit) {
+            this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+            this.position = 0;
+            if(this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position];
+    }
+
+    /**
+     * Método que lee el siguiente token en el buffer token.
+     * @throws IOException Si ocurre un error de lectura o se acaba el fichero.
+     */
+    private void readToken() throws IOException {
+        int c = this.peek();
+        while(c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            this.position++;
+            c = this.peek();
+        }
+        if(c == -1) {
+            throw new IOException("Fin de fichero inesperado");
+        }
+        this.tokenLength = 0;
+        while(c != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+            if(this.tokenLength == this.token.length) {
+                char[] larger = new char[this.token.length * 2];
+                System.arraycopy(this.token, 0, larger, 0, this.tokenLength);
+                this.token = larger;
+            }
+            this.token[this.tokenLength++] = (char) c;
+            this.position++;
+            c = this.peek();
+        }
+    }
+
+    /**
+     * Método que descarta el siguiente token.
+     * @throws IOException Si ocurre un error de lectura o se acaba el fichero.
+     */
+    public void skipToken() throws IOException {
+        this.readToken();
+    }
+
+    /**
+     * Método que descarta lo que queda de la línea actual, incluido el salto de línea.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    public void skipLine() throws IOException {
+        int c = this.peek();
+        while(c != -1 && c != '\n') {
+            this.position++;
+            c = this.peek();
+        }
+        if(c == '\n') {
+            this.position++;
+        }
+    }
+
+    /**
+     * Método que lee un entero.
+     * @return el entero.
+     * @throws IOException Si ocurre un error de lectura o el token no es un entero.
+     */
+    public int nextInt() throws IOException {
+        this.readToken();
+        int start = 0;
+        boolean negative = false;
+        if(this.token[0] == '-' || this.token[0] == '+') {
+            negative = this.token[0] == '-';
+            start = 1;
+        }
+        if(start == this.tokenLength) {
+            throw new IOException("Entero no válido: " + new String(this.token, 0, this.tokenLength));
+        }
+        // el valor absoluto de un negativo puede llegar a Integer.MAX_VALUE + 1
+        long limit = negative ? Integer.MAX_VALUE + 1L : Integer.MAX_VALUE;
+        long value = 0;
+        for(int i = start; i < this.tokenLength; i++) {
+            int digit = this.token[i] - '0';
+            if(digit < 0 || digit > 9) {
+                throw new IOException("Entero no válido: " + new String(this.token, 0, this.tokenLength));
+            }
+            value = value * 10 + digit;
+            if(value > limit) {
+                throw new IOException("Entero fuera de rango: " + new String(this.token, 0, this.tokenLength));
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Método que lee un número real. Los números con pocas cifras y sin exponente se
+     * calculan como mantisa entera entre potencia de diez, que es exacto y da el mismo
+     * valor que Double.parseDouble; el resto se delega en Double.parseDouble.
+     * @return el número.
+     * @throws IOException Si ocurre un error de lectura o el token no es un número.
+     */
+    public double nextDouble() throws IOException {
+        this.readToken();
+        int start = 0;
+        boolean negative = false;
+        if(this.token[0] == '-' || this.token[0] == '+') {
+            negative = this.token[0] == '-';
+            start = 1;
+        }
+        long mantissa = 0;
+        int decimals = -1;
+        boolean digits = false;
+        for(int i = start; i < this.tokenLength; i++) {
+            char c = this.token[i];
+            if(c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits = true;
+                if(decimals >= 0) {
+                    decimals++;
+                }
+                if(mantissa >= MAX_EXACT_MANTISSA) {
+                    return this.parseToken();
+                }
+            } else if(c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return this.parseToken();
+            }
+        }
+        if(!digits || decimals >= POWERS_OF_TEN.length) {
+            return this.parseToken();
+        }
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Método que convierte el token actual con Double.parseDouble.
+     * @return el número.
+     * @throws IOException Si el token no es un número.
+     */
+    private double parseToken() throws IOException {
+        String text = new String(this.token, 0, this.tokenLength);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Número no válido: " + text, e);
+        }
+    }
+
+    /**
+     * Método que cierra el origen de los caracteres.
+     * @throws IOException Si ocurre un error al cerrar.
+     */
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
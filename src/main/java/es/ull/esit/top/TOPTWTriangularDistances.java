@@ -0,0 +1,49 @@
+package es.ull.esit.top;
+
+/**
+ * Matriz de distancias simétrica de la que solo se guarda el triángulo inferior,
+ * sin diagonal, en un float[]. Ocupa una cuarta parte que la matriz plana de doubles.
+ */
+public class TOPTWTriangularDistances implements TOPTWDistances {
+    private double[] x;
+    private double[] y;
+    private float[] distances;
+
+    /**
+     * Constructor de la clase TOPTWTriangularDistances.
+     * @param x Coordenadas x, una por nodo.
+     * @param y Coordenadas y, una por nodo.
+     */
+    public TOPTWTriangularDistances(double[] x, double[] y) {
+        this.x = x;
+        this.y = y;
+        long size = x.length;
+        this.distances = new float[(int)(size * (size - 1) / 2)];
+    }
+
+    /**
+     * Método que calcula el triángulo de distancias.
+     */
+    @Override
+    public void calculate() {
+        int index = 0;
+        for(int i = 1; i < this.x.length; i++) {
+            for(int j = 0; j < i; j++) {
+                double diffXs = this.x[i] - this.x[j];
+                double diffYs = this.y[i] - this.y[j];
+                this.distances[index++] = (float) Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+            }
+        }
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        if(i == j) {
+            return 0.0;
+        }
+        if(i < j) {
+            int aux = i; i = j; j = aux;
+        }
+        return this.distances[i * (i - 1) / 2 + j];
+    }
+}
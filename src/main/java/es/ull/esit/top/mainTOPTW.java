@@ -1,48 +1,110 @@
-package top;
-
-import es.ull.esit.top.TOPTW;
-import es.ull.esit.top.TOPTWGRASP;
-import es.ull.esit.top.TOPTWReader;
-import es.ull.esit.top.TOPTWSolution;
-
-/**
- * Main class for the TOPTW problem.
- */
-public class mainTOPTW {
-    /**
-     * Main method.
-     * @param args the command line arguments
-     */
-    public static void main(String[] args) {
-
-        String[] instances = new String[29];
-
-        instances[0] = "c101.txt"; instances[3] = "c104.txt"; instances[6] = "c107.txt";
-        instances[1] = "c102.txt"; instances[4] = "c105.txt"; instances[7] = "c108.txt";
-        instances[2] = "c103.txt"; instances[5] = "c106.txt"; instances[8] = "c109.txt";
-
-        instances[9] = "r101.txt";  instances[12] = "r104.txt"; instances[15] = "r107.txt";
-        instances[10] = "r102.txt"; instances[13] = "r105.txt"; instances[16] = "r108.txt";
-        instances[11] = "r103.txt"; instances[14] = "r106.txt"; instances[17] = "r109.txt";
-        instances[18] = "r110.txt"; instances[19] = "r111.txt"; instances[20] = "r112.txt";
-
-        instances[21] = "rc101.txt"; instances[24] = "rc104.txt"; instances[27] = "rc107.txt";
-        instances[22] = "rc102.txt"; instances[25] = "rc105.txt"; instances[28] = "rc108.txt";
-        instances[23] = "rc103.txt"; instances[26] = "rc106.txt";
-
-        for(int i = 0; i < instances.length; i++) {
-            String INSTANCE = "Instances/TOPTW/"+instances[i];
-            TOPTW problem = TOPTWReader.readProblem(INSTANCE);
-            TOPTWSolution solution = new TOPTWSolution(problem);
-            TOPTWGRASP grasp = new TOPTWGRASP(solution);
-
-            System.out.println(" --> Instance: "+instances[i]);
-            grasp.GRASP(10000, 3);
-            grasp.GRASP(10000, 5);
-            grasp.GRASP(10000, 7);
-            System.out.println("");
-        }
-    }
-
-}
-
+package es.ull.esit.top;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main class for the TOPTW problem. Runs the GRASP over every (instance, RCL size,
+ * seed) combination in parallel and writes the results as CSV or JSON.
+ *
+ * Usage: mainTOPTW [-iterations n] [-time ms] [-rcl 3,5,7] [-reactive] [-seeds 1,2]
+ *                  [-threads n] [-format csv|json] [-output file] [instance or glob ...]
+ * With -time, each job stops at that many milliseconds even if iterations remain.
+ * With -reactive, one reactive GRASP over all the RCL sizes replaces the per-size runs.
+ * Without instances, the 29 Solomon instances of Instances/TOPTW are used.
+ */
+public class mainTOPTW {
+    public static final int DEFAULT_ITERATIONS = 10000;
+    public static final String DEFAULT_RCL_SIZES = "3,5,7";
+    public static final String DEFAULT_SEEDS = "0";
+
+    /**
+     * Main method.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int iterations = DEFAULT_ITERATIONS;
+        int time = 0;
+        boolean reactive = false;
+        String rclSizes = DEFAULT_RCL_SIZES;
+        String seeds = DEFAULT_SEEDS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String format = "csv";
+        String output = null;
+        List<String> patterns = new ArrayList<String>();
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "-time":       time = Integer.parseInt(args[++i]); break;
+                case "-rcl":        rclSizes = args[++i]; break;
+                case "-reactive":   reactive = true; break;
+                case "-seeds":      seeds = args[++i]; break;
+                case "-threads":    threads = Integer.parseInt(args[++i]); break;
+                case "-format":     format = args[++i]; break;
+                case "-output":     output = args[++i]; break;
+                default:            patterns.add(args[i]); break;
+            }
+        }
+        if(patterns.isEmpty()) {
+            for(String instance : mainTOPTW.defaultInstances()) {
+                patterns.add("Instances/TOPTW/"+instance);
+            }
+        }
+
+        String[] parts = rclSizes.split(",");
+        int[] rcl = new int[parts.length];
+        for(int i = 0; i < parts.length; i++) { rcl[i] = Integer.parseInt(parts[i].trim()); }
+        parts = seeds.split(",");
+        long[] seed = new long[parts.length];
+        for(int i = 0; i < parts.length; i++) { seed[i] = Long.parseLong(parts[i].trim()); }
+
+        TOPTWBatchRunner runner = new TOPTWBatchRunner(threads, iterations, rcl, seed);
+        runner.setSolutionTime(time);
+        runner.setReactive(reactive);
+        List<TOPTWBatchJob> jobs = runner.run(TOPTWBatchRunner.expandInstances(patterns));
+        try {
+            Writer out = output == null ? new BufferedWriter(new OutputStreamWriter(System.out)) : new BufferedWriter(new FileWriter(output));
+            if(format.equals("json")) {
+                TOPTWBatchRunner.writeJSON(jobs, out);
+            } else {
+                TOPTWBatchRunner.writeCSV(jobs, out);
+            }
+            if(output != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Instances used when none is given.
+     * @return instance file names
+     */
+    private static String[] defaultInstances() {
+        String[] instances = new String[29];
+
+        instances[0] = "c101.txt"; instances[3] = "c104.txt"; instances[6] = "c107.txt";
+        instances[1] = "c102.txt"; instances[4] = "c105.txt"; instances[7] = "c108.txt";
+        instances[2] = "c103.txt"; instances[5] = "c106.txt"; instances[8] = "c109.txt";
+
+        instances[9] = "r101.txt";  instances[12] = "r104.txt"; instances[15] = "r107.txt";
+        instances[10] = "r102.txt"; instances[13] = "r105.txt"; instances[16] = "r108.txt";
+        instances[11] = "r103.txt"; instances[14] = "r106.txt"; instances[17] = "r109.txt";
+        instances[18] = "r110.txt"; instances[19] = "r111.txt"; instances[20] = "r112.txt";
+
+        instances[21] = "rc101.txt"; instances[24] = "rc104.txt"; instances[27] = "rc107.txt";
+        instances[22] = "rc102.txt"; instances[25] = "rc105.txt"; instances[28] = "rc108.txt";
+        instances[23] = "rc103.txt"; instances[26] = "rc106.txt";
+
+        return instances;
+    }
+
+}
+
@@ -0,0 +1,46 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWBatchJob: el trabajo es reactivo según lo indique el runner, no
+ * según el número de tamaños de RCL, y ejecuta el mismo GRASP que TOPTWGRASP.
+ */
+public class TOPTWBatchJobTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    public static final int ITERATIONS = 8;
+
+    @Test
+    public void reactiveFlagComesFromTheRunner() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        assertTrue(new TOPTWBatchJob("c101.txt", problem, new int[]{3}, true, 1, ITERATIONS, 0).isReactive());
+        assertFalse(new TOPTWBatchJob("c101.txt", problem, new int[]{1, 2, 3}, false, 1, ITERATIONS, 0).isReactive());
+    }
+
+    @Test
+    public void jobMatchesGRASP() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWBatchJob job = new TOPTWBatchJob("r105.txt", problem, new int[]{2, 3}, false, 9, ITERATIONS, 0);
+        job.run();
+        TOPTWGRASP grasp = TOPTWGRASPTest.newGRASP(problem, 9);
+        grasp.GRASP(ITERATIONS, 2);
+        assertEquals(ITERATIONS, job.getIterations());
+        assertEquals(grasp.getAverageFitness(), job.getAverageFitness(), 0.0);
+        assertEquals(grasp.getBestFitness(), job.getBestFitness(), 0.0);
+    }
+
+    @Test
+    public void reactiveJobWithOneSizeMatchesReactiveGRASP() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWBatchJob job = new TOPTWBatchJob("r105.txt", problem, new int[]{3}, true, 9, ITERATIONS, 0);
+        job.run();
+        TOPTWGRASP grasp = TOPTWGRASPTest.newGRASP(problem, 9);
+        grasp.reactiveGRASP(ITERATIONS, new TOPTWReactive(new int[]{3}));
+        assertEquals(grasp.getAverageFitness(), job.getAverageFitness(), 0.0);
+        assertEquals(grasp.getBestFitness(), job.getBestFitness(), 0.0);
+    }
+}
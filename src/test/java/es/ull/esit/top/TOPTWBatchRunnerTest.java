@@ -0,0 +1,154 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWBatchRunner: la expansión de patrones, que el pool dé los mismos
+ * resultados que ejecutar cada trabajo por separado y el formato de la salida CSV y JSON.
+ */
+public class TOPTWBatchRunnerTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    public static final int ITERATIONS = 4;
+    public static final int[] RCL_SIZES = {3, 5};
+    public static final long[] SEEDS = {1, 2};
+
+    @Test
+    public void expandInstancesExpandsGlobs() {
+        List<String> expected = new ArrayList<String>();
+        for(int i = 1; i <= 9; i++) {
+            expected.add(new File(INSTANCES_DIR + "c10" + i + ".txt").getPath());
+        }
+        assertEquals(expected, TOPTWBatchRunner.expandInstances(Arrays.asList(INSTANCES_DIR + "c10?.txt")));
+        // los ficheros se dejan tal cual y los patrones se expanden en orden alfabético
+        List<String> instances = TOPTWBatchRunner.expandInstances(Arrays.asList(INSTANCES_DIR + "r105.txt", INSTANCES_DIR + "rc10[12].txt"));
+        assertEquals(Arrays.asList(INSTANCES_DIR + "r105.txt", new File(INSTANCES_DIR + "rc101.txt").getPath(),
+                new File(INSTANCES_DIR + "rc102.txt").getPath()), instances);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void expandInstancesRejectsUnmatchedGlobs() {
+        TOPTWBatchRunner.expandInstances(Arrays.asList(INSTANCES_DIR + "zz*.txt"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runnerRejectsZeroThreads() {
+        new TOPTWBatchRunner(0, ITERATIONS, RCL_SIZES, SEEDS);
+    }
+
+    @Test
+    public void poolMatchesSequentialJobs() {
+        List<String> instances = Arrays.asList(INSTANCES_DIR + "c101.txt", INSTANCES_DIR + "rc101.txt");
+        List<TOPTWBatchJob> jobs = new TOPTWBatchRunner(3, ITERATIONS, RCL_SIZES, SEEDS).run(instances);
+        assertEquals(instances.size() * RCL_SIZES.length * SEEDS.length, jobs.size());
+        int j = 0;
+        for(String instance : instances) {
+            for(int rclSize : RCL_SIZES) {
+                for(long seed : SEEDS) {
+                    TOPTWBatchJob job = jobs.get(j++);
+                    assertEquals(instance, job.getInstance());
+                    assertFalse(job.isReactive());
+                    assertArrayEquals(new int[]{rclSize}, job.getRCLSizes());
+                    assertEquals(seed, job.getSeed());
+                    TOPTWBatchJob alone = new TOPTWBatchJob(instance, TOPTWReader.readProblem(instance), new int[]{rclSize}, false, seed, ITERATIONS, 0);
+                    alone.run();
+                    String run = instance + " con RCL " + rclSize + " y semilla " + seed;
+                    assertEquals(run, alone.getAverageFitness(), job.getAverageFitness(), 0.0);
+                    assertEquals(run, alone.getBestFitness(), job.getBestFitness(), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reactiveRunnerMakesOneJobPerInstanceAndSeed() {
+        List<String> instances = Arrays.asList(INSTANCES_DIR + "r105.txt");
+        TOPTWBatchRunner runner = new TOPTWBatchRunner(2, ITERATIONS, RCL_SIZES, SEEDS);
+        runner.setReactive(true);
+        List<TOPTWBatchJob> jobs = runner.run(instances);
+        assertEquals(SEEDS.length, jobs.size());
+        for(int j = 0; j < SEEDS.length; j++) {
+            TOPTWBatchJob job = jobs.get(j);
+            assertTrue(job.isReactive());
+            assertArrayEquals(RCL_SIZES, job.getRCLSizes());
+            TOPTWBatchJob alone = new TOPTWBatchJob(instances.get(0), TOPTWReader.readProblem(instances.get(0)), RCL_SIZES, true, SEEDS[j], ITERATIONS, 0);
+            alone.run();
+            assertEquals(alone.getAverageFitness(), job.getAverageFitness(), 0.0);
+            assertEquals(alone.getBestFitness(), job.getBestFitness(), 0.0);
+        }
+    }
+
+    /**
+     * Método que ejecuta un trabajo sobre c101.
+     * @param iterations Iteraciones del GRASP.
+     * @return trabajo ejecutado.
+     */
+    private static TOPTWBatchJob runJob(int iterations) {
+        String instance = INSTANCES_DIR + "c101.txt";
+        TOPTWBatchJob job = new TOPTWBatchJob(instance, TOPTWReader.readProblem(instance), new int[]{3}, false, 7, iterations, 0);
+        job.run();
+        return job;
+    }
+
+    @Test
+    public void csvHasAHeaderAndOneRowPerJob() throws IOException {
+        List<TOPTWBatchJob> jobs = Arrays.asList(runJob(ITERATIONS), runJob(1));
+        StringWriter out = new StringWriter();
+        TOPTWBatchRunner.writeCSV(jobs, out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(jobs.size() + 1, lines.length);
+        assertEquals("instance,reactive,rcl,seed,iterations,average,best,millis,iterationsPerSecond", lines[0]);
+        for(int i = 0; i < jobs.size(); i++) {
+            TOPTWBatchJob job = jobs.get(i);
+            String[] fields = lines[i + 1].split(",");
+            assertEquals(9, fields.length);
+            assertEquals(job.getInstance(), fields[0]);
+            assertEquals("false", fields[1]);
+            assertEquals("3", fields[2]);
+            assertEquals(job.getSeed(), Long.parseLong(fields[3]));
+            assertEquals(job.getIterations(), Integer.parseInt(fields[4]));
+            assertEquals(job.getAverageFitness(), Double.parseDouble(fields[5]), 0.0);
+            assertEquals(job.getBestFitness(), Double.parseDouble(fields[6]), 0.0);
+            assertEquals(job.getElapsedMillis(), Double.parseDouble(fields[7]), 0.0);
+        }
+    }
+
+    @Test
+    public void jsonWritesOneObjectPerJob() throws IOException {
+        TOPTWBatchJob job = runJob(ITERATIONS);
+        StringWriter out = new StringWriter();
+        TOPTWBatchRunner.writeJSON(Arrays.asList(job, job), out);
+        String row = "  {\"instance\": \"" + job.getInstance() + "\", \"reactive\": false, \"rcl\": [3], \"seed\": 7, \"iterations\": " + ITERATIONS
+                + ", \"average\": " + job.getAverageFitness() + ", \"best\": " + job.getBestFitness()
+                + ", \"millis\": " + job.getElapsedMillis() + ", \"iterationsPerSecond\": ";
+        String[] lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("[", lines[0]);
+        assertTrue(lines[1], lines[1].startsWith(row) && lines[1].endsWith("},"));
+        assertTrue(lines[2], lines[2].startsWith(row) && lines[2].endsWith("}"));
+        assertEquals("]", lines[3]);
+    }
+
+    @Test
+    public void jsonWritesNullForJobsWithoutIterations() throws IOException {
+        TOPTWBatchJob job = runJob(0);
+        assertTrue(Double.isNaN(job.getAverageFitness()));
+        StringWriter out = new StringWriter();
+        TOPTWBatchRunner.writeJSON(Arrays.asList(job), out);
+        String text = out.toString();
+        assertTrue(text, text.contains(", \"average\": null, "));
+        assertFalse(text, text.contains("NaN"));
+        assertFalse(text, text.contains("Infinity"));
+    }
+}
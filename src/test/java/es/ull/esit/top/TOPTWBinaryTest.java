@@ -0,0 +1,99 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Pruebas del formato binario: un problema escrito con TOPTWBinaryWriter y leído con
+ * TOPTWBinaryReader debe ser el mismo, con la matriz de distancias mapeada o sin ella.
+ */
+public class TOPTWBinaryTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    public static final String[] INSTANCES = {"c101.txt", "r105.txt", "rc101.txt", "pr01.txt"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Método que comprueba que dos problemas tienen los mismos datos y distancias.
+     * @param expected Problema original.
+     * @param actual Problema leído.
+     */
+    private static void checkProblem(TOPTW expected, TOPTW actual) {
+        assertEquals(expected.getPOIs(), actual.getPOIs());
+        assertEquals(expected.getVehicles(), actual.getVehicles());
+        assertEquals(expected.getMaxTimePerRoute(), actual.getMaxTimePerRoute(), 0.0);
+        assertEquals(expected.getMaxRoutes(), actual.getMaxRoutes(), 0.0);
+        for(int i = 0; i <= expected.getPOIs(); i++) {
+            assertEquals(expected.getX(i), actual.getX(i), 0.0);
+            assertEquals(expected.getY(i), actual.getY(i), 0.0);
+            assertEquals(expected.getScore(i), actual.getScore(i), 0.0);
+            assertEquals(expected.getServiceTime(i), actual.getServiceTime(i), 0.0);
+            assertEquals(expected.getReadyTime(i), actual.getReadyTime(i), 0.0);
+            assertEquals(expected.getDueTime(i), actual.getDueTime(i), 0.0);
+        }
+        for(int i = 0; i < expected.getPOIs() + expected.getVehicles(); i++) {
+            for(int j = 0; j < expected.getPOIs() + expected.getVehicles(); j++) {
+                assertEquals(i + " → " + j, expected.getDistance(i, j), actual.getDistance(i, j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripWithMatrix() throws IOException {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            File file = this.folder.newFile(instance + TOPTWBinaryReader.BINARY_EXTENSION);
+            TOPTWBinaryWriter.writeProblem(problem, file.getPath(), true);
+            TOPTW read = TOPTWBinaryReader.readProblem(file.getPath());
+            assertTrue(instance, read.getDistances() instanceof TOPTWMappedDistances);
+            checkProblem(problem, read);
+        }
+    }
+
+    @Test
+    public void roundTripWithoutMatrix() throws IOException {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            File file = this.folder.newFile(instance + TOPTWBinaryReader.BINARY_EXTENSION);
+            TOPTWBinaryWriter.writeProblem(problem, file.getPath(), false);
+            // TOPTWReader reconoce la extensión binaria
+            TOPTW read = TOPTWReader.readProblem(file.getPath());
+            assertTrue(instance, file.length() < TOPTWBinaryWriter.HEADER_BYTES
+                    + (TOPTWBinaryWriter.NODE_ARRAYS + 1) * (problem.getPOIs() + 1) * Double.BYTES);
+            checkProblem(problem, read);
+        }
+    }
+
+    @Test
+    public void roundTripKeepsMaxRoutes() throws IOException {
+        TOPTW original = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        // el número máximo de rutas no tiene por qué coincidir con el de vehículos
+        TOPTW problem = TOPTWTest.toBuilder(original).setMaxRoutes(original.getVehicles() - 1).build();
+        File file = this.folder.newFile("c101" + TOPTWBinaryReader.BINARY_EXTENSION);
+        TOPTWBinaryWriter.writeProblem(problem, file.getPath(), false);
+        TOPTW read = TOPTWBinaryReader.readProblem(file.getPath());
+        assertEquals(problem.getVehicles() - 1, read.getMaxRoutes(), 0.0);
+        checkProblem(problem, read);
+    }
+
+    @Test
+    public void graspMatchesOnTheBinaryInstance() throws IOException {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "rc101.txt");
+        File file = this.folder.newFile("rc101" + TOPTWBinaryReader.BINARY_EXTENSION);
+        TOPTWBinaryWriter.writeProblem(problem, file.getPath(), true);
+        TOPTWGRASP text = TOPTWGRASPTest.newGRASP(problem, 6);
+        text.GRASP(TOPTWGRASPTest.ITERATIONS, TOPTWGRASPTest.RCL_SIZE);
+        TOPTWGRASP binary = TOPTWGRASPTest.newGRASP(TOPTWBinaryReader.readProblem(file.getPath()), 6);
+        binary.GRASP(TOPTWGRASPTest.ITERATIONS, TOPTWGRASPTest.RCL_SIZE);
+        assertEquals(text.getAverageFitness(), binary.getAverageFitness(), 0.0);
+        assertEquals(text.getBestFitness(), binary.getBestFitness(), 0.0);
+    }
+}
@@ -0,0 +1,127 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWCandidates: la RCL que sale del heap acotado debe tener los candidatos
+ * de menor coste en el mismo orden que la ordenación estable de Collections.sort, y la
+ * lista debe poder reutilizarse.
+ */
+public class TOPTWCandidatesTest {
+    public static final int CANDIDATES = 200;
+
+    /**
+     * Método que llena la lista con costes repetidos y devuelve los mismos candidatos como
+     * arrays, en orden de inserción.
+     * @param candidates Lista de candidatos.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @param size Número de candidatos.
+     * @param random Generador de los costes.
+     * @return candidatos: cliente, ruta, predecesor, coste y score.
+     */
+    static ArrayList<double[]> fill(TOPTWCandidates candidates, int maxSizeRCL, int size, Random random) {
+        ArrayList<double[]> expected = new ArrayList<double[]>();
+        candidates.clear(maxSizeRCL);
+        for(int c = 1; c <= size; c++) {
+            // pocos costes distintos para que haya empates
+            double[] candidate = {c, random.nextInt(4), random.nextInt(size), random.nextInt(10) * 2.5, random.nextInt(30)};
+            candidates.add((int) candidate[0], (int) candidate[1], (int) candidate[2], candidate[3], candidate[4]);
+            expected.add(candidate);
+        }
+        return expected;
+    }
+
+    /**
+     * Método que comprueba que la RCL coincide posición a posición con la esperada.
+     * @param expected RCL esperada.
+     * @param candidates Lista de candidatos.
+     */
+    static void assertSameCandidates(ArrayList<double[]> expected, TOPTWCandidates candidates) {
+        assertEquals(expected.size(), candidates.getRCLSize());
+        for(int p = 0; p < expected.size(); p++) {
+            double[] candidate = expected.get(p);
+            assertEquals("posición " + p, (int) candidate[0], candidates.getCustomer(p));
+            assertEquals("posición " + p, (int) candidate[1], candidates.getRoute(p));
+            assertEquals("posición " + p, (int) candidate[2], candidates.getPredecessor(p));
+            assertEquals("posición " + p, candidate[3], candidates.getCost(p), 0.0);
+            assertEquals("posición " + p, candidate[4], candidates.getScore(p), 0.0);
+        }
+    }
+
+    /**
+     * Método que ordena los candidatos por coste con la ordenación estable de Collections.sort
+     * y se queda con los primeros.
+     * @param candidates Candidatos en orden de inserción.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @return RCL esperada.
+     */
+    static ArrayList<double[]> expectedRCL(ArrayList<double[]> candidates, int maxSizeRCL) {
+        ArrayList<double[]> sorted = new ArrayList<double[]>(candidates);
+        Collections.sort(sorted, new Comparator<double[]>() {
+            public int compare(double[] a, double[] b) {
+                return Double.compare(a[3], b[3]);
+            }
+        });
+        return new ArrayList<double[]>(sorted.subList(0, Math.min(maxSizeRCL, sorted.size())));
+    }
+
+    @Test
+    public void buildRCLKeepsTheLowestCostsInStableOrder() {
+        Random random = new Random(1);
+        TOPTWCandidates candidates = new TOPTWCandidates(CANDIDATES);
+        for(int maxSizeRCL : new int[]{1, 2, 3, 7, 64, CANDIDATES}) {
+            for(int size = 0; size <= CANDIDATES; size += 23) {
+                ArrayList<double[]> added = fill(candidates, maxSizeRCL, size, random);
+                candidates.buildRCL();
+                assertEquals(size, candidates.size());
+                assertSameCandidates(expectedRCL(added, maxSizeRCL), candidates);
+            }
+        }
+    }
+
+    @Test
+    public void tiesKeepTheInsertionOrder() {
+        TOPTWCandidates candidates = new TOPTWCandidates(CANDIDATES);
+        candidates.clear(5);
+        for(int c = 1; c <= CANDIDATES; c++) {
+            candidates.add(c, 0, 0, 10.0, c);
+        }
+        candidates.buildRCL();
+        assertEquals(5, candidates.getRCLSize());
+        for(int p = 0; p < 5; p++) {
+            assertEquals(p + 1, candidates.getCustomer(p));
+        }
+        // un candidato más barato al final entra el primero y deja fuera al último empatado
+        candidates.clear(5);
+        for(int c = 1; c <= CANDIDATES; c++) {
+            candidates.add(c, 0, 0, c == CANDIDATES ? 1.0 : 10.0, c);
+        }
+        candidates.buildRCL();
+        int[] expected = {CANDIDATES, 1, 2, 3, 4};
+        for(int p = 0; p < 5; p++) {
+            assertEquals(expected[p], candidates.getCustomer(p));
+        }
+    }
+
+    @Test
+    public void clearReusesTheList() {
+        TOPTWCandidates candidates = new TOPTWCandidates(CANDIDATES);
+        fill(candidates, 3, CANDIDATES, new Random(2));
+        candidates.buildRCL();
+        ArrayList<double[]> added = fill(candidates, CANDIDATES, CANDIDATES / 2, new Random(3));
+        assertEquals(CANDIDATES / 2, candidates.size());
+        assertEquals(CANDIDATES, candidates.getCapacity());
+        candidates.buildRCL();
+        assertSameCandidates(expectedRCL(added, CANDIDATES), candidates);
+        candidates.clear(3);
+        assertTrue(candidates.isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de los almacenes de distancias: la matriz plana, el triángulo de floats y
+ * el cálculo bajo demanda deben dar las mismas distancias.
+ */
+public class TOPTWDistancesTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    public static final String[] INSTANCES = {"c101.txt", "r105.txt", "rc101.txt", "pr10.txt"};
+    // un float conserva unas 7 cifras significativas
+    private static final double FLOAT_TOLERANCE = 1e-6;
+
+    /**
+     * Método que devuelve las coordenadas x de los nodos de un problema.
+     * @param problem Problema.
+     * @return coordenadas x.
+     */
+    static double[] getXs(TOPTW problem) {
+        double[] x = new double[problem.getPOIs() + 1];
+        for(int i = 0; i < x.length; i++) {
+            x[i] = problem.getX(i);
+        }
+        return x;
+    }
+
+    /**
+     * Método que devuelve las coordenadas y de los nodos de un problema.
+     * @param problem Problema.
+     * @return coordenadas y.
+     */
+    static double[] getYs(TOPTW problem) {
+        double[] y = new double[problem.getPOIs() + 1];
+        for(int i = 0; i < y.length; i++) {
+            y[i] = problem.getY(i);
+        }
+        return y;
+    }
+
+    @Test
+    public void storagesAgree() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            double[] x = getXs(problem), y = getYs(problem);
+            TOPTWDistances flat = new TOPTWFlatDistances(x, y);
+            TOPTWDistances triangular = new TOPTWTriangularDistances(x, y);
+            TOPTWDistances euclidean = new TOPTWEuclideanDistances(x, y);
+            flat.calculate();
+            triangular.calculate();
+            euclidean.calculate();
+            for(int i = 0; i < x.length; i++) {
+                assertEquals(instance, 0.0, triangular.getDistance(i, i), 0.0);
+                for(int j = 0; j < x.length; j++) {
+                    double expected = Math.sqrt((x[i] - x[j]) * (x[i] - x[j]) + (y[i] - y[j]) * (y[i] - y[j]));
+                    String arc = instance + ": " + i + " → " + j;
+                    assertEquals(arc, expected, flat.getDistance(i, j), 0.0);
+                    assertEquals(arc, expected, euclidean.getDistance(i, j), 0.0);
+                    assertEquals(arc, expected, triangular.getDistance(i, j), FLOAT_TOLERANCE * Math.max(1.0, expected));
+                    assertEquals(arc, triangular.getDistance(i, j), triangular.getDistance(j, i), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void problemUsesTheChosenStorage() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        assertTrue(problem.getDistances() instanceof TOPTWFlatDistances);
+        for(int i = 0; i <= problem.getPOIs(); i++) {
+            for(int j = 0; j <= problem.getPOIs(); j++) {
+                assertEquals(problem.getDistances().getDistance(i, j), problem.getDistance(i, j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void storageGrowsWithTheInstance() {
+        assertTrue(TOPTWDistances.forSize(new double[TOPTWDistances.FLAT_MAX_NODES], new double[TOPTWDistances.FLAT_MAX_NODES])
+                instanceof TOPTWFlatDistances);
+        int triangular = TOPTWDistances.FLAT_MAX_NODES + 1;
+        assertTrue(TOPTWDistances.forSize(new double[triangular], new double[triangular]) instanceof TOPTWTriangularDistances);
+        int euclidean = TOPTWDistances.TRIANGULAR_MAX_NODES + 1;
+        assertTrue(TOPTWDistances.forSize(new double[euclidean], new double[euclidean]) instanceof TOPTWEuclideanDistances);
+    }
+}
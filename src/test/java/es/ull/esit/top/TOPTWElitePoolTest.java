@@ -0,0 +1,117 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWElitePool y del path relinking del GRASP: el conjunto no admite
+ * repetidas, guarda copias y solo acepta soluciones peores si son distintas, y el
+ * relinking nunca empeora la solución de partida ni la deja infactible.
+ */
+public class TOPTWElitePoolTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+
+    @Test
+    public void minDistanceRoundsUp() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        assertEquals(100, problem.getPOIs());
+        assertEquals(5, TOPTWElitePool.getMinDistanceFor(problem, TOPTWElitePool.DEFAULT_MIN_DISTANCE_RATIO));
+        assertEquals(6, TOPTWElitePool.getMinDistanceFor(problem, 0.051));
+        assertEquals(1, TOPTWElitePool.getMinDistanceFor(problem, 0.0));
+        assertEquals(5, new TOPTWElitePool(problem, TOPTWElitePool.DEFAULT_CAPACITY).getMinDistance());
+    }
+
+    @Test
+    public void repeatedSolutionsAreRejected() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWElitePool pool = new TOPTWElitePool(problem, 3);
+        TOPTWSolution solution = TOPTWSolutionTest.construct(problem, 1);
+        assertTrue(pool.add(solution, solution.evaluateFitness()));
+        assertFalse(pool.add(solution, solution.evaluateFitness()));
+        assertEquals(1, pool.size());
+        // el conjunto guarda una copia
+        TOPTWSolutionTest.construct(problem, 2).copyInto(solution);
+        assertFalse(pool.get(0).iguales(solution));
+        assertEquals(pool.getFitness(0), pool.get(0).evaluateFitness(), 0.0);
+    }
+
+    @Test
+    public void fullPoolKeepsDiversity() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWElitePool pool = new TOPTWElitePool(problem, 2, problem.getPOIs() + 1);
+        TOPTWSolution first = TOPTWSolutionTest.construct(problem, 1);
+        TOPTWSolution second = TOPTWSolutionTest.construct(problem, 2);
+        TOPTWSolution third = TOPTWSolutionTest.construct(problem, 3);
+        assertTrue(pool.add(first, 10.0));
+        assertTrue(pool.add(second, 20.0));
+        // no mejora a la mejor y ninguna solución está a la distancia pedida
+        assertFalse(pool.add(third, 15.0));
+        // mejora a la mejor: sustituye a una de menor fitness
+        assertTrue(pool.add(third, 30.0));
+        assertEquals(2, pool.size());
+        boolean kept = false;
+        for(int i = 0; i < pool.size(); i++) {
+            kept |= pool.getFitness(i) == 30.0 && pool.get(i).iguales(third);
+        }
+        assertTrue(kept);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolRejectsAnotherProblem() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTW other = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWGRASPTest.newGRASP(problem, 1).setElitePool(new TOPTWElitePool(other, TOPTWElitePool.DEFAULT_CAPACITY));
+    }
+
+    @Test
+    public void relinkingGRASPKeepsFeasibleSolutions() {
+        for(String instance : new String[]{"r105.txt", "rc101.txt"}) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWGRASP grasp = TOPTWGRASPTest.newGRASP(problem, 4);
+            TOPTWElitePool pool = new TOPTWElitePool(problem, TOPTWElitePool.DEFAULT_CAPACITY);
+            grasp.setElitePool(pool);
+            grasp.GRASP(TOPTWGRASPTest.ITERATIONS, TOPTWGRASPTest.RCL_SIZE);
+            assertTrue(instance, pool.size() > 0);
+            assertTrue(instance, grasp.getBestSolution().isFeasible());
+            assertEquals(instance, grasp.getBestFitness(), grasp.getBestSolution().evaluateFitness(), 1e-6);
+            for(int i = 0; i < pool.size(); i++) {
+                assertTrue(instance, pool.get(i).isFeasible());
+                assertTrue(instance, pool.getFitness(i) <= grasp.getBestFitness());
+            }
+        }
+    }
+
+    @Test
+    public void successorDistanceIsSymmetric() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWSolution first = TOPTWSolutionTest.construct(problem, 1);
+        TOPTWSolution second = TOPTWSolutionTest.construct(problem, 2);
+        TOPTWSolution copy = new TOPTWSolution(problem);
+        first.copyInto(copy);
+        assertEquals(0, first.getSuccessorDistance(copy));
+        int distance = first.getSuccessorDistance(second);
+        assertTrue(distance > 0);
+        assertTrue(distance <= problem.getPOIs());
+        assertEquals(distance, second.getSuccessorDistance(first));
+    }
+
+    @Test
+    public void relinkNeverLosesFitness() {
+        for(String instance : new String[]{"c101.txt", "r105.txt"}) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWSolution guide = TOPTWSolutionTest.construct(problem, 11);
+            for(long seed = 1; seed <= 5; seed++) {
+                String run = instance + " con semilla " + seed;
+                TOPTWSolution solution = TOPTWSolutionTest.construct(problem, seed);
+                double fitness = solution.evaluateFitness();
+                double gain = new TOPTWPathRelinking(solution).relink(guide);
+                assertTrue(run, gain >= 0.0);
+                assertEquals(run, fitness + gain, solution.evaluateFitness(), 1e-6);
+                assertTrue(run, TOPTWSolutionTest.checkSolution(solution));
+            }
+        }
+    }
+}
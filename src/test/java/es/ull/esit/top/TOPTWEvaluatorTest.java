@@ -0,0 +1,165 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWEvaluator: el score y la factibilidad de cada solución deben
+ * coincidir con los que mantiene TOPTWSolution, con uno o con varios hilos.
+ */
+public class TOPTWEvaluatorTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    // suficientes para repartir el lote entre varios hilos
+    public static final int SOLUTIONS = 4 * TOPTWEvaluator.MIN_SOLUTIONS_PER_THREAD + 10;
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Método que invierte el orden de los clientes de una ruta.
+     * @param solution Solución.
+     * @param k Ruta.
+     */
+    static void reverseRoute(TOPTWSolution solution, int k) {
+        int depot = solution.getIndexRoute(k);
+        int[] route = new int[solution.getProblem().getPOIs()];
+        int length = 0;
+        for(int c = solution.getSuccessor(depot); c != depot; c = solution.getSuccessor(c)) {
+            route[length++] = c;
+        }
+        int pre = depot;
+        for(int i = length - 1; i >= 0; i--) {
+            solution.setSuccessor(pre, route[i]);
+            solution.setPredecessor(route[i], pre);
+            pre = route[i];
+        }
+        solution.setSuccessor(pre, depot);
+        solution.setPredecessor(depot, pre);
+        solution.updateRoute(k);
+    }
+
+    /**
+     * Método que construye soluciones con el GRASP e invierte una ruta de una de cada
+     * tres, que suele dejar de ser factible.
+     * @param problem Problema.
+     * @return soluciones.
+     */
+    static TOPTWSolution[] buildSolutions(TOPTW problem) {
+        TOPTWSolution[] solutions = new TOPTWSolution[SOLUTIONS];
+        for(int s = 0; s < SOLUTIONS; s++) {
+            TOPTWSolution solution = TOPTWSolutionTest.construct(problem, s);
+            solutions[s] = new TOPTWSolution(problem);
+            solution.copyInto(solutions[s]);
+            if(s % 3 == 0) {
+                reverseRoute(solutions[s], s % solutions[s].getCreatedRoutes());
+            }
+        }
+        return solutions;
+    }
+
+    @Test
+    public void batchMatchesSolutionBookkeeping() {
+        for(String instance : new String[]{"c101.txt", "rc101.txt"}) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWSolution[] solutions = buildSolutions(problem);
+            int infeasible = 0;
+            for(int threads : new int[]{1, 4}) {
+                double[] scores = new double[SOLUTIONS];
+                boolean[] feasible = new boolean[SOLUTIONS];
+                try (TOPTWEvaluator evaluator = new TOPTWEvaluator(problem, threads)) {
+                    // dos lotes seguidos reutilizan el pool y las marcas de visitados
+                    for(int batch = 0; batch < 2; batch++) {
+                        evaluator.evaluate(solutions, SOLUTIONS, scores, feasible);
+                        infeasible = 0;
+                        for(int s = 0; s < SOLUTIONS; s++) {
+                            String run = instance + ": solución " + s + " con " + threads + " hilos";
+                            assertEquals(run, solutions[s].evaluateFitness(), scores[s], TOLERANCE);
+                            assertEquals(run, solutions[s].isFeasible(), feasible[s]);
+                            if(!feasible[s]) {
+                                infeasible++;
+                            }
+                        }
+                    }
+                }
+            }
+            assertTrue(instance + ": ninguna solución infactible", infeasible > 0);
+            assertTrue(instance + ": ninguna solución factible", infeasible < SOLUTIONS);
+        }
+    }
+
+    @Test
+    public void singleEvaluationSetsTheObjective() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWSolution solution = TOPTWSolutionTest.construct(problem, 8);
+        try (TOPTWEvaluator evaluator = new TOPTWEvaluator(problem)) {
+            assertTrue(evaluator.evaluate(solution));
+            assertEquals(solution.evaluateFitness(), solution.getObjectiveFunctionValue(), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void packedBatchChecksRoutesAndRepeats() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        int depot = TOPTWEvaluator.DEPOT;
+        // 0: cliente 1 solo; 1: cliente 1 repetido; 2: más rutas que vehículos; 3: sin volver al depósito
+        int vehicles = problem.getVehicles();
+        int[] tour = new int[2 + 4 + (vehicles + 1) + 1];
+        int[] start = new int[5];
+        int p = 0;
+        start[0] = p;
+        tour[p++] = 1;
+        tour[p++] = depot;
+        start[1] = p;
+        tour[p++] = 1;
+        tour[p++] = depot;
+        tour[p++] = 1;
+        tour[p++] = depot;
+        start[2] = p;
+        for(int k = 0; k <= vehicles; k++) {
+            tour[p++] = depot;
+        }
+        start[3] = p;
+        tour[p++] = 1;
+        start[4] = p;
+        double[] scores = new double[4];
+        boolean[] feasible = new boolean[4];
+        try (TOPTWEvaluator evaluator = new TOPTWEvaluator(problem)) {
+            evaluator.evaluatePacked(tour, start, 4, scores, feasible);
+        }
+        assertTrue(feasible[0]);
+        assertEquals(problem.getScore(1), scores[0], 0.0);
+        assertFalse(feasible[1]);
+        assertEquals(2 * problem.getScore(1), scores[1], 0.0);
+        assertFalse(feasible[2]);
+        assertFalse(feasible[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packRejectsBatchesLargerThanAnArray() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        // count * (POIs + vehicles) desborda un int: antes de reservar nada se rechaza
+        int count = Integer.MAX_VALUE / (problem.getPOIs() + problem.getVehicles()) + 1;
+        try (TOPTWEvaluator evaluator = new TOPTWEvaluator(problem)) {
+            evaluator.pack(new TOPTWSolution[0], count);
+        }
+    }
+
+    @Test
+    public void closedEvaluatorCanStillEvaluate() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWSolution[] solutions = buildSolutions(problem);
+        double[] scores = new double[SOLUTIONS];
+        boolean[] feasible = new boolean[SOLUTIONS];
+        TOPTWEvaluator evaluator = new TOPTWEvaluator(problem, 4);
+        evaluator.evaluate(solutions, SOLUTIONS, scores, feasible);
+        evaluator.close();
+        // un lote tras close crea otro pool
+        evaluator.evaluate(solutions, SOLUTIONS, scores, feasible);
+        evaluator.close();
+        for(int s = 0; s < SOLUTIONS; s++) {
+            assertEquals(solutions[s].evaluateFitness(), scores[s], TOLERANCE);
+            assertEquals(solutions[s].isFeasible(), feasible[s]);
+        }
+    }
+}
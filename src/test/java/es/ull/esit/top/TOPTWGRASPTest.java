@@ -0,0 +1,557 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWGRASP: la caché de inserciones debe dar los mismos candidatos que
+ * evaluarlos de nuevo, las comprobaciones con holguras las mismas inserciones que
+ * recorrer la ruta completa y, con la misma semilla, el GRASP debe ser reproducible y
+ * el paralelo debe dar los mismos resultados que el secuencial, con y sin la poda por
+ * celdas de la rejilla espacial. Con tiempo máximo, las
+ * iteraciones hechas deben dar lo mismo que esas iteraciones sin plazo.
+ */
+public class TOPTWGRASPTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    public static final String[] INSTANCES = {"c101.txt", "r105.txt", "rc101.txt", "pr01.txt"};
+    public static final int ITERATIONS = 12;
+    public static final int RCL_SIZE = 3;
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Construcción paso a paso con la API de TOPTWGRASP, con una selección aleatoria
+     * propia entre los primeros candidatos.
+     */
+    static class Construction {
+        final TOPTW problem;
+        final TOPTWGRASP grasp;
+        final TOPTWSolution solution;
+        final ArrayList<Integer> customers = new ArrayList<Integer>();
+        final Random random;
+
+        Construction(TOPTW problem, long seed) {
+            this.problem = problem;
+            this.grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+            this.solution = this.grasp.getSolution();
+            this.solution.initSolution();
+            this.grasp.invalidateInsertionCache();
+            for(int j = 1; j <= problem.getPOIs(); j++) {
+                this.customers.add(j);
+            }
+            this.random = new Random(seed);
+        }
+
+        /**
+         * Método que evalúa los candidatos con la caché de inserciones y los copia, porque
+         * la lista de candidatos del GRASP se reutiliza.
+         * @return candidatos: cliente, ruta, predecesor, coste y score.
+         */
+        ArrayList<double[]> evaluate() {
+            int[] pending = new int[this.customers.size()];
+            for(int c = 0; c < pending.length; c++) {
+                pending[c] = this.customers.get(c);
+            }
+            TOPTWCandidates candidates = this.grasp.comprehensiveEvaluation(pending, pending.length);
+            ArrayList<double[]> copy = new ArrayList<double[]>();
+            for(int p = 0; p < candidates.size(); p++) {
+                copy.add(new double[]{candidates.getCustomer(p), candidates.getRoute(p), candidates.getPredecessor(p),
+                        candidates.getCost(p), candidates.getScore(p)});
+            }
+            return copy;
+        }
+
+        /**
+         * Método que inserta uno de los candidatos o, si no hay, abre otra ruta.
+         * @param candidates Candidatos de la última evaluación.
+         * @return false si la construcción ha terminado.
+         */
+        boolean step(ArrayList<double[]> candidates) {
+            if(candidates.isEmpty()) {
+                if(this.customers.isEmpty() || this.solution.getCreatedRoutes() == this.problem.getVehicles()) {
+                    return false;
+                }
+                this.solution.addRoute();
+                return true;
+            }
+            double[] selected = candidates.get(this.random.nextInt(Math.min(RCL_SIZE, candidates.size())));
+            this.customers.remove(Integer.valueOf((int) selected[0]));
+            this.grasp.updateSolution((int) selected[0], (int) selected[1], (int) selected[2]);
+            return !this.customers.isEmpty();
+        }
+    }
+
+    @Test
+    public void insertionCacheMatchesFreshEvaluation() {
+        for(String instance : new String[]{"c101.txt", "pr01.txt"}) {
+            Construction construction = new Construction(TOPTWReader.readProblem(INSTANCES_DIR + instance), 1);
+            ArrayList<double[]> fresh;
+            do {
+                ArrayList<double[]> cached = construction.evaluate();
+                construction.grasp.invalidateInsertionCache();
+                fresh = construction.evaluate();
+                String step = instance + " con " + construction.customers.size() + " clientes pendientes";
+                assertEquals(step, fresh.size(), cached.size());
+                for(int p = 0; p < fresh.size(); p++) {
+                    assertArrayEquals(step, fresh.get(p), cached.get(p), 0.0);
+                }
+            } while(construction.step(fresh));
+        }
+    }
+
+    @Test
+    public void spatialPruningKeepsTheCandidates() {
+        for(String instance : INSTANCES) {
+            for(long seed = 1; seed <= 3; seed++) {
+                TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+                Construction pruned = new Construction(problem, seed);
+                Construction full = new Construction(problem, seed);
+                full.grasp.setSpatialPruningEnabled(false);
+                ArrayList<double[]> candidates;
+                do {
+                    candidates = pruned.evaluate();
+                    ArrayList<double[]> expected = full.evaluate();
+                    String step = instance + " con semilla " + seed + " y " + pruned.customers.size() + " clientes pendientes";
+                    assertEquals(step, expected.size(), candidates.size());
+                    for(int p = 0; p < expected.size(); p++) {
+                        assertArrayEquals(step, expected.get(p), candidates.get(p), 0.0);
+                    }
+                    full.step(expected);
+                } while(pruned.step(candidates));
+                assertTrue(pruned.solution.iguales(full.solution));
+            }
+        }
+    }
+
+    @Test
+    public void spatialPruningKeepsTheGRASPResults() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            for(int workers = 0; workers <= 2; workers += 2) {
+                TOPTWGRASP pruned = newGRASP(problem, 8);
+                TOPTWGRASP full = newGRASP(problem, 8);
+                full.setSpatialPruningEnabled(false);
+                if(workers == 0) {
+                    pruned.GRASP(ITERATIONS, RCL_SIZE);
+                    full.GRASP(ITERATIONS, RCL_SIZE);
+                } else {
+                    pruned.GRASP(ITERATIONS, RCL_SIZE, workers);
+                    full.GRASP(ITERATIONS, RCL_SIZE, workers);
+                }
+                String run = instance + " con " + workers + " hilos";
+                assertEquals(run, full.getAverageFitness(), pruned.getAverageFitness(), 0.0);
+                assertEquals(run, full.getBestFitness(), pruned.getBestFitness(), 0.0);
+                assertTrue(run, full.getBestSolution().iguales(pruned.getBestSolution()));
+            }
+        }
+    }
+
+    /**
+     * Método que inserta un cliente tras pre recorriendo la ruta completa.
+     * @param construction Construcción.
+     * @param customer Cliente.
+     * @param k Ruta.
+     * @param pre Predecesor.
+     * @return fin de la ruta, o Double.MAX_VALUE si la inserción no es factible.
+     */
+    private static double simulateInsertion(Construction construction, int customer, int k, int pre) {
+        TOPTWSolution solution = construction.solution;
+        TOPTW problem = construction.problem;
+        int depot = solution.getIndexRoute(k), suc = solution.getSuccessor(pre);
+        double time = solution.getDepartureTime(k, pre);
+        boolean feasible = true;
+        int from = pre, to = customer;
+        do {
+            double arrival = time + solution.getDistance(from, to);
+            feasible &= arrival < problem.getDueTime(to);
+            time = Math.max(arrival, problem.getReadyTime(to)) + problem.getServiceTime(to);
+            feasible &= time <= problem.getMaxTimePerRoute();
+            from = to;
+            to = from == customer ? suc : solution.getSuccessor(from);
+        } while(from != depot);
+        return feasible ? time : Double.MAX_VALUE;
+    }
+
+    @Test
+    public void slackChecksMatchFullRecomputation() {
+        for(String instance : INSTANCES) {
+            Construction construction = new Construction(TOPTWSolutionTest.exhaustive(TOPTWReader.readProblem(INSTANCES_DIR + instance)), 2);
+            ArrayList<double[]> candidates;
+            int checked = 0;
+            do {
+                candidates = construction.evaluate();
+                double[][] byCustomer = new double[construction.problem.getPOIs() + 1][];
+                for(double[] candidate : candidates) {
+                    byCustomer[(int) candidate[0]] = candidate;
+                }
+                for(int customer : construction.customers) {
+                    double expected = Double.MAX_VALUE;
+                    for(int k = 0; k < construction.solution.getCreatedRoutes(); k++) {
+                        int depot = construction.solution.getIndexRoute(k), pre = depot;
+                        do {
+                            expected = Math.min(expected, simulateInsertion(construction, customer, k, pre));
+                            pre = construction.solution.getSuccessor(pre);
+                        } while(pre != depot);
+                    }
+                    String step = instance + ": cliente " + customer;
+                    double[] actual = byCustomer[customer];
+                    assertEquals(step, expected == Double.MAX_VALUE, actual == null);
+                    if(actual != null) {
+                        // a igual fin de ruta puede elegirse otra posición; debe ser factible
+                        assertEquals(step, expected, actual[3], TOLERANCE);
+                        assertEquals(step, actual[3],
+                                simulateInsertion(construction, customer, (int) actual[1], (int) actual[2]), TOLERANCE);
+                        checked++;
+                    }
+                }
+            } while(construction.step(candidates));
+            assertTrue(instance + ": no se ha comprobado ninguna inserción", checked > 0);
+        }
+    }
+
+    @Test
+    public void granularCandidatesAreTheBestNeighborInsertions() {
+        for(String instance : INSTANCES) {
+            Construction construction = new Construction(TOPTWReader.readProblem(INSTANCES_DIR + instance), 3);
+            TOPTW problem = construction.problem;
+            TOPTWSolution solution = construction.solution;
+            ArrayList<double[]> candidates;
+            int checked = 0;
+            do {
+                candidates = construction.evaluate();
+                double[][] byCustomer = new double[problem.getPOIs() + 1][];
+                for(double[] candidate : candidates) {
+                    byCustomer[(int) candidate[0]] = candidate;
+                }
+                for(int customer : construction.customers) {
+                    // solo junto a un vecino o en las aristas del depósito
+                    double expected = Double.MAX_VALUE;
+                    for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                        int depot = solution.getIndexRoute(k), pre = depot;
+                        do {
+                            int suc = solution.getSuccessor(pre);
+                            if(pre == depot || suc == depot || problem.isNeighbor(customer, pre) || problem.isNeighbor(customer, suc)) {
+                                expected = Math.min(expected, simulateInsertion(construction, customer, k, pre));
+                            }
+                            pre = suc;
+                        } while(pre != depot);
+                    }
+                    String step = instance + ": cliente " + customer;
+                    double[] actual = byCustomer[customer];
+                    assertEquals(step, expected == Double.MAX_VALUE, actual == null);
+                    if(actual != null) {
+                        assertEquals(step, expected, actual[3], TOLERANCE);
+                        int k = (int) actual[1], pre = (int) actual[2], suc = solution.getSuccessor(pre);
+                        int depot = solution.getIndexRoute(k);
+                        assertTrue(step, pre == depot || suc == depot || problem.isNeighbor(customer, pre) || problem.isNeighbor(customer, suc));
+                        checked++;
+                    }
+                }
+            } while(construction.step(candidates));
+            assertTrue(instance + ": no se ha comprobado ninguna inserción", checked > 0);
+        }
+    }
+
+    /**
+     * Método que crea un GRASP con una semilla y sin salida.
+     * @param problem Problema.
+     * @param seed Semilla.
+     * @return GRASP.
+     */
+    static TOPTWGRASP newGRASP(TOPTW problem, long seed) {
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        grasp.setSeed(seed);
+        grasp.setReporter(new TOPTWReporter(TOPTWReporter.Detail.OFF));
+        return grasp;
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        for(String instance : new String[]{"c101.txt", "rc101.txt"}) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWGRASP sequential = newGRASP(problem, 7);
+            sequential.GRASP(ITERATIONS, RCL_SIZE);
+            for(int workers = 1; workers <= 4; workers++) {
+                TOPTWGRASP parallel = newGRASP(problem, 7);
+                parallel.GRASP(ITERATIONS, RCL_SIZE, workers);
+                String run = instance + " con " + workers + " hilos";
+                assertEquals(run, sequential.getAverageFitness(), parallel.getAverageFitness(), 0.0);
+                assertEquals(run, sequential.getBestFitness(), parallel.getBestFitness(), 0.0);
+                assertTrue(run, sequential.getBestSolution().iguales(parallel.getBestSolution()));
+                assertEquals(run, parallel.getBestFitness(), parallel.getBestSolution().evaluateFitness(), 0.0);
+            }
+        }
+    }
+
+    /**
+     * Fuente aleatoria que delega en TOPTWSplittableRandom y cuenta los números pedidos.
+     */
+    static class CountingRandom implements TOPTWRandomSource {
+        private TOPTWSplittableRandom random = new TOPTWSplittableRandom(0);
+        private int draws = 0;
+
+        @Override
+        public void setSeed(long seed) {
+            this.random.setSeed(seed);
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            this.draws++;
+            return this.random.nextInt(bound);
+        }
+
+        @Override
+        public double nextDouble() {
+            this.draws++;
+            return this.random.nextDouble();
+        }
+
+        @Override
+        public TOPTWRandomSource copy() {
+            return new CountingRandom();
+        }
+    }
+
+    @Test
+    public void sameSeedReproducesTheRun() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWGRASP first = newGRASP(problem, 11);
+        first.GRASP(ITERATIONS, RCL_SIZE);
+        TOPTWGRASP second = newGRASP(problem, 11);
+        second.GRASP(ITERATIONS, RCL_SIZE);
+        assertEquals(first.getAverageFitness(), second.getAverageFitness(), 0.0);
+        assertEquals(first.getBestFitness(), second.getBestFitness(), 0.0);
+    }
+
+    @Test
+    public void randomSourceIsPluggable() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWGRASP reference = newGRASP(problem, 5);
+        reference.GRASP(ITERATIONS, RCL_SIZE);
+        TOPTWGRASP counted = newGRASP(problem, 5);
+        CountingRandom random = new CountingRandom();
+        counted.setRandomSource(random);
+        counted.GRASP(ITERATIONS, RCL_SIZE);
+        assertTrue(random.draws > 0);
+        assertEquals(reference.getAverageFitness(), counted.getAverageFitness(), 0.0);
+        assertEquals(reference.getBestFitness(), counted.getBestFitness(), 0.0);
+    }
+
+    @Test
+    public void timeBudgetStopsEarlyWithTheBestSolutionSoFar() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWGRASP timed = newGRASP(problem, 3);
+        timed.setSolutionTime(20);
+        timed.GRASP(Integer.MAX_VALUE, RCL_SIZE);
+        int iterations = timed.getIterations();
+        assertTrue(iterations >= 1 && iterations < Integer.MAX_VALUE);
+        assertTrue(timed.getElapsedTime() > 0.0);
+        assertEquals(timed.getBestFitness(), timed.getBestSolution().evaluateFitness(), 0.0);
+        // las iteraciones hechas dan lo mismo que sin plazo
+        TOPTWGRASP untimed = newGRASP(problem, 3);
+        untimed.GRASP(iterations, RCL_SIZE);
+        assertEquals(iterations, untimed.getIterations());
+        assertEquals(untimed.getAverageFitness(), timed.getAverageFitness(), 0.0);
+        assertEquals(untimed.getBestFitness(), timed.getBestFitness(), 0.0);
+        assertTrue(untimed.getBestSolution().iguales(timed.getBestSolution()));
+    }
+
+    @Test
+    public void expiredDeadlineStillRunsOneIteration() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWGRASP grasp = newGRASP(problem, 4);
+        grasp.GRASPUntil(System.nanoTime() - 1000000L, RCL_SIZE);
+        assertEquals(1, grasp.getIterations());
+        TOPTWGRASP single = newGRASP(problem, 4);
+        single.GRASP(1, RCL_SIZE);
+        assertEquals(single.getBestFitness(), grasp.getBestFitness(), 0.0);
+        assertEquals(grasp.getBestFitness(), grasp.getBestSolution().evaluateFitness(), 0.0);
+    }
+
+    @Test
+    public void parallelTimeBudgetCountsOnlyTheIterationsDone() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "rc101.txt");
+        TOPTWGRASP grasp = newGRASP(problem, 5);
+        grasp.setSolutionTime(20);
+        grasp.GRASP(1000000, RCL_SIZE, 2);
+        // cada hilo hace al menos la primera iteración de su bloque
+        assertTrue(grasp.getIterations() >= 2 && grasp.getIterations() < 1000000);
+        assertEquals(grasp.getBestFitness(), grasp.getBestSolution().evaluateFitness(), 0.0);
+        assertTrue(grasp.getAverageFitness() <= grasp.getBestFitness());
+    }
+
+    @Test
+    public void withoutBudgetEveryIterationRuns() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWGRASP grasp = newGRASP(problem, 6);
+        grasp.GRASP(ITERATIONS, RCL_SIZE);
+        assertEquals(ITERATIONS, grasp.getIterations());
+        grasp.GRASP(ITERATIONS, RCL_SIZE, 3);
+        assertEquals(ITERATIONS, grasp.getIterations());
+    }
+
+    @Test
+    public void rclSizeIsHonoured() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        // con una RCL de tamaño 1 la construcción es voraz y no depende de la semilla
+        TOPTWGRASP first = newGRASP(problem, 1);
+        first.getRandomSource().setSeed(1);
+        first.computeGreedySolution(1);
+        TOPTWGRASP second = newGRASP(problem, 2);
+        second.getRandomSource().setSeed(2);
+        second.computeGreedySolution(1);
+        assertTrue(first.getSolution().iguales(second.getSolution()));
+        // con una RCL mayor la semilla cambia la construcción
+        boolean different = false;
+        for(long seed = 1; seed <= 5 && !different; seed++) {
+            TOPTWGRASP other = newGRASP(problem, seed);
+            other.getRandomSource().setSeed(seed);
+            other.computeGreedySolution(RCL_SIZE);
+            different = !first.getSolution().iguales(other.getSolution());
+        }
+        assertTrue(different);
+    }
+
+    @Test
+    public void selectionIsConfigurable() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        assertEquals(TOPTWGRASP.SELECTION_FUZZY_ALPHA_CUT, newGRASP(problem, 1).getSelection());
+        // la selección fuzzy por mejor valor no usa la fuente aleatoria
+        TOPTWGRASP first = newGRASP(problem, 1);
+        first.setSelection(TOPTWGRASP.SELECTION_FUZZY_BEST);
+        CountingRandom counting = new CountingRandom();
+        first.setRandomSource(counting);
+        first.computeGreedySolution(RCL_SIZE);
+        assertEquals(0, counting.draws);
+        TOPTWGRASP second = newGRASP(problem, 2);
+        second.setSelection(TOPTWGRASP.SELECTION_FUZZY_BEST);
+        second.computeGreedySolution(RCL_SIZE);
+        assertTrue(first.getSolution().iguales(second.getSolution()));
+        // los hilos del GRASP paralelo usan el criterio fijado
+        TOPTWGRASP sequential = newGRASP(problem, 3);
+        sequential.setSelection(TOPTWGRASP.SELECTION_RANDOM);
+        sequential.GRASP(ITERATIONS, RCL_SIZE);
+        TOPTWGRASP parallel = newGRASP(problem, 3);
+        parallel.setSelection(TOPTWGRASP.SELECTION_RANDOM);
+        parallel.GRASP(ITERATIONS, RCL_SIZE, 3);
+        assertEquals(sequential.getAverageFitness(), parallel.getAverageFitness(), 0.0);
+        // la selección aleatoria no siempre coincide con la fuzzy por mejor valor
+        boolean different = false;
+        for(long seed = 1; seed <= 5 && !different; seed++) {
+            TOPTWGRASP random = newGRASP(problem, seed);
+            random.setSelection(TOPTWGRASP.SELECTION_RANDOM);
+            random.getRandomSource().setSeed(seed);
+            random.computeGreedySolution(RCL_SIZE);
+            different = !random.getSolution().iguales(first.getSolution());
+        }
+        assertTrue(different);
+    }
+
+    /**
+     * Método con la selección fuzzy por corte alpha anterior, que calculaba el score
+     * máximo y la pertenencia de cada candidato en cada llamada.
+     * @param grasp GRASP, para el score máximo y la selección aleatoria.
+     * @param rcl Candidatos.
+     * @param rclSize Tamaño de la RCL.
+     * @param alpha Corte.
+     * @return posición seleccionada.
+     */
+    private static int legacyAlphaCut(TOPTWGRASP grasp, TOPTWCandidates rcl, int rclSize, double alpha) {
+        double maxSc = -1.0;
+        for(int i = 0; i < grasp.getSolution().getProblem().getScore().length; i++) {
+            maxSc = Math.max(maxSc, grasp.getSolution().getProblem().getScore(i));
+        }
+        ArrayList<Integer> rclPos = new ArrayList<Integer>();
+        for(int j = 0; j < rclSize; j++) {
+            if(1 - (rcl.getScore(j) / maxSc) <= alpha) {
+                rclPos.add(j);
+            }
+        }
+        if(rclPos.size() > 0) {
+            return rclPos.get(grasp.aleatorySelectionRCL(rclPos.size()));
+        }
+        return grasp.aleatorySelectionRCL(rclSize);
+    }
+
+    @Test
+    public void fuzzySelectionsMatchTheLegacyComputation() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWGRASP grasp = newGRASP(problem, 1);
+            TOPTWGRASP legacy = newGRASP(problem, 1);
+            grasp.getRandomSource().setSeed(1);
+            legacy.getRandomSource().setSeed(1);
+            Random random = new Random(2);
+            TOPTWCandidates candidates = new TOPTWCandidates(problem.getPOIs());
+            for(int draw = 0; draw < 200; draw++) {
+                int rclSize = 1 + random.nextInt(10);
+                candidates.clear(rclSize);
+                for(int p = 0; p < rclSize; p++) {
+                    int customer = 1 + random.nextInt(problem.getPOIs());
+                    candidates.add(customer, 0, 0, random.nextDouble(), problem.getScore(customer));
+                }
+                candidates.buildRCL();
+                double alpha = random.nextInt(11) / 10.0;
+                String step = instance + ", sorteo " + draw;
+                assertEquals(step, legacyAlphaCut(legacy, candidates, rclSize, alpha),
+                        grasp.fuzzySelectionAlphaCutRCL(candidates, rclSize, alpha));
+                // la mejor pertenencia es el primer candidato de mayor score
+                int best = 0;
+                for(int p = 1; p < rclSize; p++) {
+                    if(candidates.getScore(p) > candidates.getScore(best)) {
+                        best = p;
+                    }
+                }
+                assertEquals(step, best, grasp.fuzzySelectionBestFDRCL(candidates, rclSize));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSelectionIsRejected() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        newGRASP(problem, 1).setSelection(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelRejectsZeroWorkers() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        new TOPTWGRASP(new TOPTWSolution(problem)).GRASP(ITERATIONS, RCL_SIZE, 0);
+    }
+
+    @Test
+    public void skippingDuplicatesKeepsTheResults() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        for(int rclSize : new int[]{1, RCL_SIZE}) {
+            TOPTWGRASP skipping = newGRASP(problem, 3);
+            skipping.GRASP(ITERATIONS, rclSize);
+            TOPTWGRASP plain = newGRASP(problem, 3);
+            plain.setDuplicateDetection(false);
+            plain.GRASP(ITERATIONS, rclSize);
+            String run = "RCL de tamaño " + rclSize;
+            assertEquals(run, 0, plain.getDuplicates());
+            assertEquals(run, plain.getAverageFitness(), skipping.getAverageFitness(), 0.0);
+            assertEquals(run, plain.getBestFitness(), skipping.getBestFitness(), 0.0);
+            assertTrue(run, plain.getBestSolution().iguales(skipping.getBestSolution()));
+            if(rclSize == 1) {
+                // la construcción voraz se repite en todas las iteraciones
+                assertEquals(run, ITERATIONS - 1, skipping.getDuplicates());
+            }
+        }
+    }
+
+    @Test
+    public void elitePoolDisablesSkipping() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWGRASP grasp = newGRASP(problem, 3);
+        grasp.setElitePool(new TOPTWElitePool(problem, TOPTWElitePool.DEFAULT_CAPACITY));
+        grasp.GRASP(ITERATIONS, 1);
+        assertEquals(0, grasp.getDuplicates());
+    }
+}
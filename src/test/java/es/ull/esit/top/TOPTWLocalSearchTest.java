@@ -0,0 +1,310 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWLocalSearch: con todos los vecinos, cada movimiento, evaluado por
+ * diferencia con las holguras, debe aplicar el mismo cambio que se elige recorriendo las
+ * rutas completas y dejar la solución factible y con los tiempos de salida al día.
+ */
+public class TOPTWLocalSearchTest {
+    public static final long[] SEEDS = {1, 2, 3};
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Movimiento de la búsqueda local junto con su versión por recorrido completo.
+     */
+    interface Move {
+        /**
+         * Método que busca la primera mejora recalculando cada ruta desde el depósito.
+         * @param solution Solución.
+         * @return rutas tras el movimiento, o null si ninguno mejora.
+         */
+        ArrayList< ArrayList<Integer> > expected(TOPTWSolution solution);
+
+        /**
+         * Método que aplica el movimiento de la búsqueda local.
+         * @param search Búsqueda local.
+         * @return true si se ha aplicado un movimiento.
+         */
+        boolean apply(TOPTWLocalSearch search);
+    }
+
+    /**
+     * Método que devuelve los clientes de cada ruta en orden.
+     * @param solution Solución.
+     * @return clientes por ruta.
+     */
+    private static ArrayList< ArrayList<Integer> > routes(TOPTWSolution solution) {
+        ArrayList< ArrayList<Integer> > routes = new ArrayList< ArrayList<Integer> >();
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            ArrayList<Integer> route = new ArrayList<Integer>();
+            int depot = solution.getIndexRoute(k);
+            for(int c = solution.getSuccessor(depot); c != depot; c = solution.getSuccessor(c)) {
+                route.add(c);
+            }
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    /**
+     * Método que recorre desde el depósito una ruta con los clientes dados.
+     * @param solution Solución.
+     * @param k Ruta.
+     * @param customers Clientes en orden.
+     * @return fin de la ruta, o Double.MAX_VALUE si no es factible.
+     */
+    private static double endTime(TOPTWSolution solution, int k, ArrayList<Integer> customers) {
+        TOPTW problem = solution.getProblem();
+        int depot = solution.getIndexRoute(k), pre = depot;
+        double time = 0.0;
+        for(int p = 0; p <= customers.size(); p++) {
+            int node = p < customers.size() ? customers.get(p) : depot;
+            double arrival = time + solution.getDistance(pre, node);
+            if(arrival >= problem.getDueTime(node)) {
+                return Double.MAX_VALUE;
+            }
+            time = Math.max(arrival, problem.getReadyTime(node)) + problem.getServiceTime(node);
+            if(time > problem.getMaxTimePerRoute()) {
+                return Double.MAX_VALUE;
+            }
+            pre = node;
+        }
+        return time;
+    }
+
+    private static final Move TWO_OPT = new Move() {
+        @Override
+        public ArrayList< ArrayList<Integer> > expected(TOPTWSolution solution) {
+            ArrayList< ArrayList<Integer> > routes = routes(solution);
+            for(int k = 0; k < routes.size(); k++) {
+                ArrayList<Integer> route = routes.get(k);
+                for(int i = 0; i < route.size() - 1; i++) {
+                    for(int j = i + 1; j < route.size(); j++) {
+                        ArrayList<Integer> reversed = new ArrayList<Integer>(route);
+                        Collections.reverse(reversed.subList(i, j + 1));
+                        if(endTime(solution, k, reversed) < solution.getRouteEndTime(k) - TOPTWLocalSearch.EPSILON) {
+                            routes.set(k, reversed);
+                            return routes;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean apply(TOPTWLocalSearch search) {
+            return search.twoOpt();
+        }
+    };
+
+    private static final Move RELOCATE = new Move() {
+        @Override
+        public ArrayList< ArrayList<Integer> > expected(TOPTWSolution solution) {
+            ArrayList< ArrayList<Integer> > routes = routes(solution);
+            for(int a = 0; a < routes.size(); a++) {
+                for(int i = 0; i < routes.get(a).size(); i++) {
+                    ArrayList<Integer> from = new ArrayList<Integer>(routes.get(a));
+                    int u = from.remove(i);
+                    double endA = endTime(solution, a, from);
+                    if(endA == Double.MAX_VALUE) {
+                        continue;
+                    }
+                    for(int b = 0; b < routes.size(); b++) {
+                        if(b == a) {
+                            continue;
+                        }
+                        double before = solution.getRouteEndTime(a) + solution.getRouteEndTime(b);
+                        for(int p = 0; p <= routes.get(b).size(); p++) {
+                            ArrayList<Integer> to = new ArrayList<Integer>(routes.get(b));
+                            to.add(p, u);
+                            double endB = endTime(solution, b, to);
+                            if(endB != Double.MAX_VALUE && endA + endB < before - TOPTWLocalSearch.EPSILON) {
+                                routes.set(a, from);
+                                routes.set(b, to);
+                                return routes;
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean apply(TOPTWLocalSearch search) {
+            return search.relocate();
+        }
+    };
+
+    private static final Move SWAP = new Move() {
+        @Override
+        public ArrayList< ArrayList<Integer> > expected(TOPTWSolution solution) {
+            ArrayList< ArrayList<Integer> > routes = routes(solution);
+            for(int a = 0; a < routes.size(); a++) {
+                for(int i = 0; i < routes.get(a).size(); i++) {
+                    for(int b = a + 1; b < routes.size(); b++) {
+                        double before = solution.getRouteEndTime(a) + solution.getRouteEndTime(b);
+                        for(int j = 0; j < routes.get(b).size(); j++) {
+                            ArrayList<Integer> routeA = new ArrayList<Integer>(routes.get(a));
+                            ArrayList<Integer> routeB = new ArrayList<Integer>(routes.get(b));
+                            int u = routeA.get(i);
+                            routeA.set(i, routeB.get(j));
+                            routeB.set(j, u);
+                            double endA = endTime(solution, a, routeA);
+                            if(endA == Double.MAX_VALUE) {
+                                continue;
+                            }
+                            double endB = endTime(solution, b, routeB);
+                            if(endB != Double.MAX_VALUE && endA + endB < before - TOPTWLocalSearch.EPSILON) {
+                                routes.set(a, routeA);
+                                routes.set(b, routeB);
+                                return routes;
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean apply(TOPTWLocalSearch search) {
+            return search.swap();
+        }
+    };
+
+    /**
+     * Método que aplica un movimiento hasta que deja de mejorar y compara cada paso con
+     * el recorrido completo.
+     * @param name Nombre del movimiento.
+     * @param move Movimiento.
+     */
+    private static void checkMove(String name, Move move) {
+        int applied = 0;
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            for(long seed : SEEDS) {
+                TOPTW problem = TOPTWSolutionTest.exhaustive(TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + instance));
+                TOPTWSolution solution = TOPTWSolutionTest.construct(problem, seed);
+                TOPTWLocalSearch search = new TOPTWLocalSearch(solution);
+                double fitness = solution.evaluateFitness();
+                boolean improved = true;
+                while(improved) {
+                    String step = name + " en " + instance + " con semilla " + seed + ", paso " + applied;
+                    ArrayList< ArrayList<Integer> > expected = move.expected(solution);
+                    improved = move.apply(search);
+                    assertEquals(step, expected != null, improved);
+                    if(improved) {
+                        assertEquals(step, expected, routes(solution));
+                        assertTrue(step, TOPTWSolutionTest.checkSolution(solution));
+                        assertEquals(step, fitness, solution.evaluateFitness(), 0.0);
+                        applied++;
+                    }
+                }
+            }
+        }
+        assertTrue(name + ": no se ha aplicado ningún movimiento", applied > 0);
+    }
+
+    @Test
+    public void twoOptMatchesFullRecomputation() {
+        checkMove("2-opt", TWO_OPT);
+    }
+
+    @Test
+    public void relocateMatchesFullRecomputation() {
+        checkMove("relocate", RELOCATE);
+    }
+
+    @Test
+    public void swapMatchesFullRecomputation() {
+        checkMove("swap", SWAP);
+    }
+
+    /**
+     * Método que comprueba que ningún POI sin visitar cabe ya en ninguna posición,
+     * recorriendo cada ruta completa.
+     * @param solution Solución.
+     * @param step Descripción del paso.
+     */
+    private static void checkNoInsertionFits(TOPTWSolution solution, String step) {
+        ArrayList< ArrayList<Integer> > routes = routes(solution);
+        for(int c = 1; c <= solution.getProblem().getPOIs(); c++) {
+            if(solution.getPredecessor(c) != TOPTWSolution.NO_INITIALIZED) {
+                continue;
+            }
+            for(int k = 0; k < routes.size(); k++) {
+                for(int p = 0; p <= routes.get(k).size(); p++) {
+                    ArrayList<Integer> route = new ArrayList<Integer>(routes.get(k));
+                    route.add(p, c);
+                    assertEquals(step + ": cabe el cliente " + c + " en la ruta " + k,
+                            Double.MAX_VALUE, endTime(solution, k, route), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void insertUnvisitedMatchesFullRecomputation() {
+        double inserted = 0.0;
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            for(long seed : SEEDS) {
+                String step = instance + " con semilla " + seed;
+                TOPTW problem = TOPTWSolutionTest.exhaustive(TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + instance));
+                TOPTWSolution solution = TOPTWSolutionTest.construct(problem, seed);
+                // se sacan de las rutas uno de cada tres clientes para que haya huecos
+                ArrayList< ArrayList<Integer> > routes = routes(solution);
+                for(ArrayList<Integer> route : routes) {
+                    for(int p = 0; p < route.size(); p += 3) {
+                        int c = route.get(p);
+                        int pre = solution.getPredecessor(c), suc = solution.getSuccessor(c);
+                        solution.setSuccessor(pre, suc);
+                        solution.setPredecessor(suc, pre);
+                        solution.setPredecessor(c, TOPTWSolution.NO_INITIALIZED);
+                        solution.setSuccessor(c, TOPTWSolution.NO_INITIALIZED);
+                    }
+                }
+                for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                    solution.updateRoute(k);
+                }
+                double fitness = solution.evaluateFitness();
+                double gain = new TOPTWLocalSearch(solution).insertUnvisited();
+                assertEquals(step, fitness + gain, solution.evaluateFitness(), TOLERANCE);
+                assertTrue(step, TOPTWSolutionTest.checkSolution(solution));
+                checkNoInsertionFits(solution, step);
+                inserted += gain;
+            }
+        }
+        assertTrue("no se ha insertado ningún cliente", inserted > 0.0);
+    }
+
+    @Test
+    public void runKeepsTheSolutionFeasible() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            for(boolean exhaustive : new boolean[]{false, true}) {
+                TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + instance);
+                if(exhaustive) {
+                    problem = TOPTWSolutionTest.exhaustive(problem);
+                }
+                TOPTWSolution solution = TOPTWSolutionTest.construct(problem, 4);
+                double fitness = solution.evaluateFitness();
+                double gain = new TOPTWLocalSearch(solution).run();
+                assertTrue(instance, gain >= 0.0);
+                assertEquals(instance, fitness + gain, solution.evaluateFitness(), TOLERANCE);
+                assertTrue(instance, TOPTWSolutionTest.checkSolution(solution));
+                if(exhaustive) {
+                    // con vecinos limitados puede quedar algún cliente que cabe lejos de sus vecinos
+                    checkNoInsertionFits(solution, instance);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+
+/**
+ * Pruebas de TOPTWReporter: cada nivel de detalle escribe lo que promete y la tabla de
+ * appendInfoSolution es idéntica a la que se generaba con ExpositoUtilities.getFormat.
+ */
+public class TOPTWReporterTest {
+    public static final int ITERATIONS = 6;
+
+    /**
+     * Método que genera la tabla de la solución como el getInfoSolution anterior, fila a
+     * fila con ExpositoUtilities.getFormat.
+     * @param solution Solución.
+     * @return información de la solución.
+     */
+    private static String legacyInfoSolution(TOPTWSolution solution) {
+        final int COLUMN_WIDTH = 15;
+        TOPTW problem = solution.getProblem();
+        String text = "\n"+"NODES: " + problem.getPOIs() + "\n" + "MAX TIME PER ROUTE: " + problem.getMaxTimePerRoute() + "\n" + "MAX NUMBER OF ROUTES: " + problem.getMaxRoutes() + "\n";
+        String textSolution = "\n"+"SOLUTION: "+"\n";
+        double costTimeSolution = 0.0, fitnessScore = 0.0;
+        boolean validSolution = true;
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            String[] strings = new String[]{"\n" + "ROUTE " + k };
+            int[] width = new int[strings.length];
+            Arrays.fill(width, COLUMN_WIDTH);
+            text += ExpositoUtilities.getFormat(strings, width) + "\n";
+            strings = new String[]{"CUST NO.", "X COORD.", "Y. COORD.", "READY TIME", "DUE DATE", "ARRIVE TIME", " LEAVE TIME", "SERVICE TIME"};
+            width = new int[strings.length];
+            Arrays.fill(width, COLUMN_WIDTH);
+            text += ExpositoUtilities.getFormat(strings, width) + "\n";
+            strings = new String[strings.length];
+            int depot = solution.getIndexRoute(k);
+            int pre = depot, suc = -1;
+            double costTimeRoute = 0.0, fitnessScoreRoute = 0.0;
+            int index = 0;
+            strings[index++] = "" + pre;
+            strings[index++] = "" + problem.getX(pre);
+            strings[index++] = "" + problem.getY(pre);
+            strings[index++] = "" + problem.getReadyTime(pre);
+            strings[index++] = "" + problem.getDueTime(pre);
+            strings[index++] = "" + 0;
+            strings[index++] = "" + 0;
+            strings[index++] = "" + problem.getServiceTime(pre);
+            text += ExpositoUtilities.getFormat(strings, width);
+            text += "\n";
+            do {
+                index = 0;
+                suc = solution.getSuccessor(pre);
+                textSolution += pre+" - ";
+                strings[index++] = "" + suc;
+                strings[index++] = "" + problem.getX(suc);
+                strings[index++] = "" + problem.getY(suc);
+                strings[index++] = "" + problem.getReadyTime(suc);
+                strings[index++] = "" + problem.getDueTime(suc);
+                costTimeRoute += solution.getDistance(pre, suc);
+                if(costTimeRoute < (problem.getDueTime(suc))) {
+                    if(costTimeRoute < problem.getReadyTime(suc)) {
+                        costTimeRoute = problem.getReadyTime(suc);
+                    }
+                    strings[index++] = "" + costTimeRoute;
+                    costTimeRoute += problem.getServiceTime(suc);
+                    strings[index++] = "" + costTimeRoute;
+                    strings[index++] = "" + problem.getServiceTime(pre);
+                    if(costTimeRoute > problem.getMaxTimePerRoute()) { validSolution = false; }
+                    fitnessScoreRoute += problem.getScore(suc);
+                } else { validSolution = false; }
+                pre = suc;
+                text += ExpositoUtilities.getFormat(strings, width);
+                text += "\n";
+            } while(suc != depot);
+            textSolution += suc+"\n";
+            costTimeSolution += costTimeRoute;
+            fitnessScore += fitnessScoreRoute;
+        }
+        textSolution += "FEASIBLE SOLUTION: "+validSolution+"\n"+"SCORE: "+fitnessScore+"\n"+"TIME COST: "+costTimeSolution+"\n";
+        return textSolution+text;
+    }
+
+    @Test
+    public void infoSolutionMatchesLegacyFormat() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + instance);
+            TOPTWSolution solution = TOPTWSolutionTest.construct(problem, 1);
+            assertEquals(instance, legacyInfoSolution(solution), solution.getInfoSolution());
+        }
+    }
+
+    @Test
+    public void infoSolutionReportsABrokenRoute() {
+        TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + "c101.txt");
+        TOPTWSolution solution = TOPTWSolutionTest.construct(problem, 4);
+        // invertir la ruta 0 incumple sus ventanas de tiempo
+        int depot = solution.getIndexRoute(0);
+        int[] route = new int[problem.getPOIs()];
+        int length = 0;
+        for(int c = solution.getSuccessor(depot); c != depot; c = solution.getSuccessor(c)) {
+            route[length++] = c;
+        }
+        int pre = depot;
+        StringBuilder walk = new StringBuilder().append(depot).append(" - ");
+        for(int i = length - 1; i >= 0; i--) {
+            solution.setSuccessor(pre, route[i]);
+            solution.setPredecessor(route[i], pre);
+            pre = route[i];
+            walk.append(pre).append(" - ");
+        }
+        solution.setSuccessor(pre, depot);
+        solution.setPredecessor(depot, pre);
+        solution.updateRoute(0);
+        // la tabla sale de los tiempos guardados y el score es el de las rutas completas
+        String info = solution.getInfoSolution();
+        assertTrue(info.contains("\n" + walk.append(depot).append("\n")));
+        assertTrue(info.contains("FEASIBLE SOLUTION: false\nSCORE: " + solution.evaluateFitness() + "\n"));
+    }
+
+    /**
+     * Método que ejecuta el GRASP con un nivel de detalle y devuelve lo que escribe.
+     * @param detail Nivel de detalle.
+     * @param workers Número de hilos, o 0 para la versión secuencial.
+     * @return salida del reporter.
+     */
+    private static String run(TOPTWReporter.Detail detail, int workers) {
+        TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + "r105.txt");
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        grasp.setSeed(9);
+        StringWriter out = new StringWriter();
+        grasp.setReporter(new TOPTWReporter(detail, out));
+        if(workers == 0) {
+            grasp.GRASP(ITERATIONS, 3);
+        } else {
+            grasp.GRASP(ITERATIONS, 3, workers);
+        }
+        String text = out.toString();
+        if(detail != TOPTWReporter.Detail.OFF) {
+            assertTrue(text.contains(grasp.getBestSolution().getInfoSolution()));
+            assertTrue(text.endsWith(" --> MEDIA: " + grasp.getAverageFitness() + "\n"
+                    + " --> MEJOR SOLUCION: " + grasp.getBestFitness() + "\n"));
+        }
+        return text;
+    }
+
+    /**
+     * Método que cuenta las apariciones de un texto.
+     * @param text Texto.
+     * @param part Texto buscado.
+     * @return número de apariciones.
+     */
+    private static int count(String text, String part) {
+        int count = 0;
+        for(int i = text.indexOf(part); i != -1; i = text.indexOf(part, i + part.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void offWritesNothing() {
+        assertEquals("", run(TOPTWReporter.Detail.OFF, 0));
+        assertEquals("", run(TOPTWReporter.Detail.OFF, 2));
+    }
+
+    @Test
+    public void bestWritesOnlyTheBestSolution() {
+        String text = run(TOPTWReporter.Detail.BEST, 0);
+        assertEquals(1, count(text, "SOLUTION: \n"));
+        assertEquals(0, count(text, " --> ITERACION "));
+    }
+
+    @Test
+    public void summaryWritesOneLinePerIteration() {
+        String text = run(TOPTWReporter.Detail.SUMMARY, 0);
+        assertEquals(ITERATIONS, count(text, " --> ITERACION "));
+        assertEquals(1, count(text, "SOLUTION: \n"));
+    }
+
+    @Test
+    public void fullWritesEveryIteration() {
+        String text = run(TOPTWReporter.Detail.FULL, 0);
+        assertEquals(ITERATIONS + 1, count(text, "SOLUTION: \n"));
+    }
+
+    @Test
+    public void parallelWorkersWriteNothing() {
+        // solo se escribe la mejor solución, al final
+        String text = run(TOPTWReporter.Detail.FULL, 2);
+        assertEquals(1, count(text, "SOLUTION: \n"));
+        assertEquals(0, count(text, " --> ITERACION "));
+    }
+}
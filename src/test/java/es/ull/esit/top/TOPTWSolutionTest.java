@@ -0,0 +1,409 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWSolution: los fines de ruta, tiempos de salida y llegada, score y
+ * factibilidad que se mantienen por ruta, las comprobaciones de inserción con holguras
+ * y los hashes deben coincidir con recorrer la ruta o la solución completa, también al
+ * reutilizar la tabla de tiempos de salida entre construcciones o al restaurar una copia.
+ */
+public class TOPTWSolutionTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    public static final String[] INSTANCES = {"c101.txt", "r105.txt", "rc101.txt", "pr01.txt"};
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Método que amplía las listas de vecinos a todos los clientes compatibles, con lo que
+     * la construcción y la búsqueda local prueban las mismas posiciones que una búsqueda
+     * exhaustiva.
+     * @param problem Problema.
+     * @return problema con todos los vecinos.
+     */
+    static TOPTW exhaustive(TOPTW problem) {
+        return problem.withNeighborCount(problem.getPOIs());
+    }
+
+    /**
+     * Método que construye una solución con el GRASP, sin búsqueda local.
+     * @param problem Problema.
+     * @param seed Semilla.
+     * @return solución construida.
+     */
+    static TOPTWSolution construct(TOPTW problem, long seed) {
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        grasp.setSeed(seed);
+        grasp.getRandomSource().setSeed(seed);
+        grasp.computeGreedySolution(3);
+        return grasp.getSolution();
+    }
+
+    /**
+     * Método que inserta un cliente tras pre y recalcula la ruta desde el depósito.
+     * @param solution Solución.
+     * @param customer Cliente.
+     * @param route Ruta de pre.
+     * @param pre Predecesor.
+     */
+    static void insert(TOPTWSolution solution, int customer, int route, int pre) {
+        int suc = solution.getSuccessor(pre);
+        solution.setPredecessor(customer, pre);
+        solution.setSuccessor(customer, suc);
+        solution.setSuccessor(pre, customer);
+        solution.setPredecessor(suc, customer);
+        solution.updateRoute(route);
+    }
+
+    /**
+     * Método que recorre una ruta y comprueba los datos guardados por updateForwardSlack:
+     * tiempos de salida y llegada, posiciones, fin de ruta, score y factibilidad.
+     * @param solution Solución.
+     * @param k Ruta.
+     * @return true si la ruta cumple las ventanas de tiempo y el tiempo máximo.
+     */
+    private static boolean checkRoute(TOPTWSolution solution, int k) {
+        TOPTW problem = solution.getProblem();
+        int depot = solution.getIndexRoute(k), pre = depot, position = 0;
+        assertEquals(solution.getDepot(k), depot);
+        assertEquals(k, solution.getRoute(depot));
+        double time = solution.getDepartureTime(k, depot), score = problem.getScore(depot);
+        boolean feasible = true;
+        int suc;
+        do {
+            suc = solution.getSuccessor(pre);
+            assertEquals(pre, solution.getPredecessor(suc));
+            assertEquals(k, solution.getRoute(suc));
+            double arrival = time + solution.getDistance(pre, suc);
+            assertEquals(arrival, solution.getArrivalTime(suc), TOLERANCE);
+            feasible &= arrival < problem.getDueTime(suc);
+            time = Math.max(arrival, problem.getReadyTime(suc)) + problem.getServiceTime(suc);
+            feasible &= time <= problem.getMaxTimePerRoute();
+            if(suc != depot) {
+                assertEquals(time, solution.getDepartureTime(k, suc), TOLERANCE);
+                assertEquals(++position, solution.getPositionInRoute(suc));
+                score += problem.getScore(suc);
+            }
+            pre = suc;
+        } while(suc != depot);
+        assertEquals(time, solution.getRouteEndTime(k), TOLERANCE);
+        assertEquals(score, solution.getRouteScore(k), TOLERANCE);
+        assertEquals(feasible, solution.isRouteFeasible(k));
+        return feasible;
+    }
+
+    /**
+     * Método que comprueba todas las rutas, el score total y la factibilidad recorriéndolas
+     * desde el depósito.
+     * @param solution Solución.
+     * @return true si todas las rutas son factibles.
+     */
+    static boolean checkSolution(TOPTWSolution solution) {
+        double total = 0.0;
+        boolean feasible = true;
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            feasible &= checkRoute(solution, k);
+            total += solution.getRouteScore(k);
+        }
+        for(int c = 1; c <= solution.getProblem().getPOIs(); c++) {
+            if(solution.getPredecessor(c) == TOPTWSolution.NO_INITIALIZED) {
+                assertEquals(TOPTWSolution.NO_INITIALIZED, solution.getRoute(c));
+            }
+        }
+        assertEquals(total, solution.evaluateFitness(), TOLERANCE);
+        assertEquals(feasible, solution.isFeasible());
+        return feasible;
+    }
+
+    @Test
+    public void constructedRoutesMatchRouteWalk() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWSolution solution = construct(problem, 1);
+            assertTrue(instance, checkSolution(solution));
+        }
+    }
+
+    @Test
+    public void evaluateInsertionMatchesFullRecomputation() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWSolution solution = construct(problem, 1);
+            TOPTWSolution copy = new TOPTWSolution(problem);
+            int checked = 0;
+            for(int c = 1; c <= problem.getPOIs(); c++) {
+                if(solution.getPredecessor(c) != TOPTWSolution.NO_INITIALIZED) {
+                    continue;
+                }
+                for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                    int depot = solution.getIndexRoute(k), pre = depot;
+                    do {
+                        double end = solution.evaluateInsertion(c, k, pre);
+                        if(!solution.mayInsert(c, k, pre)) {
+                            assertEquals(instance + ": mayInsert descarta una inserción factible",
+                                    Double.MAX_VALUE, end, 0.0);
+                        }
+                        solution.copyInto(copy);
+                        insert(copy, c, k, pre);
+                        String move = instance + ": cliente " + c + " tras " + pre + " en la ruta " + k;
+                        assertEquals(move, copy.isRouteFeasible(k), end != Double.MAX_VALUE);
+                        if(end != Double.MAX_VALUE) {
+                            assertEquals(move, copy.getRouteEndTime(k), end, TOLERANCE);
+                        }
+                        checked++;
+                        pre = solution.getSuccessor(pre);
+                    } while(pre != depot);
+                }
+            }
+            assertTrue(instance + ": no se ha comprobado ninguna inserción", checked > 0);
+        }
+    }
+
+    @Test
+    public void forwardSlackIsRecomputedAfterInsertion() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWSolution solution = construct(problem, 2);
+        TOPTWSolution rebuilt = new TOPTWSolution(problem);
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            solution.copyInto(rebuilt);
+            rebuilt.updateRoute(k);
+            int depot = solution.getIndexRoute(k);
+            for(int j = solution.getSuccessor(depot); j != depot; j = solution.getSuccessor(j)) {
+                assertEquals(solution.getDepartureTime(k, j), rebuilt.getDepartureTime(k, j), TOLERANCE);
+                assertEquals(solution.getForwardSlack(j), rebuilt.getForwardSlack(j), TOLERANCE);
+                assertEquals(solution.getArrivalSlack(j), rebuilt.getArrivalSlack(j), TOLERANCE);
+                assertEquals(solution.getCumulativeWaiting(j), rebuilt.getCumulativeWaiting(j), TOLERANCE);
+            }
+            assertEquals(solution.getRouteEndTime(k), rebuilt.getRouteEndTime(k), TOLERANCE);
+            assertFalse(solution.getRouteEndTime(k) > problem.getMaxTimePerRoute());
+        }
+    }
+
+    @Test
+    public void routeBookkeepingMatchesRouteWalk() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+            grasp.setSeed(3);
+            grasp.setReporter(new TOPTWReporter(TOPTWReporter.Detail.OFF));
+            grasp.GRASP(5, 3);
+            checkSolution(grasp.getSolution());
+            assertTrue(instance, checkSolution(grasp.getBestSolution()));
+            assertEquals(grasp.getBestFitness(), grasp.getBestSolution().evaluateFitness(), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void feasibilityIsTrackedWhenARouteBreaks() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWSolution solution = construct(problem, 4);
+        double fitness = solution.evaluateFitness();
+        // invertir la ruta 0 incumple sus ventanas de tiempo
+        int depot = solution.getIndexRoute(0);
+        int[] route = new int[problem.getPOIs()];
+        int length = 0;
+        for(int c = solution.getSuccessor(depot); c != depot; c = solution.getSuccessor(c)) {
+            route[length++] = c;
+        }
+        int pre = depot;
+        for(int i = length - 1; i >= 0; i--) {
+            solution.setSuccessor(pre, route[i]);
+            solution.setPredecessor(route[i], pre);
+            pre = route[i];
+        }
+        solution.setSuccessor(pre, depot);
+        solution.setPredecessor(depot, pre);
+        solution.updateRoute(0);
+        assertFalse(checkSolution(solution));
+        assertFalse(solution.isRouteFeasible(0));
+        assertFalse(solution.isFeasible());
+        assertEquals(fitness, solution.evaluateFitness(), TOLERANCE);
+        // la copia conserva la factibilidad y el score de cada ruta
+        TOPTWSolution copy = new TOPTWSolution(problem);
+        solution.copyInto(copy);
+        assertFalse(checkSolution(copy));
+        assertEquals(fitness, copy.evaluateFitness(), TOLERANCE);
+    }
+
+    @Test
+    public void initSolutionResetsTheDepartureTable() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWSolution solution = construct(problem, 2);
+        assertTrue(solution.getCreatedRoutes() > 1);
+        solution.initSolution();
+        assertEquals(1, solution.getCreatedRoutes());
+        for(int k = 0; k < problem.getVehicles(); k++) {
+            for(int node = 0; node < problem.getPOIs() + problem.getVehicles(); node++) {
+                assertEquals(0.0, solution.getDepartureTime(k, node), 0.0);
+            }
+        }
+        // addRoute deja calculado el fin de la ruta vacía, como la primera
+        solution.addRoute();
+        assertTrue(checkSolution(solution));
+        assertEquals(solution.getRouteEndTime(0), solution.getRouteEndTime(1), 0.0);
+    }
+
+    @Test
+    public void reusedSolutionMatchesFreshConstruction() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        for(long seed = 1; seed <= 3; seed++) {
+            grasp.setSeed(seed);
+            grasp.getRandomSource().setSeed(seed);
+            grasp.computeGreedySolution(3);
+            assertTrue(checkSolution(grasp.getSolution()));
+            TOPTWSolution fresh = construct(TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt"), seed);
+            assertTrue(grasp.getSolution().iguales(fresh));
+        }
+    }
+
+    @Test
+    public void restoreUndoesChanges() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWSolution solution = construct(problem, 6);
+        TOPTWSolution snapshot = new TOPTWSolution(problem);
+        solution.copyInto(snapshot);
+        double fitness = solution.evaluateFitness();
+        long hash = solution.getOrderedHash();
+        int[] predecessors = solution.getPredecessors().clone();
+        // se cambia la solución: otra construcción sobre los mismos arrays
+        TOPTWSolution other = construct(problem, 7);
+        other.copyInto(solution);
+        assertFalse(Arrays.equals(predecessors, solution.getPredecessors()));
+        assertTrue(hash != solution.getOrderedHash());
+        solution.restoreFrom(snapshot);
+        assertEquals(hash, solution.getOrderedHash());
+        assertEquals(snapshot.getHash(), solution.getHash());
+        assertTrue(solution.iguales(snapshot));
+        assertArrayEquals(predecessors, solution.getPredecessors());
+        assertEquals(fitness, solution.evaluateFitness(), 0.0);
+        assertEquals(snapshot.getAvailableVehicles(), solution.getAvailableVehicles());
+        assertTrue(checkSolution(solution));
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            assertEquals(snapshot.getRouteEndTime(k), solution.getRouteEndTime(k), 0.0);
+        }
+    }
+
+    @Test
+    public void depotsHaveFixedIndices() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTWSolution solution = construct(problem, 3);
+        assertTrue(solution.getCreatedRoutes() > 1);
+        for(int node = 0; node < problem.getPOIs() + problem.getVehicles(); node++) {
+            boolean depot = node == 0 || node > problem.getPOIs();
+            assertEquals("nodo " + node, depot, solution.isDepot(node));
+            assertEquals("nodo " + node, depot, problem.isDepot(node));
+        }
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            assertEquals(k == 0 ? 0 : problem.getPOIs() + k, solution.getIndexRoute(k));
+            assertEquals(k, solution.getRoute(solution.getIndexRoute(k)));
+        }
+        // las soluciones no cambian el problema: otra construcción usa los mismos depósitos
+        TOPTWSolution other = construct(problem, 3);
+        assertTrue(solution.iguales(other));
+    }
+
+    @Test
+    public void routeIndexFollowsTheRouteChanges() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWSolution solution = construct(problem, 5);
+        int depot = solution.getIndexRoute(1);
+        int customer = solution.getSuccessor(depot);
+        // se saca el primer cliente de la ruta 1
+        int suc = solution.getSuccessor(customer);
+        solution.setSuccessor(depot, suc);
+        solution.setPredecessor(suc, depot);
+        solution.setPredecessor(customer, TOPTWSolution.NO_INITIALIZED);
+        solution.setSuccessor(customer, TOPTWSolution.NO_INITIALIZED);
+        assertEquals(TOPTWSolution.NO_INITIALIZED, solution.getRoute(customer));
+        solution.updateRoute(1);
+        assertTrue(checkSolution(solution));
+        // y se pone al final de la ruta 0
+        int depot0 = solution.getIndexRoute(0), last = solution.getPredecessor(depot0);
+        solution.setSuccessor(last, customer);
+        solution.setPredecessor(customer, last);
+        solution.setSuccessor(customer, depot0);
+        solution.setPredecessor(depot0, customer);
+        solution.updateRoute(0);
+        assertEquals(0, solution.getRoute(customer));
+        checkSolution(solution); // la ruta 0 puede dejar de ser factible; se comprueban los índices
+        // copyInto copia también la ruta de cada nodo
+        TOPTWSolution copy = new TOPTWSolution(problem);
+        solution.copyInto(copy);
+        for(int node = 0; node < problem.getPOIs() + problem.getVehicles(); node++) {
+            assertEquals("nodo " + node, solution.getRoute(node), copy.getRoute(node));
+        }
+    }
+
+    /**
+     * Método que construye desde cero una solución con las rutas de otra, en otro orden.
+     * @param solution Solución de partida.
+     * @param order Ruta de partida de cada ruta nueva.
+     * @return solución nueva.
+     */
+    private static TOPTWSolution rebuild(TOPTWSolution solution, int[] order) {
+        TOPTWSolution rebuilt = new TOPTWSolution(solution.getProblem());
+        rebuilt.initSolution();
+        for(int k = 0; k < order.length; k++) {
+            int depot = k == 0 ? rebuilt.getIndexRoute(0) : rebuilt.addRoute();
+            int source = solution.getIndexRoute(order[k]), pre = depot;
+            for(int c = solution.getSuccessor(source); c != source; c = solution.getSuccessor(c)) {
+                rebuilt.setSuccessor(pre, c);
+                rebuilt.setPredecessor(c, pre);
+                pre = c;
+            }
+            rebuilt.setSuccessor(pre, depot);
+            rebuilt.setPredecessor(depot, pre);
+            rebuilt.updateRoute(k);
+        }
+        return rebuilt;
+    }
+
+    @Test
+    public void hashMatchesRebuiltSolution() {
+        for(String instance : INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            TOPTWSolution solution = construct(problem, 5);
+            int routes = solution.getCreatedRoutes();
+            assertTrue(instance + ": hacen falta dos rutas", routes > 1);
+            int[] same = new int[routes], reversed = new int[routes];
+            for(int k = 0; k < routes; k++) {
+                same[k] = k;
+                reversed[k] = routes - 1 - k;
+            }
+            TOPTWSolution copy = rebuild(solution, same);
+            assertEquals(instance, solution.getHash(), copy.getHash());
+            assertEquals(instance, solution.getOrderedHash(), copy.getOrderedHash());
+            assertTrue(instance, solution.iguales(copy));
+            // getHash no depende del orden de las rutas; getOrderedHash sí
+            TOPTWSolution swapped = rebuild(solution, reversed);
+            assertEquals(instance, solution.getHash(), swapped.getHash());
+            assertTrue(instance, solution.getOrderedHash() != swapped.getOrderedHash());
+            assertFalse(instance, solution.iguales(swapped));
+            assertEquals(instance, 0, solution.getSuccessorDistance(swapped));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addRouteFailsWithoutVehicles() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTWSolution solution = new TOPTWSolution(problem);
+        solution.initSolution();
+        for(int k = 1; k <= problem.getVehicles(); k++) {
+            solution.addRoute();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyIntoRejectsAnotherProblem() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        TOPTW other = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        construct(problem, 1).copyInto(new TOPTWSolution(other));
+    }
+}
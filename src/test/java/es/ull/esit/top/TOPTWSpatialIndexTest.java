@@ -0,0 +1,82 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWSpatialIndex: las cotas de la rejilla deben ser conservadoras, es decir,
+ * una celda nunca se descarta si alguno de sus clientes está dentro del límite.
+ */
+public class TOPTWSpatialIndexTest {
+
+    @Test
+    public void cellsHoldTheirCustomers() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + instance);
+            TOPTWSpatialIndex index = problem.getSpatialIndex();
+            double maxDueTime = -Double.MAX_VALUE;
+            for(int c = 1; c <= problem.getPOIs(); c++) {
+                int cell = index.getCell(c);
+                assertTrue(cell >= 0 && cell < index.getCells());
+                int row = cell / index.getColumns(), column = cell % index.getColumns();
+                assertEquals(instance + ": cliente " + c, 0.0, index.getGapX(column, problem.getX(c)), 0.0);
+                assertEquals(instance + ": cliente " + c, 0.0, index.getGapY(row, problem.getY(c)), 0.0);
+                assertTrue(index.getMaxDueTime(cell) >= problem.getDueTime(c));
+                maxDueTime = Math.max(maxDueTime, problem.getDueTime(c));
+            }
+            assertEquals(maxDueTime, index.getMaxDueTime(), 0.0);
+        }
+    }
+
+    @Test
+    public void boundsNeverDiscardAReachableCustomer() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + instance);
+            TOPTWSpatialIndex index = problem.getSpatialIndex();
+            int discarded = 0;
+            for(int node = 0; node < problem.getPOIs() + problem.getVehicles(); node++) {
+                for(int c = 1; c <= problem.getPOIs(); c++) {
+                    int cell = index.getCell(c);
+                    double gapX = index.getGapX(cell % index.getColumns(), problem.getX(node));
+                    double gapY = index.getGapY(cell / index.getColumns(), problem.getY(node));
+                    double distance = problem.getDistance(node, c);
+                    assertTrue(instance + ": nodo " + node + " y cliente " + c, index.isWithin(gapX, gapY, distance));
+                    if(!index.isWithin(gapX, gapY, distance / 4)) {
+                        discarded++;
+                    }
+                }
+            }
+            // con límites menores la rejilla sí descarta celdas
+            assertTrue(instance, discarded > 0);
+        }
+    }
+
+    @Test
+    public void negativeLimitsAreNeverWithin() {
+        TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + "c101.txt");
+        TOPTWSpatialIndex index = problem.getSpatialIndex();
+        assertFalse(index.isWithin(0.0, 0.0, -1e-9));
+        assertTrue(index.isWithin(0.0, 0.0, 0.0));
+    }
+
+    @Test
+    public void modifiedInstancesIndexTheirOwnData() {
+        TOPTW problem = TOPTWReader.readProblem(TOPTWSolutionTest.INSTANCES_DIR + "c101.txt");
+        TOPTWSpatialIndex index = problem.getSpatialIndex();
+        double maxDueTime = index.getMaxDueTime();
+        TOPTW.Builder builder = TOPTWTest.toBuilder(problem);
+        builder.setX(1, problem.getX(1) + 1000.0);
+        builder.setDueTime(2, index.getMaxDueTime() + 1.0);
+        TOPTW modified = builder.build();
+        TOPTWSpatialIndex rebuilt = modified.getSpatialIndex();
+        assertTrue(index != rebuilt);
+        int cell = rebuilt.getCell(1);
+        assertEquals(0.0, rebuilt.getGapX(cell % rebuilt.getColumns(), modified.getX(1)), 0.0);
+        assertEquals(modified.getDueTime(2), rebuilt.getMaxDueTime(), 0.0);
+        // el índice de la instancia original no cambia
+        assertEquals(maxDueTime, index.getMaxDueTime(), 0.0);
+    }
+}
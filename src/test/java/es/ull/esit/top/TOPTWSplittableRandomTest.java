@@ -0,0 +1,56 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTWSplittableRandom: debe dar la misma secuencia que
+ * java.util.SplittableRandom con la misma semilla, también tras setSeed.
+ */
+public class TOPTWSplittableRandomTest {
+    private static final int[] BOUNDS = {1, 2, 3, 7, 16, 100, 1000, Integer.MAX_VALUE};
+
+    @Test
+    public void matchesSplittableRandom() {
+        TOPTWSplittableRandom random = new TOPTWSplittableRandom(0);
+        for(long seed : new long[]{0L, 1L, 42L, -7L, Long.MAX_VALUE}) {
+            random.setSeed(seed);
+            SplittableRandom reference = new SplittableRandom(seed);
+            for(int i = 0; i < 1000; i++) {
+                int bound = BOUNDS[i % BOUNDS.length];
+                assertEquals("semilla " + seed, reference.nextInt(bound), random.nextInt(bound));
+            }
+        }
+    }
+
+    @Test
+    public void nextDoubleMatchesSplittableRandom() {
+        TOPTWSplittableRandom random = new TOPTWSplittableRandom(3);
+        SplittableRandom reference = new SplittableRandom(3);
+        for(int i = 0; i < 1000; i++) {
+            // se intercalan enteros para comprobar que comparten el estado
+            assertEquals(reference.nextDouble(), random.nextDouble(), 0.0);
+            assertEquals(reference.nextInt(10), random.nextInt(10));
+        }
+    }
+
+    @Test
+    public void copyStartsFromTheNextLong() {
+        TOPTWSplittableRandom random = new TOPTWSplittableRandom(5);
+        SplittableRandom reference = new SplittableRandom(5);
+        TOPTWRandomSource copy = random.copy();
+        SplittableRandom referenceCopy = new SplittableRandom(reference.nextLong());
+        for(int i = 0; i < 100; i++) {
+            assertEquals(referenceCopy.nextInt(10), copy.nextInt(10));
+            assertEquals(reference.nextInt(10), random.nextInt(10));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nextIntRejectsEmptyRange() {
+        new TOPTWSplittableRandom(1).nextInt(0);
+    }
+}
@@ -0,0 +1,309 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de TOPTW: las listas de vecinos deben coincidir con una búsqueda exhaustiva, y
+ * el score máximo y la pertenencia fuzzy guardados con calcularlos a partir de los scores,
+ * también en instancias modificadas y desde varios hilos. El builder no admite cambios
+ * tras construir y las instancias no se pueden modificar.
+ */
+public class TOPTWTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+
+    /**
+     * Método que crea un builder con los datos de una instancia, para construir variantes
+     * modificadas de ella.
+     * @param problem Problema.
+     * @return builder con los datos del problema.
+     */
+    static TOPTW.Builder toBuilder(TOPTW problem) {
+        TOPTW.Builder builder = new TOPTW.Builder(problem.getPOIs(), problem.getVehicles());
+        for(int i = 0; i <= problem.getPOIs(); i++) {
+            builder.setX(i, problem.getX(i)).setY(i, problem.getY(i)).setScore(i, problem.getScore(i))
+                    .setReadyTime(i, problem.getReadyTime(i)).setDueTime(i, problem.getDueTime(i))
+                    .setServiceTime(i, problem.getServiceTime(i));
+        }
+        builder.setMaxTimePerRoute(problem.getMaxTimePerRoute());
+        builder.setMaxRoutes(problem.getMaxRoutes());
+        builder.setNeighborCount(problem.getNeighborCount());
+        return builder;
+    }
+
+    /**
+     * Método que comprueba el score máximo y la pertenencia de cada nodo.
+     * @param problem Problema.
+     */
+    private static void checkScoreConstants(TOPTW problem) {
+        double max = -1.0;
+        for(int i = 0; i < problem.getScore().length; i++) {
+            max = Math.max(max, problem.getScore(i));
+        }
+        assertEquals(max, problem.getMaxScore(), 0.0);
+        for(int i = 0; i < problem.getPOIs() + problem.getVehicles(); i++) {
+            assertEquals("nodo " + i, 1 - problem.getScore(i) / max, problem.getMembership(i), 0.0);
+        }
+    }
+
+    /**
+     * Método que comprueba si dos clientes pueden ir seguidos en algún sentido.
+     * @param problem Problema.
+     * @param a Cliente.
+     * @param b Cliente.
+     * @return true si son compatibles por ventanas de tiempo.
+     */
+    private static boolean isCompatible(TOPTW problem, int a, int b) {
+        double time = problem.getTime(a, b);
+        return problem.getReadyTime(a) + problem.getServiceTime(a) + time < problem.getDueTime(b)
+                || problem.getReadyTime(b) + problem.getServiceTime(b) + time < problem.getDueTime(a);
+    }
+
+    /**
+     * Método que comprueba las listas de vecinos contra una búsqueda exhaustiva: cada
+     * lista tiene los clientes compatibles más cercanos, ordenados por tiempo de viaje y a
+     * igual tiempo por índice, y las listas inversas son exactamente su inversa.
+     * @param problem Problema.
+     * @param name Descripción del caso.
+     */
+    private static void checkNeighbors(TOPTW problem, String name) {
+        int[] neighbors = problem.getNeighbors(), start = problem.getNeighborStart();
+        int count = problem.getNeighborCount();
+        ArrayList< ArrayList<Integer> > reverse = new ArrayList< ArrayList<Integer> >();
+        for(int v = 0; v <= problem.getPOIs(); v++) {
+            reverse.add(new ArrayList<Integer>());
+        }
+        for(int c = 1; c <= problem.getPOIs(); c++) {
+            String step = name + ": cliente " + c;
+            ArrayList<Integer> compatible = new ArrayList<Integer>();
+            for(int v = 1; v <= problem.getPOIs(); v++) {
+                if(v != c && isCompatible(problem, c, v)) {
+                    compatible.add(v);
+                }
+            }
+            assertEquals(step, Math.min(count, compatible.size()), start[c + 1] - start[c]);
+            for(int p = start[c]; p < start[c + 1]; p++) {
+                int v = neighbors[p];
+                assertTrue(step, compatible.contains(v));
+                assertTrue(step, problem.isNeighbor(c, v));
+                if(p > start[c]) {
+                    int u = neighbors[p - 1];
+                    double before = problem.getTime(c, u), time = problem.getTime(c, v);
+                    assertTrue(step, before < time || (before == time && u < v));
+                }
+                reverse.get(v).add(c);
+            }
+            // ningún compatible fuera de la lista está más cerca que el último de ella
+            if(start[c + 1] > start[c]) {
+                double last = problem.getTime(c, neighbors[start[c + 1] - 1]);
+                for(int v : compatible) {
+                    if(!problem.isNeighbor(c, v)) {
+                        assertTrue(step, problem.getTime(c, v) >= last);
+                    }
+                }
+            }
+        }
+        int[] reverseNeighbors = problem.getReverseNeighbors(), reverseStart = problem.getReverseNeighborStart();
+        for(int v = 1; v <= problem.getPOIs(); v++) {
+            ArrayList<Integer> actual = new ArrayList<Integer>();
+            for(int p = reverseStart[v]; p < reverseStart[v + 1]; p++) {
+                actual.add(reverseNeighbors[p]);
+            }
+            assertEquals(name + ": inversos de " + v, reverse.get(v), actual);
+        }
+    }
+
+    @Test
+    public void neighborListsHoldTheNearestCompatibleCustomers() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + instance);
+            assertEquals(TOPTW.DEFAULT_NEIGHBORS, problem.getNeighborCount());
+            checkNeighbors(problem, instance);
+            for(int count : new int[]{1, 7}) {
+                checkNeighbors(problem.withNeighborCount(count), instance + " con " + count + " vecinos");
+            }
+            // la instancia original conserva sus listas
+            checkNeighbors(problem, instance);
+        }
+    }
+
+    @Test
+    public void withNeighborCountSharesTheInstanceData() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        assertSame(problem, problem.withNeighborCount(problem.getNeighborCount()));
+        TOPTW other = problem.withNeighborCount(3);
+        assertEquals(3, other.getNeighborCount());
+        assertEquals(TOPTW.DEFAULT_NEIGHBORS, problem.getNeighborCount());
+        assertSame(problem.getDistances(), other.getDistances());
+        assertSame(problem.getSpatialIndex(), other.getSpatialIndex());
+        assertEquals(problem.getMaxScore(), other.getMaxScore(), 0.0);
+        for(int i = 0; i <= problem.getPOIs(); i++) {
+            assertEquals(problem.getX(i), other.getX(i), 0.0);
+            assertEquals(problem.getDueTime(i), other.getDueTime(i), 0.0);
+        }
+    }
+
+    @Test
+    public void allNeighborsAreEveryCompatibleCustomer() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWSolutionTest.exhaustive(TOPTWReader.readProblem(INSTANCES_DIR + instance));
+            checkNeighbors(problem, instance + " con todos los vecinos");
+            for(int c = 1; c <= problem.getPOIs(); c++) {
+                for(int v = 1; v <= problem.getPOIs(); v++) {
+                    assertEquals(instance, v != c && isCompatible(problem, c, v), problem.isNeighbor(c, v));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withNeighborCountRejectsNegativeCounts() {
+        TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt").withNeighborCount(-1);
+    }
+
+    @Test
+    public void neighborListsFollowTheInstanceChanges() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "r105.txt");
+        TOPTW.Builder builder = toBuilder(problem);
+        builder.setX(3, problem.getX(3) + 30.0);
+        builder.setDueTime(4, problem.getDueTime(4) + 50.0);
+        TOPTW modified = builder.build();
+        assertFalse(Arrays.equals(problem.getNeighbors(), modified.getNeighbors()));
+        checkNeighbors(modified, "r105 modificada");
+        checkNeighbors(problem, "r105");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderBuildsOnlyOnce() {
+        TOPTW.Builder builder = toBuilder(TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt"));
+        builder.build();
+        builder.build();
+    }
+
+    @Test
+    public void builderRejectsChangesAfterBuild() {
+        TOPTW.Builder builder = toBuilder(TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt"));
+        TOPTW problem = builder.build();
+        double x = problem.getX(1);
+        try {
+            builder.setX(1, x + 10.0);
+            fail("setX tras build");
+        } catch(IllegalStateException e) {
+            // los arrays del builder son los de la instancia: no deben cambiar
+        }
+        try {
+            builder.setScore(1, 0.0);
+            fail("setScore tras build");
+        } catch(IllegalStateException e) {
+            // esperado
+        }
+        assertEquals(x, problem.getX(1), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builderRejectsNegativeNeighborCounts() {
+        new TOPTW.Builder(10, 2).setNeighborCount(-1);
+    }
+
+    @Test
+    public void getScoreReturnsACopy() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        double[] score = problem.getScore();
+        double before = problem.getScore(1);
+        score[1] = before + 100.0;
+        assertEquals(before, problem.getScore(1), 0.0);
+        assertArrayEquals(problem.getScore(), problem.getScore(), 0.0);
+        checkScoreConstants(problem);
+    }
+
+    @Test
+    public void coordinateChangesDiscardTheSuppliedDistances() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        double[] x = new double[problem.getPOIs() + 1], y = new double[problem.getPOIs() + 1];
+        for(int i = 0; i <= problem.getPOIs(); i++) {
+            x[i] = problem.getX(i);
+            y[i] = problem.getY(i);
+        }
+        // sin cambios de coordenadas se usa el almacén asignado
+        TOPTWDistances supplied = new TOPTWFlatDistances(x, y);
+        assertSame(supplied, toBuilder(problem).setDistances(supplied).build().getDistances());
+        // setX y setY después de setDistances lo descartan y build calcula las distancias
+        for(boolean changeX : new boolean[]{true, false}) {
+            TOPTW.Builder builder = toBuilder(problem).setDistances(new TOPTWFlatDistances(x, y));
+            if(changeX) {
+                builder.setX(1, problem.getX(1) + 100.0);
+            } else {
+                builder.setY(1, problem.getY(1) + 100.0);
+            }
+            TOPTW modified = builder.build();
+            double dx = modified.getX(1) - modified.getX(0), dy = modified.getY(1) - modified.getY(0);
+            assertEquals(Math.sqrt(dx * dx + dy * dy), modified.getDistance(0, 1), 1e-9);
+            assertEquals(problem.getDistance(0, 2), modified.getDistance(0, 2), 1e-9);
+        }
+    }
+
+    @Test
+    public void scoreConstantsMatchTheScores() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            checkScoreConstants(TOPTWReader.readProblem(INSTANCES_DIR + instance));
+        }
+    }
+
+    @Test
+    public void builtScoresGiveTheScoreConstants() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "c101.txt");
+        double max = problem.getMaxScore();
+        TOPTW higher = toBuilder(problem).setScore(5, max * 2).build();
+        checkScoreConstants(higher);
+        assertEquals(max * 2, higher.getMaxScore(), 0.0);
+        assertEquals(0.0, higher.getMembership(5), 0.0);
+        TOPTW zero = toBuilder(problem).setScore(5, 0.0).build();
+        checkScoreConstants(zero);
+        assertEquals(1.0, zero.getMembership(5), 0.0);
+        assertEquals(max, problem.getMaxScore(), 0.0);
+    }
+
+    @Test
+    public void scoreConstantsAreSafeToShare() throws Exception {
+        final TOPTW problem = TOPTWReader.readProblem(INSTANCES_DIR + "rc101.txt");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList< Future<double[]> > tasks = new ArrayList< Future<double[]> >();
+            for(int t = 0; t < 8; t++) {
+                tasks.add(pool.submit(new Callable<double[]>() {
+                    public double[] call() {
+                        double[] values = new double[problem.getPOIs() + 2];
+                        values[0] = problem.getMaxScore();
+                        for(int i = 1; i < values.length; i++) {
+                            values[i] = problem.getMembership(i - 1);
+                        }
+                        return values;
+                    }
+                }));
+            }
+            double[] first = tasks.get(0).get();
+            for(Future<double[]> task : tasks) {
+                double[] values = task.get();
+                for(int i = 0; i < values.length; i++) {
+                    assertEquals(first[i], values[i], 0.0);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        checkScoreConstants(problem);
+    }
+}
@@ -0,0 +1,139 @@
+package es.ull.esit.top;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+
+/**
+ * Pruebas de TOPTWTokenizer y del TOPTWReader que lo usa: cada instancia debe leerse
+ * igual que con el lector anterior, basado en split y Double.parseDouble.
+ */
+public class TOPTWTokenizerTest {
+    public static final String INSTANCES_DIR = "Instances/TOPTW/";
+    // descripción del formato, no es una instancia
+    public static final String FORMAT_FILE = "formatInstances.txt";
+
+    /**
+     * Método que lee una línea de una instancia como el lector anterior.
+     * @param reader Lector de la instancia.
+     * @return campos de la línea.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    private static String[] readFields(BufferedReader reader) throws IOException {
+        return ExpositoUtilities.simplifyString(reader.readLine()).split(" ");
+    }
+
+    /**
+     * Método que comprueba un problema leído contra la instancia leída con split.
+     * @param file Instancia.
+     * @param problem Problema leído con TOPTWReader.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    private static void checkAgainstSplit(File file, TOPTW problem) throws IOException {
+        String instance = file.getName();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String[] parts = readFields(reader);
+            assertEquals(instance, Integer.parseInt(parts[2]), problem.getPOIs());
+            assertEquals(instance, Integer.parseInt(parts[1]), problem.getVehicles());
+            reader.readLine();
+            for(int i = 0; i < problem.getPOIs() + 1; i++) {
+                parts = readFields(reader);
+                String node = instance + ": nodo " + i;
+                assertEquals(node, Double.parseDouble(parts[1]), problem.getX(i), 0.0);
+                assertEquals(node, Double.parseDouble(parts[2]), problem.getY(i), 0.0);
+                assertEquals(node, Double.parseDouble(parts[3]), problem.getServiceTime(i), 0.0);
+                assertEquals(node, Double.parseDouble(parts[4]), problem.getScore(i), 0.0);
+                // el lector anterior tomaba los campos 7 u 8 y suponía listas de 0 o 1
+                // elementos; en pr10.txt hay alguna de 2
+                int window = 7 + Integer.parseInt(parts[6]);
+                assertEquals(node, Double.parseDouble(parts[window]), problem.getReadyTime(i), 0.0);
+                assertEquals(node, Double.parseDouble(parts[window + 1]), problem.getDueTime(i), 0.0);
+            }
+            assertEquals(instance, problem.getDueTime(0), problem.getMaxTimePerRoute(), 0.0);
+        }
+    }
+
+    @Test
+    public void readerMatchesSplitOnEveryInstance() throws IOException {
+        File[] files = new File(INSTANCES_DIR).listFiles();
+        int checked = 0;
+        for(File file : files) {
+            if(file.getName().endsWith(".txt") && !file.getName().equals(FORMAT_FILE)) {
+                checkAgainstSplit(file, TOPTWReader.readProblem(file.getPath()));
+                checked++;
+            }
+        }
+        assertEquals(40, checked);
+    }
+
+    /**
+     * Método que crea un tokenizer sobre un texto.
+     * @param text Texto.
+     * @return tokenizer.
+     */
+    private static TOPTWTokenizer tokenize(String text) {
+        return new TOPTWTokenizer(new StringReader(text));
+    }
+
+    @Test
+    public void nextDoubleMatchesParseDouble() throws IOException {
+        String[] tokens = {"0", "35.00", "-12.5", "+7", "0.1", "1234567.891", "2.5e3", "1E-4",
+                "12345678901234567890", "0.00000000000000000000001", "-0.0"};
+        StringBuilder text = new StringBuilder();
+        for(String token : tokens) {
+            text.append(token).append('\t');
+        }
+        TOPTWTokenizer tokenizer = tokenize(text.toString());
+        for(String token : tokens) {
+            assertEquals(token, Double.doubleToLongBits(Double.parseDouble(token)),
+                    Double.doubleToLongBits(tokenizer.nextDouble()));
+        }
+    }
+
+    @Test
+    public void nextIntAcceptsTheWholeRange() throws IOException {
+        TOPTWTokenizer tokenizer = tokenize("0 -7 +42 2147483647 -2147483648");
+        assertEquals(0, tokenizer.nextInt());
+        assertEquals(-7, tokenizer.nextInt());
+        assertEquals(42, tokenizer.nextInt());
+        assertEquals(Integer.MAX_VALUE, tokenizer.nextInt());
+        assertEquals(Integer.MIN_VALUE, tokenizer.nextInt());
+    }
+
+    @Test
+    public void nextIntRejectsOverflow() {
+        for(String token : new String[]{"2147483648", "-2147483649", "4294967297", "99999999999999999999", "1.5", "-", "x"}) {
+            try {
+                tokenize(token).nextInt();
+                fail(token);
+            } catch (IOException e) {
+                // esperado
+            }
+        }
+    }
+
+    @Test
+    public void skipLineHandlesCarriageReturns() throws IOException {
+        TOPTWTokenizer tokenizer = tokenize("1 2 3\r\n4 5\r\n\r\n6");
+        assertEquals(1, tokenizer.nextInt());
+        tokenizer.skipLine();
+        assertEquals(4, tokenizer.nextInt());
+        tokenizer.skipLine();
+        assertEquals(6, tokenizer.nextInt());
+        try {
+            tokenizer.skipToken();
+            fail("fin de fichero");
+        } catch (IOException e) {
+            // esperado
+        }
+    }
+}